@@ -0,0 +1,123 @@
+// Toggle sidebar on mobile
+function toggleSidebar() {
+    const sidebar = document.getElementById('sidebar');
+    sidebar.classList.toggle('active');
+}
+
+// Update date and time
+function updateDateTime() {
+    const now = new Date();
+    const options = { 
+        weekday: 'long', 
+        year: 'numeric', 
+        month: 'long', 
+        day: 'numeric',
+        hour: '2-digit',
+        minute: '2-digit',
+        second: '2-digit'
+    };
+    document.getElementById('currentDateTime').textContent = 
+        now.toLocaleDateString('en-US', options);
+}
+
+// Task actions
+function editTask(taskId) {
+    alert(`Edit task ${taskId} - This would open edit form`);
+    // In real app: window.location.href = `/tasks/${taskId}/edit`;
+}
+
+function completeTask(taskId) {
+    if (confirm('Mark this task as completed?')) {
+        alert(`Task ${taskId} marked as completed`);
+        // In real app: fetch(`/tasks/${taskId}/complete`, { method: 'POST' })
+        //             .then(() => location.reload());
+    }
+}
+
+function deleteTask(taskId) {
+    if (confirm('Are you sure you want to delete this task?')) {
+        alert(`Task ${taskId} deleted`);
+        // In real app: fetch(`/tasks/${taskId}`, { method: 'DELETE' })
+        //             .then(() => location.reload());
+    }
+}
+
+// Quick actions functions
+function showTodayTasks() {
+    alert('Showing today\'s tasks');
+    // In real app: filter tasks by today's date
+}
+
+function showHighPriority() {
+    alert('Showing high priority tasks');
+    // In real app: filter tasks by priority='high'
+}
+
+function exportTasks() {
+    alert('Exporting tasks as CSV');
+    // In real app: generate and download CSV
+}
+
+function showCalendar() {
+    alert('Opening calendar view');
+    // In real app: redirect to calendar page
+}
+
+// Initialize
+document.addEventListener('DOMContentLoaded', function() {
+    updateDateTime();
+    setInterval(updateDateTime, 1000);
+
+    // Close sidebar when clicking outside on mobile
+    document.addEventListener('click', function(event) {
+        const sidebar = document.getElementById('sidebar');
+        const mobileBtn = document.querySelector('.mobile-menu-btn');
+
+        if (window.innerWidth <= 1024 && 
+            !sidebar.contains(event.target) && 
+            !mobileBtn.contains(event.target)) {
+            sidebar.classList.remove('active');
+        }
+    });
+
+    // Animate stats cards
+    const statCards = document.querySelectorAll('.stat-card');
+    statCards.forEach((card, index) => {
+        card.style.opacity = '0';
+        card.style.transform = 'translateY(20px)';
+
+        setTimeout(() => {
+            card.style.transition = 'opacity 0.5s ease, transform 0.5s ease';
+            card.style.opacity = '1';
+            card.style.transform = 'translateY(0)';
+        }, index * 150);
+    });
+
+    // Show welcome message if new user
+    const urlParams = new URLSearchParams(window.location.search);
+    if (urlParams.get('newUser') === 'true') {
+        setTimeout(() => {
+            alert('🎉 Welcome to Todo App! Start by creating your first task.');
+        }, 1000);
+    }
+});
+
+// Keyboard shortcuts
+document.addEventListener('keydown', function(e) {
+    // Ctrl/Cmd + N: New task
+    if ((e.ctrlKey || e.metaKey) && e.key === 'n') {
+        e.preventDefault();
+        window.location.href = '/tasks/new';
+    }
+
+    // Ctrl/Cmd + L: Logout
+    if ((e.ctrlKey || e.metaKey) && e.key === 'l') {
+        e.preventDefault();
+        window.location.href = '/logout';
+    }
+
+    // Escape: Close sidebar on mobile
+    if (e.key === 'Escape' && window.innerWidth <= 1024) {
+        document.getElementById('sidebar').classList.remove('active');
+    }
+});
@@ -0,0 +1,86 @@
+// Live updates from /api/v1/events, shared by the dashboard and the task list.
+// Counters are replaced with the absolute values the server sends, so a missed event or a
+// reconnect never leaves them drifting. Cards on the page are patched in place when tasks.js
+// is loaded; anything that would reorder or add rows asks for a refresh instead.
+(function() {
+    if (!window.EventSource) {
+        return;
+    }
+
+    const counterFields = {
+        total: 'total',
+        pending: 'pending',
+        in_progress: 'inProgress',
+        completed: 'completed'
+    };
+
+    const source = new EventSource('/api/v1/events');
+    let connectedOnce = false;
+
+    source.addEventListener('open', () => {
+        // The browser reconnects by itself; events sent while it was away are gone
+        if (connectedOnce) {
+            showRefreshNotice('Reconnected. Some changes may not be shown yet.');
+        }
+        connectedOnce = true;
+    });
+
+    source.addEventListener('counts', event => {
+        const counts = JSON.parse(event.data);
+        Object.entries(counterFields).forEach(([name, field]) => {
+            document.querySelectorAll(`[data-count="${name}"]`).forEach(element => {
+                element.textContent = counts[field];
+            });
+        });
+    });
+
+    source.addEventListener('task', event => {
+        const change = JSON.parse(event.data);
+        if (change.action === 'deleted') {
+            if (typeof removeTask === 'function') {
+                removeTask(change.id);
+            }
+            return;
+        }
+        if (change.action === 'updated') {
+            const task = change.task;
+            const element = document.querySelector(`[data-task-id="${task.id}"]`);
+            // Our own writes come back too; skip anything the page already has
+            if (element && parseInt(element.dataset.version) < task.version && typeof applyTask === 'function') {
+                applyTask(task);
+            }
+            return;
+        }
+        if (change.action === 'reminder') {
+            const message = `🔔 Reminder: ${change.task.title}`;
+            if (typeof showNotification === 'function') {
+                // showNotification takes HTML; the title is user text
+                const text = document.createElement('span');
+                text.textContent = message;
+                showNotification(text.innerHTML, 'info');
+            } else {
+                showRefreshNotice(message);
+            }
+            return;
+        }
+        if (change.action === 'created') {
+            showRefreshNotice('A task was added.');
+        } else if (change.action === 'imported') {
+            showRefreshNotice(`${change.count} task(s) were imported.`);
+        }
+    });
+
+    function showRefreshNotice(message) {
+        let notice = document.querySelector('.live-notice');
+        if (!notice) {
+            notice = document.createElement('div');
+            notice.className = 'live-notice';
+            notice.innerHTML = '<span></span><button type="button">Refresh</button>';
+            notice.querySelector('button').addEventListener('click', () => window.location.reload());
+            document.body.appendChild(notice);
+        }
+        notice.querySelector('span').textContent = message;
+    }
+
+    window.addEventListener('beforeunload', () => source.close());
+})();
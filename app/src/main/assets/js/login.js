@@ -0,0 +1,69 @@
+// Toggle password visibility
+function togglePassword() {
+    const passwordField = document.getElementById('password');
+    const toggleBtn = document.querySelector('.password-toggle');
+
+    if (passwordField.type === 'password') {
+        passwordField.type = 'text';
+        toggleBtn.textContent = '🙈';
+    } else {
+        passwordField.type = 'password';
+        toggleBtn.textContent = '👁️';
+    }
+}
+
+// Form submission animation
+document.querySelector('form').addEventListener('submit', function(e) {
+    const btn = document.querySelector('.login-btn');
+    const btnText = document.getElementById('btn-text');
+    const btnLoading = document.getElementById('btn-loading');
+
+    // Show loading state
+    btnText.style.display = 'none';
+    btnLoading.style.display = 'inline';
+    btn.style.opacity = '0.8';
+    btn.style.cursor = 'wait';
+
+    // Add slight delay for smooth transition
+    setTimeout(() => {
+        btn.disabled = true;
+    }, 100);
+});
+
+// Forgot password alert
+function showResetAlert() {
+    alert("Please contact the administrator or register a new account.\nFor demo purposes, try username: 'admin', password: 'admin'");
+    return false;
+}
+
+// Auto-focus username field if there's an error
+document.addEventListener('DOMContentLoaded', function() {
+    const errorDiv = document.querySelector('.alert-error');
+    if (errorDiv) {
+        document.getElementById('username').focus();
+    }
+
+    // Add floating animation to form
+    const formGroups = document.querySelectorAll('.form-group');
+    formGroups.forEach((group, index) => {
+        group.style.opacity = '0';
+        group.style.transform = 'translateY(20px)';
+
+        setTimeout(() => {
+            group.style.transition = 'opacity 0.5s ease, transform 0.5s ease';
+            group.style.opacity = '1';
+            group.style.transform = 'translateY(0)';
+        }, index * 200);
+    });
+});
+
+// Demo credentials helper
+document.addEventListener('keydown', function(e) {
+    // Press F1 for demo credentials
+    if (e.key === 'F1') {
+        e.preventDefault();
+        document.getElementById('username').value = 'admin';
+        document.getElementById('password').value = 'admin';
+        alert('Demo credentials filled! You can now login.');
+    }
+});
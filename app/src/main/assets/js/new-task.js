@@ -0,0 +1,457 @@
+// Current step
+let currentStep = 1;
+
+// Update character counters
+function updateCharCounters() {
+    const titleInput = document.getElementById('title');
+    const descInput = document.getElementById('description');
+    const titleCounter = document.getElementById('titleCounter');
+    const descCounter = document.getElementById('descCounter');
+
+    if (titleInput && titleCounter) {
+        titleCounter.textContent = titleInput.value.length;
+        titleCounter.className = 'char-counter';
+
+        if (titleInput.value.length > 80) {
+            titleCounter.classList.add('warning');
+        }
+        if (titleInput.value.length >= 100) {
+            titleCounter.classList.add('error');
+        }
+    }
+
+    if (descInput && descCounter) {
+        descCounter.textContent = descInput.value.length;
+        descCounter.className = 'char-counter';
+
+        if (descInput.value.length > 400) {
+            descCounter.classList.add('warning');
+        }
+        if (descInput.value.length >= 500) {
+            descCounter.classList.add('error');
+        }
+    }
+}
+
+// Update task preview
+function updatePreview() {
+    const titleInput = document.getElementById('title');
+    const descInput = document.getElementById('description');
+    const priorityInput = document.querySelector('input[name="priority"]:checked');
+    const previewTitle = document.getElementById('previewTitle');
+    const previewDesc = document.getElementById('previewDesc');
+    const previewPriority = document.getElementById('previewPriority');
+
+    if (previewTitle && titleInput) {
+        previewTitle.textContent = titleInput.value || '-';
+    }
+
+    if (previewDesc && descInput) {
+        previewDesc.textContent = descInput.value || '-';
+    }
+
+    if (previewPriority && priorityInput) {
+        const priority = priorityInput.value;
+        previewPriority.textContent = priority.charAt(0).toUpperCase() + priority.slice(1);
+
+        // Update color based on priority
+        previewPriority.style.color = 
+            priority === 'high' ? '#dc3545' : 
+            priority === 'medium' ? '#ffc107' : '#28a745';
+    }
+
+    // Update progress steps based on form completion
+    updateProgressSteps();
+}
+
+// Update progress steps
+function updateProgressSteps() {
+    const titleInput = document.getElementById('title');
+    const descInput = document.getElementById('description');
+    const steps = document.querySelectorAll('.step');
+
+    if (!titleInput || !descInput || !steps.length) return;
+
+    const title = titleInput.value.trim();
+    const description = descInput.value.trim();
+
+    // Step 1 is always active
+    steps[0].classList.add('active');
+
+    // Step 2 active if title is filled
+    if (title.length > 0) {
+        steps[1].classList.add('active');
+    } else {
+        steps[1].classList.remove('active');
+    }
+
+    // Step 3 active if description is filled
+    if (description.length > 0) {
+        steps[2].classList.add('active');
+    } else {
+        steps[2].classList.remove('active');
+    }
+
+    // Step 4 active if all required fields are filled
+    if (title.length > 0 && description.length > 0) {
+        steps[3].classList.add('active');
+    } else {
+        steps[3].classList.remove('active');
+    }
+}
+
+// Validate form
+function validateForm() {
+    const titleInput = document.getElementById('title');
+    const descInput = document.getElementById('description');
+    const submitBtn = document.getElementById('submitBtn');
+
+    if (!titleInput || !descInput || !submitBtn) return false;
+
+    const title = titleInput.value.trim();
+    const description = descInput.value.trim();
+
+    let isValid = true;
+
+    // Clear previous errors
+    titleInput.classList.remove('error', 'success');
+    descInput.classList.remove('error', 'success');
+
+    // Validate title
+    if (title.length === 0) {
+        titleInput.classList.add('error');
+        isValid = false;
+    } else if (title.length > 0) {
+        titleInput.classList.add('success');
+    }
+
+    // Validate description
+    if (description.length === 0) {
+        descInput.classList.add('error');
+        isValid = false;
+    } else if (description.length > 0) {
+        descInput.classList.add('success');
+    }
+
+    // Update submit button
+    submitBtn.disabled = !isValid;
+
+    return isValid;
+}
+
+// Clear form
+function clearForm() {
+    if (confirm('Are you sure you want to clear the form? All entered data will be lost.')) {
+        const form = document.getElementById('taskForm');
+        if (form) {
+            form.reset();
+            const dueDate = document.getElementById('dueDate');
+            if (dueDate) dueDate.value = '';
+            const remindAt = document.getElementById('remindAt');
+            if (remindAt) remindAt.value = '';
+            setTimezone();
+
+            updateCharCounters();
+            updatePreview();
+            validateForm();
+
+            // Reset progress steps
+            const steps = document.querySelectorAll('.step');
+            if (steps.length) {
+                steps.forEach((step, index) => {
+                    if (index === 0) {
+                        step.classList.add('active');
+                    } else {
+                        step.classList.remove('active');
+                    }
+                });
+            }
+
+            // Focus on title
+            const titleInput = document.getElementById('title');
+            if (titleInput) titleInput.focus();
+        }
+    }
+}
+
+// Form submission
+const taskForm = document.getElementById('taskForm');
+if (taskForm) {
+    taskForm.addEventListener('submit', function(e) {
+        if (!validateForm()) {
+            e.preventDefault();
+            alert('Please fill in all required fields before submitting.');
+            return;
+        }
+
+        // Show loading
+        const loadingOverlay = document.getElementById('loadingOverlay');
+        const submitBtn = document.getElementById('submitBtn');
+        const btnIcon = document.getElementById('btn-icon');
+        const btnText = document.getElementById('btn-text');
+        const btnLoading = document.getElementById('btn-loading');
+
+        if (submitBtn && btnIcon && btnText && btnLoading) {
+            // Show loading state
+            btnIcon.style.display = 'none';
+            btnText.style.display = 'none';
+            btnLoading.style.display = 'inline';
+            submitBtn.style.cursor = 'wait';
+        }
+
+        if (loadingOverlay) {
+            loadingOverlay.style.display = 'flex';
+        }
+
+        // For demo purposes only - in real app, the form submits normally
+        // Remove this setTimeout in production
+        setTimeout(() => {
+            if (loadingOverlay) {
+                loadingOverlay.style.display = 'none';
+            }
+
+            const successMessage = document.getElementById('successMessage');
+            if (successMessage) {
+                successMessage.style.display = 'block';
+            }
+
+            // Save task data for "Create Another"
+            const titleInput = document.getElementById('title');
+            const descInput = document.getElementById('description');
+            const priorityInput = document.querySelector('input[name="priority"]:checked');
+            const dueDateInput = document.getElementById('dueDate');
+
+            if (titleInput && descInput && priorityInput) {
+                const taskData = {
+                    title: titleInput.value,
+                    description: descInput.value,
+                    priority: priorityInput.value,
+                    dueDate: dueDateInput ? dueDateInput.value : ''
+                };
+                localStorage.setItem('lastTask', JSON.stringify(taskData));
+            }
+
+            // Prevent actual submission for demo
+            e.preventDefault();
+        }, 1500);
+    });
+}
+
+// Success message actions
+function createAnother() {
+    const successMessage = document.getElementById('successMessage');
+    if (successMessage) {
+        successMessage.style.display = 'none';
+    }
+    clearForm();
+
+    // Load last task data if exists
+    try {
+        const lastTask = localStorage.getItem('lastTask');
+        if (lastTask) {
+            const taskData = JSON.parse(lastTask);
+            const titleInput = document.getElementById('title');
+            const descInput = document.getElementById('description');
+            const dueDateInput = document.getElementById('dueDate');
+
+            if (titleInput) titleInput.value = taskData.title + ' (Copy)';
+            if (descInput) descInput.value = taskData.description;
+            if (dueDateInput && taskData.dueDate) dueDateInput.value = taskData.dueDate;
+
+            const priorityInput = document.querySelector(`input[value="${taskData.priority}"]`);
+            if (priorityInput) priorityInput.checked = true;
+
+            updateCharCounters();
+            updatePreview();
+            validateForm();
+        }
+
+        const titleInput = document.getElementById('title');
+        if (titleInput) titleInput.focus();
+    } catch (error) {
+        console.error('Error loading last task:', error);
+    }
+}
+
+function viewTasks() {
+    window.location.href = '/tasks';
+}
+
+// Set minimum date to today
+function setMinDate() {
+    const dueDateInput = document.getElementById('dueDate');
+    if (dueDateInput) {
+        const today = new Date();
+        const yyyy = today.getFullYear();
+        const mm = String(today.getMonth() + 1).padStart(2, '0');
+        const dd = String(today.getDate()).padStart(2, '0');
+        const minDate = `${yyyy}-${mm}-${dd}`;
+        dueDateInput.min = minDate;
+    }
+}
+
+// The due date and reminder are local times; send the zone they are in
+function setTimezone() {
+    const timezoneInput = document.getElementById('timezone');
+    if (timezoneInput) {
+        timezoneInput.value = Intl.DateTimeFormat().resolvedOptions().timeZone || '';
+    }
+}
+
+// Initialize
+document.addEventListener('DOMContentLoaded', function() {
+    // Set min date
+    setMinDate();
+    setTimezone();
+
+    // Set up event listeners
+    const titleInput = document.getElementById('title');
+    const descInput = document.getElementById('description');
+    const priorityRadios = document.querySelectorAll('input[name="priority"]');
+    const dueDateInput = document.getElementById('dueDate');
+
+    if (titleInput) {
+        titleInput.addEventListener('input', function() {
+            updateCharCounters();
+            updatePreview();
+            validateForm();
+        });
+    }
+
+    if (descInput) {
+        descInput.addEventListener('input', function() {
+            updateCharCounters();
+            updatePreview();
+            validateForm();
+        });
+    }
+
+    if (priorityRadios.length) {
+        priorityRadios.forEach(radio => {
+            radio.addEventListener('change', updatePreview);
+        });
+    }
+
+    if (dueDateInput) {
+        dueDateInput.addEventListener('change', updatePreview);
+    }
+
+    // Initialize counters and preview
+    updateCharCounters();
+    updatePreview();
+    validateForm();
+
+    // Focus on title field
+    if (titleInput) titleInput.focus();
+
+    // Add keyboard shortcuts
+    document.addEventListener('keydown', function(e) {
+        // Ctrl/Cmd + S: Save
+        if ((e.ctrlKey || e.metaKey) && e.key === 's') {
+            e.preventDefault();
+            const submitBtn = document.getElementById('submitBtn');
+            if (submitBtn) submitBtn.click();
+        }
+
+        // Ctrl/Cmd + R: Reset
+        if ((e.ctrlKey || e.metaKey) && e.key === 'r') {
+            e.preventDefault();
+            clearForm();
+        }
+
+        // Escape: Clear focus
+        if (e.key === 'Escape') {
+            if (document.activeElement) document.activeElement.blur();
+        }
+    });
+
+    // Add input animations
+    const inputs = document.querySelectorAll('.form-control');
+    inputs.forEach((input, index) => {
+        input.style.opacity = '0';
+        input.style.transform = 'translateY(10px)';
+
+        setTimeout(() => {
+            input.style.transition = 'opacity 0.5s ease, transform 0.5s ease';
+            input.style.opacity = '1';
+            input.style.transform = 'translateY(0)';
+        }, index * 100);
+    });
+
+    // Check for error from server
+    const errorMessage = document.getElementById('errorMessage');
+    if (errorMessage && errorMessage.textContent.trim()) {
+        errorMessage.classList.add('show');
+        setTimeout(() => {
+            errorMessage.classList.remove('show');
+        }, 5000);
+    }
+});
+
+// Auto-save draft every 30 seconds
+setInterval(() => {
+    const titleInput = document.getElementById('title');
+    const descInput = document.getElementById('description');
+    const priorityInput = document.querySelector('input[name="priority"]:checked');
+    const dueDateInput = document.getElementById('dueDate');
+
+    if (titleInput && descInput && priorityInput) {
+        const title = titleInput.value;
+        const description = descInput.value;
+
+        if (title || description) {
+            const draft = {
+                title: title,
+                description: description,
+                priority: priorityInput.value,
+                dueDate: dueDateInput ? dueDateInput.value : '',
+                timestamp: new Date().toISOString()
+            };
+            try {
+                localStorage.setItem('taskDraft', JSON.stringify(draft));
+                console.log('Draft auto-saved');
+            } catch (error) {
+                console.error('Error saving draft:', error);
+            }
+        }
+    }
+}, 30000);
+
+// Load draft on page load if exists
+window.addEventListener('load', function() {
+    try {
+        const draft = localStorage.getItem('taskDraft');
+        if (draft) {
+            const taskDraft = JSON.parse(draft);
+            const hoursSinceSave = (new Date() - new Date(taskDraft.timestamp)) / (1000 * 60 * 60);
+
+            if (hoursSinceSave < 24) { // Draft valid for 24 hours
+                if (confirm('We found an unsaved draft from earlier. Would you like to restore it?')) {
+                    const titleInput = document.getElementById('title');
+                    const descInput = document.getElementById('description');
+                    const dueDateInput = document.getElementById('dueDate');
+
+                    if (titleInput) titleInput.value = taskDraft.title || '';
+                    if (descInput) descInput.value = taskDraft.description || '';
+                    if (dueDateInput && taskDraft.dueDate) dueDateInput.value = taskDraft.dueDate;
+
+                    if (taskDraft.priority) {
+                        const priorityInput = document.querySelector(`input[value="${taskDraft.priority}"]`);
+                        if (priorityInput) priorityInput.checked = true;
+                    }
+
+                    updateCharCounters();
+                    updatePreview();
+                    validateForm();
+                } else {
+                    localStorage.removeItem('taskDraft');
+                }
+            } else {
+                localStorage.removeItem('taskDraft');
+            }
+        }
+    } catch (error) {
+        console.error('Error loading draft:', error);
+        localStorage.removeItem('taskDraft');
+    }
+});
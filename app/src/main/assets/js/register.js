@@ -0,0 +1,192 @@
+// Toggle password visibility
+function togglePassword(fieldId) {
+    const passwordField = document.getElementById(fieldId);
+    const toggleBtns = document.querySelectorAll(`[onclick="togglePassword('${fieldId}')"]`);
+    const toggleBtn = toggleBtns[0];
+
+    if (passwordField.type === 'password') {
+        passwordField.type = 'text';
+        toggleBtn.textContent = '🙈';
+    } else {
+        passwordField.type = 'password';
+        toggleBtn.textContent = '👁️';
+    }
+}
+
+// Password strength checker
+function checkPasswordStrength(password) {
+    let strength = 0;
+    const bar = document.getElementById('password-strength-bar');
+    const lengthReq = document.getElementById('req-length');
+
+    if (password.length >= 6) {
+        strength += 1;
+        lengthReq.classList.remove('invalid');
+        lengthReq.classList.add('valid');
+        lengthReq.querySelector('.requirement-icon').textContent = '✅';
+    } else {
+        lengthReq.classList.remove('valid');
+        lengthReq.classList.add('invalid');
+        lengthReq.querySelector('.requirement-icon').textContent = '❌';
+    }
+
+    if (password.length >= 8) strength += 1;
+    if (/[A-Z]/.test(password)) strength += 1;
+    if (/[0-9]/.test(password)) strength += 1;
+    if (/[^A-Za-z0-9]/.test(password)) strength += 1;
+
+    // Update strength bar
+    bar.className = 'strength-bar';
+    if (strength <= 1) {
+        bar.classList.add('strength-weak');
+    } else if (strength <= 3) {
+        bar.classList.add('strength-medium');
+    } else {
+        bar.classList.add('strength-strong');
+    }
+
+    return strength;
+}
+
+// Form validation
+function validateForm() {
+    const username = document.getElementById('username').value.trim();
+    const email = document.getElementById('email').value.trim();
+    const password = document.getElementById('password').value;
+    const confirmPassword = document.getElementById('confirmPassword').value;
+    const submitBtn = document.getElementById('submitBtn');
+
+    let isValid = true;
+
+    // Username validation
+    const usernameReq = document.getElementById('username-length');
+    if (username.length >= 3 && username.length <= 20) {
+        usernameReq.classList.remove('invalid');
+        usernameReq.classList.add('valid');
+        usernameReq.querySelector('.requirement-icon').textContent = '✅';
+    } else {
+        usernameReq.classList.remove('valid');
+        usernameReq.classList.add('invalid');
+        usernameReq.querySelector('.requirement-icon').textContent = '❌';
+        isValid = false;
+    }
+
+    // Email validation
+    const emailReq = document.getElementById('email-valid');
+    const emailRegex = /^[^\s@]+@[^\s@]+\.[^\s@]+$/;
+    if (emailRegex.test(email)) {
+        emailReq.classList.remove('invalid');
+        emailReq.classList.add('valid');
+        emailReq.querySelector('.requirement-icon').textContent = '✅';
+    } else {
+        emailReq.classList.remove('valid');
+        emailReq.classList.add('invalid');
+        emailReq.querySelector('.requirement-icon').textContent = '❌';
+        isValid = false;
+    }
+
+    // Password match validation
+    const matchReq = document.getElementById('req-match');
+    if (password === confirmPassword && password.length >= 6) {
+        matchReq.classList.remove('invalid');
+        matchReq.classList.add('valid');
+        matchReq.querySelector('.requirement-icon').textContent = '✅';
+    } else {
+        matchReq.classList.remove('valid');
+        matchReq.classList.add('invalid');
+        matchReq.querySelector('.requirement-icon').textContent = '❌';
+        isValid = false;
+    }
+
+    // Check password strength
+    const strength = checkPasswordStrength(password);
+
+    // Update submit button
+    submitBtn.disabled = !isValid;
+
+    // Update progress steps
+    updateProgressSteps(isValid);
+
+    return isValid;
+}
+
+// Update progress steps
+function updateProgressSteps(isValid) {
+    const steps = document.querySelectorAll('.step');
+
+    if (isValid) {
+        steps[1].classList.add('active');
+        steps[2].classList.add('active');
+        steps[3].classList.add('active');
+    } else {
+        steps[1].classList.remove('active');
+        steps[2].classList.remove('active');
+        steps[3].classList.remove('active');
+    }
+}
+
+// Terms and privacy modals
+function showTerms() {
+    alert("Terms of Service:\n\n1. You are responsible for your account security\n2. Don't share your credentials\n3. Respect other users\n4. Keep content appropriate\n\nThis is a demo application.");
+}
+
+function showPrivacy() {
+    alert("Privacy Policy:\n\nWe store only the information you provide (username, email, password hash).\nYour data is stored securely in SQLite database.\nWe don't share your data with third parties.\n\nThis is a demo application.");
+}
+
+// Form submission
+document.getElementById('registerForm').addEventListener('submit', function(e) {
+    if (!validateForm()) {
+        e.preventDefault();
+        alert("Please fix the errors in the form before submitting.");
+        return;
+    }
+
+    const submitBtn = document.getElementById('submitBtn');
+    const btnText = document.getElementById('btn-text');
+    const btnLoading = document.getElementById('btn-loading');
+
+    // Show loading state
+    btnText.style.display = 'none';
+    btnLoading.style.display = 'inline';
+    submitBtn.style.opacity = '0.8';
+    submitBtn.style.cursor = 'wait';
+    submitBtn.disabled = true;
+});
+
+// Real-time validation
+document.getElementById('username').addEventListener('input', validateForm);
+document.getElementById('email').addEventListener('input', validateForm);
+document.getElementById('password').addEventListener('input', validateForm);
+document.getElementById('confirmPassword').addEventListener('input', validateForm);
+
+// Initialize form validation on page load
+document.addEventListener('DOMContentLoaded', function() {
+    validateForm();
+
+    // Animate form elements
+    const formGroups = document.querySelectorAll('.form-group');
+    formGroups.forEach((group, index) => {
+        group.style.opacity = '0';
+        group.style.transform = 'translateY(20px)';
+
+        setTimeout(() => {
+            group.style.transition = 'opacity 0.5s ease, transform 0.5s ease';
+            group.style.opacity = '1';
+            group.style.transform = 'translateY(0)';
+        }, index * 150);
+    });
+});
+
+// Auto-fill demo data on F1 press
+document.addEventListener('keydown', function(e) {
+    if (e.key === 'F1') {
+        e.preventDefault();
+        document.getElementById('username').value = 'demo_user';
+        document.getElementById('email').value = 'demo@example.com';
+        document.getElementById('password').value = 'password123';
+        document.getElementById('confirmPassword').value = 'password123';
+        validateForm();
+        alert('Demo data filled! You can now register.');
+    }
+});
@@ -0,0 +1,695 @@
+// Current view state
+let currentView = 'grid';
+let currentFilter = document.body.dataset.activeFilter || 'all';
+
+// Status and priority filters run on the server so they cover every page, not just this one
+const serverFilters = {
+    all: '/tasks',
+    pending: '/tasks?status=pending',
+    in_progress: '/tasks?status=in_progress',
+    completed: '/tasks?status=completed',
+    high: '/tasks?priority=high'
+};
+
+// Initialize the page with animations
+document.addEventListener('DOMContentLoaded', function() {
+    localizeTimes();
+
+    // Animate stats cards
+    const statItems = document.querySelectorAll('.stat-item');
+    statItems.forEach((item, index) => {
+        item.style.opacity = '0';
+        item.style.transform = 'translateY(20px)';
+
+        setTimeout(() => {
+            item.style.transition = 'opacity 0.6s ease, transform 0.6s ease';
+            item.style.opacity = '1';
+            item.style.transform = 'translateY(0)';
+        }, index * 100);
+    });
+
+    // Animate task cards
+    const taskCards = document.querySelectorAll('.task-card');
+    taskCards.forEach((card, index) => {
+        card.style.opacity = '0';
+        card.style.transform = 'translateY(30px) scale(0.95)';
+
+        setTimeout(() => {
+            card.style.transition = 'opacity 0.5s ease, transform 0.5s cubic-bezier(0.4, 0, 0.2, 1)';
+            card.style.opacity = '1';
+            card.style.transform = 'translateY(0) scale(1)';
+        }, 300 + (index * 100));
+    });
+
+    // Add keyboard shortcuts
+    document.addEventListener('keydown', function(e) {
+        // Leave typing in the search box alone
+        if (e.target.matches('input, textarea')) {
+            return;
+        }
+
+        // Ctrl/Cmd + N: New task
+        if ((e.ctrlKey || e.metaKey) && e.key === 'n') {
+            e.preventDefault();
+            window.location.href = '/tasks/new';
+        }
+
+        // G: Grid view
+        if (e.key === 'g' && !e.ctrlKey) {
+            e.preventDefault();
+            switchView('grid');
+        }
+
+        // L: List view
+        if (e.key === 'l' && !e.ctrlKey) {
+            e.preventDefault();
+            switchView('list');
+        }
+
+        // Escape: Clear filter
+        if (e.key === 'Escape') {
+            filterTasks('all');
+        }
+
+        // 1-6: Quick filters
+        if (e.key >= '1' && e.key <= '6') {
+            e.preventDefault();
+            const filters = ['all', 'pending', 'in_progress', 'completed', 'high', 'today'];
+            const index = parseInt(e.key) - 1;
+            if (filters[index]) {
+                filterTasks(filters[index]);
+            }
+        }
+    });
+
+    setupSearch();
+
+    // Show view based on screen size
+    if (window.innerWidth < 768) {
+        switchView('grid');
+    }
+
+    // Add hover effects to interactive elements
+    document.querySelectorAll('.btn, .filter-btn, .icon-btn').forEach(btn => {
+        btn.addEventListener('mouseenter', () => {
+            btn.style.transform = btn.style.transform + ' scale(1.05)';
+        });
+
+        btn.addEventListener('mouseleave', () => {
+            btn.style.transform = btn.style.transform.replace(' scale(1.05)', '');
+        });
+    });
+});
+
+// Switch between grid and list view
+function switchView(view) {
+    const gridView = document.getElementById('tasksGrid');
+    const listView = document.getElementById('tasksList');
+    const gridBtn = document.querySelector('[onclick="switchView(\'grid\')"]');
+    const listBtn = document.querySelector('[onclick="switchView(\'list\')"]');
+
+    if (view === 'grid') {
+        gridView.style.display = 'grid';
+        listView.classList.remove('active');
+        gridBtn.classList.add('active');
+        listBtn.classList.remove('active');
+        currentView = 'grid';
+
+        // Animate grid view appearance
+        setTimeout(() => {
+            const taskCards = document.querySelectorAll('.task-card');
+            taskCards.forEach((card, index) => {
+                card.style.opacity = '0';
+                card.style.transform = 'translateY(20px) scale(0.95)';
+
+                setTimeout(() => {
+                    card.style.transition = 'opacity 0.4s ease, transform 0.4s ease';
+                    card.style.opacity = '1';
+                    card.style.transform = 'translateY(0) scale(1)';
+                }, index * 50);
+            });
+        }, 100);
+    } else {
+        gridView.style.display = 'none';
+        listView.classList.add('active');
+        gridBtn.classList.remove('active');
+        listBtn.classList.add('active');
+        currentView = 'list';
+    }
+
+    // Save preference to localStorage
+    localStorage.setItem('taskViewPreference', view);
+}
+
+// Filter tasks with animation
+function filterTasks(filterType) {
+    if (filterType in serverFilters) {
+        if (filterType !== currentFilter) {
+            window.location.href = serverFilters[filterType];
+        }
+        return;
+    }
+
+    // Update filter buttons
+    document.querySelectorAll('.filter-btn').forEach(btn => {
+        btn.classList.remove('active');
+    });
+    event.target.classList.add('active');
+
+    currentFilter = filterType;
+
+    // Get all task cards
+    const taskCards = document.querySelectorAll('.task-card');
+    const tableRows = document.querySelectorAll('.tasks-table tbody tr');
+
+    let visibleCount = 0;
+
+    // Apply filter to grid view
+    taskCards.forEach((card, index) => {
+        const priorityClass = card.classList.contains('high') ? 'high' : 
+                            card.classList.contains('medium') ? 'medium' : 'low';
+        const statusElement = card.querySelector('.task-status');
+        const status = statusElement ? statusElement.textContent.toLowerCase() : '';
+
+        let show = true;
+
+        switch(filterType) {
+            case 'pending':
+                show = status.includes('pending');
+                break;
+            case 'in_progress':
+                show = status.includes('progress');
+                break;
+            case 'completed':
+                show = status.includes('completed');
+                break;
+            case 'high':
+                show = priorityClass === 'high';
+                break;
+            case 'today':
+                show = true; // In real app, check date
+                break;
+            default:
+                show = true;
+        }
+
+        if (show) {
+            setTimeout(() => {
+                card.style.display = 'block';
+                card.style.opacity = '0';
+                card.style.transform = 'translateY(20px)';
+
+                setTimeout(() => {
+                    card.style.transition = 'opacity 0.4s ease, transform 0.4s ease';
+                    card.style.opacity = '1';
+                    card.style.transform = 'translateY(0)';
+                }, 50);
+            }, index * 50);
+            visibleCount++;
+        } else {
+            card.style.opacity = '0';
+            card.style.transform = 'translateY(20px) scale(0.95)';
+            setTimeout(() => {
+                card.style.display = 'none';
+            }, 300);
+        }
+    });
+
+    // Apply filter to list view
+    tableRows.forEach(row => {
+        const priorityElement = row.querySelector('.task-priority');
+        const statusElement = row.querySelector('.task-status');
+
+        if (!priorityElement || !statusElement) return;
+
+        const priority = priorityElement.textContent.toLowerCase();
+        const status = statusElement.textContent.toLowerCase();
+
+        let show = true;
+
+        switch(filterType) {
+            case 'pending':
+                show = status.includes('pending');
+                break;
+            case 'in_progress':
+                show = status.includes('progress');
+                break;
+            case 'completed':
+                show = status.includes('completed');
+                break;
+            case 'high':
+                show = priority.includes('high');
+                break;
+            case 'today':
+                show = true;
+                break;
+            default:
+                show = true;
+        }
+
+        row.style.display = show ? '' : 'none';
+    });
+
+    // Show notification
+    showNotification(`${visibleCount} tasks found for "${filterType}" filter`);
+}
+
+// Task actions, backed by /api/v1/tasks. Every write sends the version the page was rendered with,
+// so a change made meanwhile in another tab is reported instead of silently overwritten.
+const selectedTasks = new Set();
+
+function taskElements(taskId) {
+    return document.querySelectorAll(`[data-task-id="${taskId}"]`);
+}
+
+// null when the page did not render one; the write is then unconditional
+function taskVersion(taskId) {
+    const element = document.querySelector(`[data-task-id="${taskId}"]`);
+    const version = element ? parseInt(element.dataset.version) : NaN;
+    return Number.isNaN(version) ? null : version;
+}
+
+async function apiRequest(method, url, body) {
+    try {
+        const response = await fetch(url, {
+            method,
+            headers: body ? { 'Content-Type': 'application/json' } : {},
+            body: body ? JSON.stringify(body) : undefined
+        });
+        if (response.status === 409) {
+            showNotification('This task was changed somewhere else. Reload to see the latest version.', 'error');
+            return null;
+        }
+        if (!response.ok) {
+            showNotification(`Could not save changes (${response.status})`, 'error');
+            return null;
+        }
+        return response.status === 204 ? {} : await response.json();
+    } catch (e) {
+        showNotification('Network error, changes were not saved', 'error');
+        return null;
+    }
+}
+
+// Due dates and reminders are rendered in UTC; show them in the browser's time zone
+function localizeTimes() {
+    document.querySelectorAll('time[data-epoch]').forEach(element => {
+        const date = new Date(parseInt(element.dataset.epoch) * 1000);
+        element.dateTime = date.toISOString();
+        element.textContent = date.toLocaleString([], { dateStyle: 'medium', timeStyle: 'short' });
+    });
+}
+
+// Reflect a task returned by the API in both the grid card and the list row
+function applyTask(task) {
+    taskElements(task.id).forEach(element => {
+        element.dataset.version = task.version;
+        const title = element.querySelector('.task-title, strong');
+        if (title) title.textContent = task.title;
+        element.querySelectorAll('.task-status').forEach(badge => {
+            badge.textContent = task.status.toUpperCase();
+            badge.className = `task-status status-${task.status}`;
+        });
+    });
+}
+
+function markCompleted(taskId) {
+    taskElements(taskId).forEach(element => {
+        element.querySelectorAll('.task-status').forEach(badge => {
+            badge.textContent = 'COMPLETED';
+            badge.className = 'task-status status-completed';
+        });
+    });
+}
+
+function removeTask(taskId) {
+    selectedTasks.delete(String(taskId));
+    taskElements(taskId).forEach(element => {
+        element.style.opacity = '0';
+        element.style.transform = 'scale(0.8) rotate(-5deg)';
+        setTimeout(() => element.remove(), 300);
+    });
+}
+
+async function editTask(taskId) {
+    const element = document.querySelector(`[data-task-id="${taskId}"]`);
+    const titleElement = element ? element.querySelector('.task-title, strong') : null;
+    const current = titleElement ? titleElement.textContent.trim() : '';
+    const title = prompt(`Edit title of task #${taskId}:`, current);
+    if (title === null || title.trim() === '' || title.trim() === current) {
+        return;
+    }
+
+    const button = event.target.closest('.edit-btn');
+    const originalHTML = button.innerHTML;
+    button.innerHTML = '⏳';
+    button.classList.add('loading');
+
+    const task = await apiRequest('PATCH', `/api/v1/tasks/${taskId}`,
+        { title: title.trim(), version: taskVersion(taskId) });
+    button.innerHTML = originalHTML;
+    button.classList.remove('loading');
+    if (task) {
+        applyTask(task);
+        showNotification(`Task #${taskId} updated`, 'success');
+    }
+}
+
+async function completeTask(taskId) {
+    if (!confirm('Mark this task as completed?')) {
+        return;
+    }
+    const taskCard = event.target.closest('.task-card');
+    const completeBtn = event.target.closest('.complete-btn');
+
+    const task = await apiRequest('PUT', `/api/v1/tasks/${taskId}/status`,
+        { status: 'completed', version: taskVersion(taskId) });
+    if (!task) {
+        return;
+    }
+    applyTask(task);
+
+    if (taskCard) {
+        // Add completion animation
+        taskCard.classList.add('completed-animation');
+        completeBtn.innerHTML = '🎉';
+        completeBtn.style.backgroundColor = '#28a745';
+        completeBtn.style.color = 'white';
+
+        setTimeout(() => {
+            taskCard.classList.remove('completed-animation');
+            completeBtn.innerHTML = '✅';
+        }, 800);
+    }
+    updateTaskCounts();
+    showNotification(`Task #${taskId} marked as completed!`, 'success');
+}
+
+async function deleteTask(taskId) {
+    if (!confirm('Are you sure you want to delete this task?\nThis action cannot be undone.')) {
+        return;
+    }
+    const version = taskVersion(taskId);
+    const query = version !== null ? `?version=${version}` : '';
+    const result = await apiRequest('DELETE', `/api/v1/tasks/${taskId}${query}`);
+    if (!result) {
+        return;
+    }
+    removeTask(taskId);
+    updateBulkBar();
+    setTimeout(() => {
+        updateTaskCounts();
+        showNotification(`Task #${taskId} has been deleted.`, 'error');
+    }, 300);
+}
+
+// Multi-select: the grid card and list row of a task share one selection
+function toggleSelection(checkbox) {
+    const taskId = checkbox.closest('[data-task-id]').dataset.taskId;
+    if (checkbox.checked) {
+        selectedTasks.add(taskId);
+    } else {
+        selectedTasks.delete(taskId);
+    }
+    taskElements(taskId).forEach(element => {
+        element.querySelector('.task-select').checked = checkbox.checked;
+    });
+    updateBulkBar();
+}
+
+function clearSelection() {
+    selectedTasks.clear();
+    document.querySelectorAll('.task-select').forEach(checkbox => checkbox.checked = false);
+    updateBulkBar();
+}
+
+function updateBulkBar() {
+    document.getElementById('selectedCount').textContent = selectedTasks.size;
+    document.getElementById('bulkBar').classList.toggle('active', selectedTasks.size > 0);
+}
+
+// One request and one transaction for the whole selection
+async function bulkChange(action, changes) {
+    if (selectedTasks.size === 0) {
+        return null;
+    }
+    const tasks = Array.from(selectedTasks).map(id => ({ id: parseInt(id), version: taskVersion(id) }));
+    const result = await apiRequest('POST', '/api/v1/tasks/bulk', { action, tasks, changes });
+    if (result && result.conflicts.length > 0) {
+        showNotification(`${result.conflicts.length} task(s) were changed somewhere else and were skipped. Reload to see them.`, 'error');
+    }
+    return result;
+}
+
+async function bulkComplete() {
+    const result = await bulkChange('update', { status: 'completed' });
+    if (!result) {
+        return;
+    }
+    result.applied.forEach(taskId => {
+        markCompleted(taskId);
+        // The update was conditional on the version we sent, so it is now exactly one higher
+        taskElements(taskId).forEach(element => {
+            if (element.dataset.version) {
+                element.dataset.version = parseInt(element.dataset.version) + 1;
+            }
+        });
+    });
+    clearSelection();
+    updateTaskCounts();
+    if (result.conflicts.length === 0) {
+        showNotification(`${result.applied.length} task(s) marked as completed`, 'success');
+    }
+}
+
+async function bulkDelete() {
+    if (!confirm(`Delete ${selectedTasks.size} selected task(s)?\nThis action cannot be undone.`)) {
+        return;
+    }
+    const result = await bulkChange('delete');
+    if (!result) {
+        return;
+    }
+    result.applied.forEach(removeTask);
+    result.notFound.forEach(removeTask);
+    clearSelection();
+    setTimeout(updateTaskCounts, 300);
+    if (result.conflicts.length === 0) {
+        showNotification(`${result.applied.length} task(s) deleted`, 'error');
+    }
+}
+
+// Type-ahead search against /api/v1/tasks/search. Requests are debounced, and a response that
+// arrives after a newer one was sent is dropped so results always match the box.
+function setupSearch() {
+    const input = document.getElementById('taskSearch');
+    const results = document.getElementById('searchResults');
+    if (!input) return;
+
+    let timer = null;
+    let latest = 0;
+
+    input.addEventListener('input', () => {
+        clearTimeout(timer);
+        const query = input.value.trim();
+        if (query === '') {
+            results.classList.remove('active');
+            return;
+        }
+        timer = setTimeout(async () => {
+            const requestId = ++latest;
+            try {
+                const response = await fetch(`/api/v1/tasks/search?q=${encodeURIComponent(query)}&limit=8`);
+                if (!response.ok || requestId !== latest) return;
+                renderSearchResults(results, await response.json());
+            } catch (e) {
+                results.classList.remove('active');
+            }
+        }, 150);
+    });
+
+    input.addEventListener('keydown', e => {
+        if (e.key === 'Escape') {
+            input.value = '';
+            results.classList.remove('active');
+        }
+    });
+
+    document.addEventListener('click', e => {
+        if (!e.target.closest('.search-box')) {
+            results.classList.remove('active');
+        }
+    });
+}
+
+// titleHtml and snippetHtml come HTML-escaped from the server, with <mark> around matches
+function renderSearchResults(container, data) {
+    if (data.results.length === 0) {
+        container.innerHTML = '<div class="search-empty">No matching tasks</div>';
+    } else {
+        container.innerHTML = data.results.map(hit => `
+            <a class="search-result" href="/tasks?q=${encodeURIComponent(data.query)}">
+                <div class="search-title">${hit.titleHtml}</div>
+                <div class="search-snippet">${hit.snippetHtml}</div>
+                <span class="task-status status-${hit.task.status}">${hit.task.status.toUpperCase()}</span>
+            </a>
+        `).join('');
+    }
+    container.classList.add('active');
+}
+
+// Update task counts after changes
+function updateTaskCounts() {
+    const totalTasks = document.querySelectorAll('.task-card[style*="display: block"], .task-card:not([style])').length;
+    const pendingTasks = Array.from(document.querySelectorAll('.task-card[style*="display: block"], .task-card:not([style])'))
+        .filter(card => {
+            const statusBadge = card.querySelector('.task-status');
+            return statusBadge && statusBadge.textContent.includes('PENDING');
+        }).length;
+    const completedTasks = Array.from(document.querySelectorAll('.task-card[style*="display: block"], .task-card:not([style])'))
+        .filter(card => {
+            const statusBadge = card.querySelector('.task-status');
+            return statusBadge && statusBadge.textContent.includes('COMPLETED');
+        }).length;
+
+    // Animate count updates
+    animateCount('totalCount', totalTasks);
+    animateCount('pendingCount', pendingTasks);
+    animateCount('completedCount', completedTasks);
+}
+
+// Animate number counting
+function animateCount(elementClass, newValue) {
+    const element = document.querySelector(`.stat-item .${elementClass}`);
+    if (!element) return;
+
+    const currentValue = parseInt(element.textContent);
+    const diff = newValue - currentValue;
+
+    if (diff === 0) return;
+
+    let start = currentValue;
+    const duration = 500; // ms
+    const stepTime = Math.abs(Math.floor(duration / diff));
+
+    const timer = setInterval(() => {
+        if (diff > 0) {
+            start++;
+            if (start >= newValue) {
+                start = newValue;
+                clearInterval(timer);
+            }
+        } else {
+            start--;
+            if (start <= newValue) {
+                start = newValue;
+                clearInterval(timer);
+            }
+        }
+        element.textContent = start;
+    }, stepTime);
+}
+
+// Export tasks with options
+function exportTasks() {
+    const format = prompt('Export as:\n1. 📊 CSV\n2. 📄 JSON\n3. 📑 PDF\n\nEnter number (1-3):', '1');
+
+    if (format) {
+        let formatName, icon;
+        switch(format) {
+            case '1': formatName = 'CSV'; icon = '📊'; break;
+            case '2': formatName = 'JSON'; icon = '📄'; break;
+            case '3': formatName = 'PDF'; icon = '📑'; break;
+            default: formatName = 'CSV'; icon = '📊';
+        }
+
+        showNotification(`Exporting ${document.querySelectorAll('.task-card').length} tasks as ${formatName}...`, 'info');
+
+        // Simulate download
+        setTimeout(() => {
+            showNotification(`${formatName} file downloaded successfully!`, 'success');
+        }, 1500);
+    }
+}
+
+// Show notification
+function showNotification(message, type = 'info') {
+    // Remove existing notification
+    const existingNotification = document.querySelector('.notification');
+    if (existingNotification) {
+        existingNotification.remove();
+    }
+
+    // Create notification
+    const notification = document.createElement('div');
+    notification.className = `notification notification-${type}`;
+    notification.innerHTML = `
+        <span>${message}</span>
+        <button onclick="this.parentElement.remove()">×</button>
+    `;
+
+    // Add styles
+    notification.style.cssText = `
+        position: fixed;
+        top: 20px;
+        right: 20px;
+        background: ${type === 'success' ? '#28a745' : type === 'error' ? '#dc3545' : '#667eea'};
+        color: white;
+        padding: 15px 20px;
+        border-radius: 12px;
+        box-shadow: 0 5px 20px rgba(0,0,0,0.2);
+        display: flex;
+        align-items: center;
+        gap: 15px;
+        z-index: 10000;
+        animation: slideIn 0.3s ease;
+        font-weight: 500;
+    `;
+
+    notification.querySelector('button').style.cssText = `
+        background: transparent;
+        border: none;
+        color: white;
+        font-size: 20px;
+        cursor: pointer;
+        padding: 0;
+        width: 24px;
+        height: 24px;
+        display: flex;
+        align-items: center;
+        justify-content: center;
+        border-radius: 50%;
+        transition: background 0.2s;
+    `;
+
+    notification.querySelector('button').addEventListener('mouseenter', function() {
+        this.style.background = 'rgba(255,255,255,0.2)';
+    });
+
+    notification.querySelector('button').addEventListener('mouseleave', function() {
+        this.style.background = 'transparent';
+    });
+
+    // Add keyframes
+    if (!document.querySelector('#notification-styles')) {
+        const style = document.createElement('style');
+        style.id = 'notification-styles';
+        style.textContent = `
+            @keyframes slideIn {
+                from { transform: translateX(100%); opacity: 0; }
+                to { transform: translateX(0); opacity: 1; }
+            }
+        `;
+        document.head.appendChild(style);
+    }
+
+    document.body.appendChild(notification);
+
+    // Auto-remove after 3 seconds
+    setTimeout(() => {
+        if (notification.parentElement) {
+            notification.style.animation = 'slideIn 0.3s ease reverse';
+            setTimeout(() => notification.remove(), 300);
+        }
+    }, 3000);
+}
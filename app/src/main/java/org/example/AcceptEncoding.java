@@ -0,0 +1,53 @@
+package com.example;
+
+import java.util.Locale;
+
+// Reads an Accept-Encoding header (RFC 9110, 12.5.3): comma-separated codings, each with an
+// optional ;q= weight from 0 to 1. A coding listed with q=0 is refused, a coding not listed
+// takes the weight of "*" if there is one, and otherwise is not accepted.
+final class AcceptEncoding {
+
+    private AcceptEncoding() {
+    }
+
+    // Weight the client gives a coding, 0 when it must not be used
+    static double quality(String header, String coding) {
+        if (header == null) {
+            return 0;
+        }
+        double wildcard = 0;
+        for (String entry : header.split(",")) {
+            String[] parts = entry.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                    q = parseQuality(param.substring(2).trim());
+                }
+            }
+            if (q < 0) {
+                continue; // malformed weight: ignore the entry
+            }
+            if (name.equals(coding)) {
+                return q;
+            }
+            if (name.equals("*")) {
+                wildcard = q;
+            }
+        }
+        return wildcard;
+    }
+
+    static boolean accepts(String header, String coding) {
+        return quality(header, coding) > 0;
+    }
+
+    // 0 to 1 with up to three decimals; -1 for anything else
+    private static double parseQuality(String value) {
+        if (!value.matches("(0(\\.\\d{0,3})?|1(\\.0{0,3})?)")) {
+            return -1;
+        }
+        return Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example;
+
+import io.javalin.http.Context;
+import io.javalin.http.ForbiddenResponse;
+import io.javalin.http.UnauthorizedResponse;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+// Guards /metrics and /admin/* of both apps (TodoAppDatabase and Main), which expose user
+// counts, queue depths and the like. With -Dtodo.admin.token set, a request must carry
+// "Authorization: Bearer <token>" (401 without, as Prometheus' bearer_token setting sends it).
+// Without one, only loopback clients get in (403 for the rest); behind a reverse proxy on the
+// same host every request looks local, so set a token there.
+public class AdminAccess {
+
+    // Admin settings, read from -Dtodo.admin.* system properties
+    public static class Config {
+        String token;
+
+        public static Config fromSystemProperties() {
+            Config config = new Config();
+            config.token = System.getProperty("todo.admin.token");
+            return config;
+        }
+    }
+
+    private final byte[] token;
+
+    public AdminAccess(Config config) {
+        this.token = config.token != null && !config.token.isBlank()
+                ? config.token.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    // Before-handler: throws 401/403 unless the request may see admin data
+    public void check(Context ctx) {
+        if (token == null) {
+            if (!isLoopback(ctx.req().getRemoteAddr())) {
+                throw new ForbiddenResponse("Admin endpoints are only served locally unless todo.admin.token is set");
+            }
+            return;
+        }
+        String header = ctx.header("Authorization");
+        byte[] presented = header != null && header.regionMatches(true, 0, "Bearer ", 0, 7)
+                ? header.substring(7).trim().getBytes(StandardCharsets.UTF_8) : null;
+        if (presented == null || !MessageDigest.isEqual(token, presented)) {
+            ctx.header("WWW-Authenticate", "Bearer");
+            throw new UnauthorizedResponse("Admin token required");
+        }
+    }
+
+    static boolean isLoopback(String address) {
+        if (address == null) {
+            return false;
+        }
+        try {
+            // A literal address, so this never does a DNS lookup
+            return InetAddress.getByName(address).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
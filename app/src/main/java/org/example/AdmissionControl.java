@@ -0,0 +1,127 @@
+package com.example;
+
+import io.javalin.http.Context;
+import io.javalin.http.HandlerType;
+import io.javalin.http.HttpResponseException;
+import io.javalin.http.HttpStatus;
+import io.javalin.http.ServiceUnavailableResponse;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Turns task writes away before they pile up behind a shard's writer. Each logged-in POST, PUT,
+// PATCH or DELETE is charged to the shard holding the user's tasks and refused
+//   - with 503 when that shard already has maxQueued writes waiting: it is behind, and taking
+//     more would only add latency until its queue overflows;
+//   - with 429 when the shard's token bucket is empty: writesPerSecond sustained, bursts of up
+//     to burst (writesPerSecond = 0 turns rate limiting off).
+// Both carry Retry-After. The buckets are striped by shard, so a hot shard is throttled on its
+// own, and each is one CAS on the time its next token frees up (GCRA), with no lock to share.
+public class AdmissionControl {
+
+    // Admission settings, read from -Dtodo.admission.* system properties; limits are per shard
+    public static class Config {
+        double writesPerSecond = 0;
+        int burst = 100;
+        int maxQueued = 2_000;
+
+        public static Config fromSystemProperties() {
+            Config config = new Config();
+            config.writesPerSecond = Double.parseDouble(System.getProperty("todo.admission.writesPerSecond", "0"));
+            config.burst = Integer.getInteger("todo.admission.burst", config.burst);
+            config.maxQueued = Integer.getInteger("todo.admission.maxQueued", config.maxQueued);
+            return config;
+        }
+    }
+
+    public record Stats(long admitted, long rateLimited, long shed) {}
+
+    private static final Set<HandlerType> WRITES = Set.of(HandlerType.POST, HandlerType.PUT, HandlerType.PATCH, HandlerType.DELETE);
+
+    // One stripe per task shard
+    private static final class Bucket {
+        // When the bucket will next be full again, in System.nanoTime() terms
+        final AtomicLong fullAt = new AtomicLong(System.nanoTime());
+        final LongAdder admitted = new LongAdder();
+        final LongAdder rateLimited = new LongAdder();
+        final LongAdder shed = new LongAdder();
+    }
+
+    private final Config config;
+    private final Shards shards;
+    private final Bucket[] buckets;
+    // Time one token takes to come back, and how far fullAt may run ahead of now
+    private final long intervalNanos;
+    private final long burstNanos;
+
+    public AdmissionControl(Config config, Shards shards) {
+        this.config = config;
+        this.shards = shards;
+        List<Shard> taskShards = shards.taskShards();
+        this.buckets = new Bucket[taskShards.size()];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.intervalNanos = config.writesPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / config.writesPerSecond) : 0;
+        this.burstNanos = intervalNanos * Math.max(1, config.burst);
+    }
+
+    // Before-handler: throws 429/503 for a write that should not be taken on now
+    public void check(Context ctx) {
+        if (!WRITES.contains(ctx.method())) {
+            return;
+        }
+        int userId = TodoAppDatabase.sessionUserId(ctx);
+        if (userId < 0) {
+            return;
+        }
+        Shard shard = shards.forUser(userId);
+        Bucket bucket = buckets[shard.index()];
+
+        if (shard.queuedWrites() >= config.maxQueued) {
+            bucket.shed.increment();
+            ctx.header("Retry-After", "1");
+            throw new ServiceUnavailableResponse("Too busy to take more changes, please retry shortly");
+        }
+        long waitNanos = take(bucket);
+        if (waitNanos > 0) {
+            bucket.rateLimited.increment();
+            ctx.header("Retry-After", Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+            throw new HttpResponseException(HttpStatus.TOO_MANY_REQUESTS.getCode(), "Too many changes, please slow down");
+        }
+        bucket.admitted.increment();
+    }
+
+    // Take a token: 0 if there was one, else how long until there will be
+    private long take(Bucket bucket) {
+        if (intervalNanos == 0) {
+            return 0;
+        }
+        while (true) {
+            long now = System.nanoTime();
+            long fullAt = bucket.fullAt.get();
+            long next = Math.max(fullAt, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                return next - now - burstNanos;
+            }
+            if (bucket.fullAt.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public Stats stats() {
+        long admitted = 0;
+        long rateLimited = 0;
+        long shed = 0;
+        for (Bucket bucket : buckets) {
+            admitted += bucket.admitted.sum();
+            rateLimited += bucket.rateLimited.sum();
+            shed += bucket.shed.sum();
+        }
+        return new Stats(admitted, rateLimited, shed);
+    }
+}
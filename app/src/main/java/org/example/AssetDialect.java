@@ -0,0 +1,38 @@
+package com.example;
+
+import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.dialect.AbstractDialect;
+import org.thymeleaf.dialect.IExpressionObjectDialect;
+import org.thymeleaf.expression.IExpressionObjectFactory;
+
+import java.util.Set;
+
+// Exposes StaticAssets to templates as #assets, e.g. th:href="${#assets.url('css/tasks.css')}"
+public class AssetDialect extends AbstractDialect implements IExpressionObjectDialect {
+    private final StaticAssets assets;
+
+    public AssetDialect(StaticAssets assets) {
+        super("assets");
+        this.assets = assets;
+    }
+
+    @Override
+    public IExpressionObjectFactory getExpressionObjectFactory() {
+        return new IExpressionObjectFactory() {
+            @Override
+            public Set<String> getAllExpressionObjectNames() {
+                return Set.of("assets");
+            }
+
+            @Override
+            public Object buildObject(IExpressionContext context, String expressionObjectName) {
+                return "assets".equals(expressionObjectName) ? assets : null;
+            }
+
+            @Override
+            public boolean isCacheable(String expressionObjectName) {
+                return true;
+            }
+        };
+    }
+}
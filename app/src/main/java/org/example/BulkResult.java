@@ -0,0 +1,13 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Per-task outcome of a multi-select update or delete: applied, rejected because the task's
+// version moved on since the client loaded it, or not found (missing or owned by someone else).
+public record BulkResult(List<Integer> applied, List<Integer> conflicts, List<Integer> notFound) {
+
+    BulkResult() {
+        this(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+}
@@ -0,0 +1,250 @@
+package com.example;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Small fixed-size JDBC connection pool for SQLite.
+// Connections are handed out LIFO so the warmest statement caches get reused,
+// idle connections are reaped after a timeout, and stale ones are validated on borrow.
+// It is also the database's concurrency limit: at most maxSize callers use SQLite at once and at most
+// maxWaiters queue behind them, so a burst of (virtual) request threads is turned away instead of piling up.
+public class ConnectionPool implements AutoCloseable {
+
+    // Pool settings, read from -Dtodo.db.pool.* system properties
+    public static class Config {
+        int maxSize = 8;
+        int minIdle = 1;
+        long maxWaitMillis = 5_000;
+        int maxWaiters = 256;
+        long idleTimeoutMillis = 60_000;
+        long validationIntervalMillis = 30_000;
+        int validationTimeoutSeconds = 2;
+        int statementCacheSize = 32;
+
+        // Run on every new physical connection, e.g. per-connection PRAGMAs
+        List<String> initStatements = new ArrayList<>();
+
+        public static Config fromSystemProperties() {
+            Config config = new Config();
+            config.maxSize = Integer.getInteger("todo.db.pool.maxSize", config.maxSize);
+            config.minIdle = Integer.getInteger("todo.db.pool.minIdle", config.minIdle);
+            config.maxWaitMillis = Long.getLong("todo.db.pool.maxWaitMillis", config.maxWaitMillis);
+            config.maxWaiters = Integer.getInteger("todo.db.pool.maxWaiters", config.maxWaiters);
+            config.idleTimeoutMillis = Long.getLong("todo.db.pool.idleTimeoutMillis", config.idleTimeoutMillis);
+            config.validationIntervalMillis = Long.getLong("todo.db.pool.validationIntervalMillis", config.validationIntervalMillis);
+            config.validationTimeoutSeconds = Integer.getInteger("todo.db.pool.validationTimeoutSeconds", config.validationTimeoutSeconds);
+            config.statementCacheSize = Integer.getInteger("todo.db.pool.statementCacheSize", config.statementCacheSize);
+            return config;
+        }
+
+        public Config withInitStatements(List<String> statements) {
+            this.initStatements = new ArrayList<>(statements);
+            return this;
+        }
+    }
+
+    // Point-in-time pool metrics; wait times are in milliseconds
+    public record Stats(int active, int idle, int total, int maxSize, int waiting,
+                        long borrows, long timeouts, long rejected, double avgWaitMillis, double maxWaitMillis) {}
+
+    private final String url;
+    private final Config config;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final ScheduledExecutorService reaper;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    // Borrow-to-release time, i.e. time spent running queries (and any work done while holding one)
+    private final LatencyHistogram holdTimes = new LatencyHistogram();
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, Config config) {
+        this.url = url;
+        this.config = config;
+        this.permits = new Semaphore(config.maxSize, true);
+        this.reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-reaper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1_000, config.idleTimeoutMillis / 2);
+        reaper.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // Borrow a connection, waiting up to maxWaitMillis for one to free up
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        try {
+            // Zero-timeout tryAcquire still respects the fair queue, unlike tryAcquire()
+            if (!permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+                awaitPermit();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a database connection");
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection conn = takeIdle();
+            if (conn == null) {
+                conn = open();
+            }
+            active.incrementAndGet();
+            borrows.increment();
+            conn.markBorrowed();
+            return conn;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Every connection is busy: queue for one, unless the queue is already full
+    private void awaitPermit() throws SQLException, InterruptedException {
+        if (waiters.incrementAndGet() > config.maxWaiters) {
+            waiters.decrementAndGet();
+            rejected.increment();
+            throw new SQLTransientConnectionException(
+                    "Database busy: " + config.maxWaiters + " requests already waiting for a connection");
+        }
+        try {
+            if (!permits.tryAcquire(config.maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLTransientConnectionException(
+                        "Timed out after " + config.maxWaitMillis + "ms waiting for a database connection");
+            }
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    // Open a connection that is owned by the caller and never returned to the pool
+    public PooledConnection openDedicated() throws SQLException {
+        return new PooledConnection(connect(), null, config.statementCacheSize);
+    }
+
+    void release(PooledConnection conn) {
+        holdTimes.recordNanos(System.nanoTime() - conn.getBorrowedNanos());
+        active.decrementAndGet();
+        if (closed || conn.isBroken()) {
+            discard(conn);
+        } else {
+            conn.touch();
+            idle.offerFirst(conn);
+        }
+        permits.release();
+    }
+
+    public Stats stats() {
+        long count = borrows.sum();
+        double avgWait = count == 0 ? 0 : waitNanos.sum() / (double) count / 1_000_000.0;
+        return new Stats(active.get(), idle.size(), total.get(), config.maxSize,
+                waiters.get(), count, timeouts.sum(), rejected.sum(),
+                avgWait, maxWaitNanos.get() / 1_000_000.0);
+    }
+
+    public LatencyHistogram holdTimes() {
+        return holdTimes;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        reaper.shutdownNow();
+        PooledConnection conn;
+        while ((conn = idle.pollFirst()) != null) {
+            discard(conn);
+        }
+    }
+
+    private PooledConnection takeIdle() {
+        PooledConnection conn;
+        while ((conn = idle.pollFirst()) != null) {
+            if (isUsable(conn)) {
+                return conn;
+            }
+            discard(conn);
+        }
+        return null;
+    }
+
+    // Only connections that sat idle past the validation interval get a round-trip check
+    private boolean isUsable(PooledConnection conn) {
+        long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - conn.getLastUsedNanos());
+        if (idleMillis < config.validationIntervalMillis) {
+            return true;
+        }
+        try {
+            return conn.raw().isValid(config.validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection raw = connect();
+        total.incrementAndGet();
+        return new PooledConnection(raw, this, config.statementCacheSize);
+    }
+
+    private Connection connect() throws SQLException {
+        Connection raw = DriverManager.getConnection(url);
+        try (Statement stmt = raw.createStatement()) {
+            for (String sql : config.initStatements) {
+                stmt.execute(sql);
+            }
+        } catch (SQLException e) {
+            raw.close();
+            throw e;
+        }
+        return raw;
+    }
+
+    private void discard(PooledConnection conn) {
+        total.decrementAndGet();
+        conn.closePhysical();
+    }
+
+    // Close connections idle longer than idleTimeoutMillis, keeping minIdle around
+    private void evictIdle() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(config.idleTimeoutMillis);
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && idle.size() > config.minIdle) {
+            PooledConnection conn = it.next();
+            if (conn.getLastUsedNanos() < cutoff && idle.removeLastOccurrence(conn)) {
+                discard(conn);
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        waitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example;
+
+import io.javalin.http.Context;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-user data version for conditional GETs. Every task mutation calls bump() after it
+// commits; pages and JSON built from a user's tasks carry a weak ETag (and Last-Modified)
+// derived from it, and a revalidation that still matches is answered 304 from this map alone.
+//
+// Versions live in memory only, so the ETag also carries the process start time: a restart
+// invalidates everything that was handed out before it, whatever was written in between.
+//
+// This is only valid while one process writes the database. A change committed by another
+// app instance on the same file never bumps this map, so its pages would keep answering 304
+// with data that is out of date. Run more than one instance with -Dtodo.versions.enabled=false:
+// every GET is then answered in full (version() still counts local writes for TaskCache, which
+// must be turned off the same way; see there).
+public class DataVersions {
+
+    // Whether 304s may be answered from this map, from -Dtodo.versions.enabled
+    public static boolean enabledBySystemProperties() {
+        return Boolean.parseBoolean(System.getProperty("todo.versions.enabled", "true"));
+    }
+
+    public record Stats(int users, long notModified) {}
+
+    private record Stamp(long version, long modifiedMillis) {}
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    // Users nobody has written to since startup are at version 0, modified at startup
+    private final Stamp initial = new Stamp(0, System.currentTimeMillis());
+    private final ConcurrentHashMap<Integer, Stamp> stamps = new ConcurrentHashMap<>();
+
+    private final LongAdder notModified = new LongAdder();
+
+    private final boolean enabled;
+
+    public DataVersions(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // Record a committed change to the user's tasks
+    public void bump(int userId) {
+        long now = System.currentTimeMillis();
+        stamps.compute(userId, (id, stamp) ->
+                new Stamp((stamp == null ? 0 : stamp.version()) + 1, Math.max(now, stamp == null ? 0 : stamp.modifiedMillis())));
+    }
+
+    // The user's current version, for tagging data read after this call
+    public long version(int userId) {
+        return stamps.getOrDefault(userId, initial).version();
+    }
+
+    // Set the validators for the user's current version and answer 304 if the request already
+    // has it; callers return straight away when this is true. Must run before the data is read:
+    // a change landing in between then only makes the page newer than its ETag, never older.
+    public boolean notModified(Context ctx, int userId) {
+        if (!enabled) {
+            // Nothing to validate against: other instances' writes are not seen here
+            ctx.header("Cache-Control", "private, no-store");
+            return false;
+        }
+        Stamp stamp = stamps.getOrDefault(userId, initial);
+        String etag = "W/\"" + userId + "." + epoch + "." + stamp.version() + "\"";
+
+        ctx.header("ETag", etag);
+        // Always revalidate; the page is per user, so shared caches must not keep it
+        ctx.header("Cache-Control", "private, no-cache");
+        long modifiedSeconds = stamp.modifiedMillis() / 1000;
+        // A date in the current second could be followed by another change in that same second,
+        // which If-Modified-Since cannot tell apart, so it is only sent once the second is over
+        boolean dateIsFinal = modifiedSeconds < System.currentTimeMillis() / 1000;
+        if (dateIsFinal) {
+            ctx.header("Last-Modified", HTTP_DATE.format(Instant.ofEpochSecond(modifiedSeconds)));
+        }
+
+        String ifNoneMatch = ctx.header("If-None-Match");
+        boolean matches = ifNoneMatch != null
+                ? etagMatches(ifNoneMatch, etag)
+                : dateIsFinal && notModifiedSince(ctx.header("If-Modified-Since"), modifiedSeconds);
+        if (matches) {
+            notModified.increment();
+            ctx.status(304);
+        }
+        return matches;
+    }
+
+    // Take back the validators notModified set, for a response that ended up without the data:
+    // an error kept under the current ETag would be revalidated as fresh until the next write
+    public void withdraw(Context ctx) {
+        ctx.res().setHeader("ETag", null);
+        ctx.res().setHeader("Last-Modified", null);
+        ctx.header("Cache-Control", "private, no-store");
+    }
+
+    // Weak comparison against each tag in the header (RFC 9110 13.1.2)
+    static boolean etagMatches(String header, String etag) {
+        String opaque = etag.substring(2);
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean notModifiedSince(String header, long modifiedSeconds) {
+        if (header == null) {
+            return false;
+        }
+        try {
+            return modifiedSeconds <= ZonedDateTime.parse(header, HTTP_DATE).toEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(stamps.size(), notModified.sum());
+    }
+}
@@ -0,0 +1,40 @@
+package com.example;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.util.concurrent.Executors;
+
+// Jetty server threads, chosen with -Dtodo.http.threads:
+//   platform (default) - Jetty's bounded pool of todo.http.maxThreads platform threads runs every request
+//   virtual            - the pool keeps only acceptors and selectors; each request runs on its own
+//                        virtual thread, so handlers parked on JDBC no longer use up the pool
+// Either way each database file sees at most todo.db.pool.maxSize concurrent users (see ConnectionPool).
+// setVirtualThreadsExecutor is Jetty 11.0 API (the 11.0.15 javalin 5.6.1 brings in) and needs Java 21.
+public class HttpThreads {
+    private static final int MAX_THREADS = Integer.getInteger("todo.http.maxThreads", 250);
+    private static final int MIN_THREADS = Integer.getInteger("todo.http.minThreads", 8);
+
+    // The pool of the last server built, for the /metrics gauges
+    private static volatile QueuedThreadPool current;
+
+    public static boolean virtual() {
+        return "virtual".equalsIgnoreCase(System.getProperty("todo.http.threads", "platform"));
+    }
+
+    // Pass to config.jetty.server(...)
+    public static Server server() {
+        QueuedThreadPool threads = new QueuedThreadPool(MAX_THREADS, MIN_THREADS);
+        threads.setName("http");
+        if (virtual()) {
+            threads.setVirtualThreadsExecutor(
+                    Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-v", 0).factory()));
+        }
+        current = threads;
+        return new Server(threads);
+    }
+
+    public static QueuedThreadPool threadPool() {
+        return current;
+    }
+}
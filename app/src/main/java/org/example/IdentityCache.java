@@ -0,0 +1,66 @@
+package com.example;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded username -> user id cache. Least recently used entries are evicted once
+// maxEntries is reached; renames and deletes must call invalidate().
+public class IdentityCache {
+
+    public record Stats(int size, int maxEntries, long hits, long misses, long evictions) {}
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, Integer> ids;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public IdentityCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.ids = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                if (size() > IdentityCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Cached id for this username, or null when it has to be looked up
+    public synchronized Integer get(String username) {
+        Integer id = ids.get(username);
+        if (id == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return id;
+    }
+
+    public synchronized void put(String username, int id) {
+        ids.put(username, id);
+    }
+
+    public synchronized void invalidate(String username) {
+        ids.remove(username);
+    }
+
+    public synchronized void invalidateId(int id) {
+        Iterator<Integer> it = ids.values().iterator();
+        while (it.hasNext()) {
+            if (it.next() == id) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(ids.size(), maxEntries, hits.sum(), misses.sum(), evictions.sum());
+    }
+}
@@ -0,0 +1,542 @@
+package com.example;
+
+import io.javalin.Javalin;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Open-model load generator. Starts TodoAppDatabase (or Main) in-process on a free port and a
+// temporary SQLite file, unless --url points it at a running server, then sends requests at a
+// fixed arrival rate whether or not earlier ones have finished, the way real users do.
+//
+// Each arrival is one step of a virtual user's session. For the todo app that is
+// register -> login -> create tasks -> browse /dashboard and /tasks; for Main it is the pages and
+// forms. An arrival takes an idle user, or a new one, up to --max-users; with all of them busy it
+// waits for one. Latency is measured from the scheduled arrival time, not from when the request
+// was actually sent, so time spent queued behind a slow server counts (coordinated omission).
+// The uncorrected send-to-response time is reported alongside for comparison.
+//
+// --replay <access log> sends the requests from a Common/Combined Log Format file instead, at
+// their original spacing (divided by --speed), with one logged-in user per client.
+//
+//   ./gradlew :app:loadTest --args="--rate 100 --duration 60 --max-users 200"
+//   ./gradlew :app:loadTest --args="--replay access.log --speed 2"
+public class LoadGenerator {
+
+    // Settings, read from --name value arguments
+    static class Config {
+        String target = "todo";
+        String url;
+        double rate = 50;
+        long durationSeconds = 60;
+        long warmupSeconds = 10;
+        int maxUsers = 200;
+        int tasksPerUser = 5;
+        String arrivals = "poisson";
+        String replay;
+        double speed = 1.0;
+        long seed = 42;
+        long timeoutSeconds = 30;
+
+        static Config fromArgs(String[] args) {
+            Config config = new Config();
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--target" -> config.target = value;
+                    case "--url" -> config.url = value;
+                    case "--rate" -> config.rate = Double.parseDouble(value);
+                    case "--duration" -> config.durationSeconds = Long.parseLong(value);
+                    case "--warmup" -> config.warmupSeconds = Long.parseLong(value);
+                    case "--max-users" -> config.maxUsers = Integer.parseInt(value);
+                    case "--tasks-per-user" -> config.tasksPerUser = Integer.parseInt(value);
+                    case "--arrivals" -> config.arrivals = value;
+                    case "--replay" -> config.replay = value;
+                    case "--speed" -> config.speed = Double.parseDouble(value);
+                    case "--seed" -> config.seed = Long.parseLong(value);
+                    case "--timeout" -> config.timeoutSeconds = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            if (!config.target.equals("todo") && !config.target.equals("main")) {
+                throw new IllegalArgumentException("--target must be todo or main");
+            }
+            if (!config.arrivals.equals("poisson") && !config.arrivals.equals("uniform")) {
+                throw new IllegalArgumentException("--arrivals must be poisson or uniform");
+            }
+            return config;
+        }
+    }
+
+    private static final String USAGE = """
+        Usage: LoadGenerator [options]
+          --target todo|main        app to start in-process (default todo)
+          --url http://host:port    use a running server instead of starting one
+          --rate N                  arrivals per second (default 50)
+          --arrivals poisson|uniform
+          --duration S --warmup S   measured seconds, and unmeasured seconds before them
+          --max-users N             concurrent virtual users (default 200)
+          --tasks-per-user N        tasks each todo user creates before browsing (default 5)
+          --replay FILE --speed X   replay an access log instead, X times faster
+          --seed N --timeout S
+        Password hashing cost applies to register and login; lower it with -Dtodo.password.iterations.
+        """;
+
+    record Step(String name, String method, String path, String form) {}
+
+    // One simulated browser: credentials, cookies and where it is in its session
+    static class VirtualUser {
+        final String username;
+        final String password = "load-test-password";
+        final Map<String, String> cookies = new ConcurrentHashMap<>();
+        final Random random;
+        int stepsTaken;
+
+        VirtualUser(String username, long seed) {
+            this.username = username;
+            this.random = new Random(seed);
+        }
+
+        String cookieHeader() {
+            StringBuilder header = new StringBuilder();
+            for (Map.Entry<String, String> cookie : cookies.entrySet()) {
+                if (!header.isEmpty()) {
+                    header.append("; ");
+                }
+                header.append(cookie.getKey()).append('=').append(cookie.getValue());
+            }
+            return header.toString();
+        }
+    }
+
+    private final Config config;
+    private final String baseUrl;
+    private final HttpClient client;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final LinkedBlockingQueue<VirtualUser> idleUsers = new LinkedBlockingQueue<>();
+    private final AtomicInteger userCount = new AtomicInteger();
+    private volatile int replayUsers;
+
+    // Latency from the scheduled arrival, overall and per step; service time from the actual send
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> stepLatency = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicLong lastCompletion = new AtomicLong();
+    private volatile long measureFrom;
+
+    LoadGenerator(Config config, String baseUrl) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(config.timeoutSeconds))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config;
+        try {
+            config = Config.fromArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.print(USAGE);
+            return;
+        }
+
+        Javalin app = null;
+        Path dataDir = null;
+        String baseUrl = config.url;
+        if (baseUrl == null) {
+            // Must be set before TodoAppDatabase is first touched; it reads todo.db.path once.
+            // Main's submission log goes to the same throwaway directory
+            dataDir = Files.createTempDirectory("todo-load");
+            System.setProperty("todo.db.path", dataDir.resolve("load.db").toString());
+            System.setProperty("todo.submissions.dir", dataDir.resolve("submissions").toString());
+            app = config.target.equals("main") ? Main.start(0) : TodoAppDatabase.start(0);
+            baseUrl = "http://localhost:" + app.port();
+        }
+
+        LoadGenerator generator = new LoadGenerator(config, baseUrl);
+        try {
+            if (config.replay != null) {
+                generator.replay(Path.of(config.replay));
+            } else {
+                generator.runScenario();
+            }
+            generator.report();
+        } finally {
+            generator.workers.shutdownNow();
+            if (app != null) {
+                app.stop();
+            }
+            if (dataDir != null) {
+                deleteRecursively(dataDir);
+            }
+        }
+    }
+
+    // Scheduled arrivals for warmup + duration seconds, each running one user step
+    void runScenario() throws InterruptedException {
+        Random arrivals = new Random(config.seed);
+        long intervalNanos = (long) (1_000_000_000L / config.rate);
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        measureFrom = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+
+        System.out.printf("Target %s (%s), %s arrivals at %.1f/s for %ds after %ds warm-up%n",
+                baseUrl, config.target, config.arrivals, config.rate, config.durationSeconds, config.warmupSeconds);
+        long next = start;
+        while (next < end) {
+            parkUntil(next);
+            long intended = next;
+            workers.execute(() -> arrive(intended));
+            next += config.arrivals.equals("poisson")
+                    ? (long) (-Math.log(1 - arrivals.nextDouble()) * intervalNanos)
+                    : intervalNanos;
+        }
+        awaitWorkers();
+    }
+
+    // One arrival: borrow a user (waiting if all are busy, which counts as latency), run its next step
+    private void arrive(long intended) {
+        VirtualUser user = idleUsers.poll();
+        if (user == null) {
+            int index = userCount.incrementAndGet();
+            if (index <= config.maxUsers) {
+                user = new VirtualUser("load" + index + "_" + config.seed, config.seed + index);
+            } else {
+                userCount.decrementAndGet();
+                try {
+                    user = idleUsers.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+        try {
+            send(user, nextStep(user), intended);
+        } finally {
+            idleUsers.offer(user);
+        }
+    }
+
+    private Step nextStep(VirtualUser user) {
+        int n = user.stepsTaken++;
+        return config.target.equals("main") ? mainStep(user, n) : todoStep(user, n);
+    }
+
+    // register -> login -> create tasksPerUser tasks -> mostly browsing, with the odd new task
+    private Step todoStep(VirtualUser user, int n) {
+        if (n == 0) {
+            return new Step("register", "POST", "/register", form("username", user.username,
+                    "email", user.username + "@example.com", "password", user.password,
+                    "confirmPassword", user.password));
+        }
+        if (n == 1) {
+            return new Step("login", "POST", "/login", form("username", user.username, "password", user.password));
+        }
+        if (n < 2 + config.tasksPerUser) {
+            return createTask(user);
+        }
+        int roll = user.random.nextInt(100);
+        if (roll < 40) {
+            return new Step("dashboard", "GET", "/dashboard", null);
+        } else if (roll < 75) {
+            return new Step("tasks", "GET", "/tasks", null);
+        } else if (roll < 85) {
+            String status = STATUSES[user.random.nextInt(STATUSES.length)];
+            return new Step("tasks?status", "GET", "/tasks?status=" + status, null);
+        } else if (roll < 90) {
+            return new Step("tasks?q", "GET", "/tasks?q=" + LOREM[user.random.nextInt(LOREM.length)], null);
+        }
+        return createTask(user);
+    }
+
+    private Step createTask(VirtualUser user) {
+        String title = LOREM[user.random.nextInt(LOREM.length)] + " " + LOREM[user.random.nextInt(LOREM.length)];
+        String priority = PRIORITIES[user.random.nextInt(PRIORITIES.length)];
+        return new Step("create task", "POST", "/tasks", form("title", title,
+                "description", "Created by the load generator", "priority", priority));
+    }
+
+    // Main has no sessions: walk the pages and submit both forms
+    private Step mainStep(VirtualUser user, int n) {
+        return switch (n % 6) {
+            case 0 -> new Step("home", "GET", "/", null);
+            case 1 -> new Step("form", "GET", "/Form", null);
+            case 2 -> new Step("submit form", "POST", "/Form", form("name", user.username,
+                    "email", user.username + "@example.com", "message", "Sent by the load generator"));
+            case 3 -> new Step("registration", "GET", "/registration", null);
+            case 4 -> new Step("submit registration", "POST", "/registration", form("firstName", user.username,
+                    "lastName", "Load", "email", user.username + "@example.com", "password", user.password,
+                    "confirmPassword", user.password, "age", "30", "gender", "other", "hobbies", "testing"));
+            default -> new Step(n % 12 == 5 ? "about" : "contact", "GET", n % 12 == 5 ? "/aboutUs" : "/contactUs", null);
+        };
+    }
+
+    // Send one request and record it against the time it was scheduled for
+    private void send(VirtualUser user, Step step, long intended) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + step.path()))
+                .timeout(Duration.ofSeconds(config.timeoutSeconds));
+        String cookies = user.cookieHeader();
+        if (!cookies.isEmpty()) {
+            request.header("Cookie", cookies);
+        }
+        if (step.form() != null) {
+            request.header("Content-Type", "application/x-www-form-urlencoded")
+                   .method(step.method(), HttpRequest.BodyPublishers.ofString(step.form()));
+        } else {
+            request.method(step.method(), HttpRequest.BodyPublishers.noBody());
+        }
+
+        long sent = System.nanoTime();
+        boolean failed;
+        try {
+            HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            failed = failed(step.method(), response.statusCode(), response.headers().firstValue("location").orElse(null));
+            for (String setCookie : response.headers().allValues("set-cookie")) {
+                String pair = setCookie.split(";", 2)[0];
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    user.cookies.put(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim());
+                }
+            }
+        } catch (IOException e) {
+            failed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long done = System.nanoTime();
+
+        if (intended < measureFrom) {
+            return;
+        }
+        latency.recordNanos(done - intended);
+        serviceTime.recordNanos(done - sent);
+        stepLatency.computeIfAbsent(step.name(), k -> new LatencyHistogram()).recordNanos(done - intended);
+        if (failed) {
+            errors.increment();
+        }
+        lastCompletion.accumulateAndGet(done, Math::max);
+    }
+
+    // An error status, or a redirect where the page itself was asked for: a GET answered with a
+    // redirect (typically to /login, once a session is lost) only measured the redirect, and one
+    // to /login means the step ran logged out whatever its method
+    static boolean failed(String method, int status, String location) {
+        if (status >= 400) {
+            return true;
+        }
+        boolean redirect = status >= 300 && status != 304;
+        if (!redirect) {
+            return false;
+        }
+        if (method.equals("GET")) {
+            return true;
+        }
+        try {
+            return location != null && "/login".equals(URI.create(location).getPath());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // Combined/Common Log Format: host ident user [time] "METHOD path PROTOCOL" status ...
+    private static final Pattern LOG_LINE =
+            Pattern.compile("^(\\S+) \\S+ (\\S+) \\[([^\\]]+)\\] \"(\\S+) (\\S+)[^\"]*\" (\\d{3})");
+    private static final DateTimeFormatter LOG_TIME =
+            DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH);
+
+    record LogEntry(String client, long offsetNanos, String method, String path) {}
+
+    // Replay a log at its recorded spacing. Every client (logged user, else host) becomes one user,
+    // registered and logged in before the clock starts; logged POST bodies are not in the log,
+    // so task creation and login bodies are generated and other POSTs are sent empty.
+    void replay(Path log) throws IOException, InterruptedException {
+        List<LogEntry> entries = parseLog(log, config.speed);
+        if (entries.isEmpty()) {
+            System.out.println("No requests found in " + log);
+            return;
+        }
+
+        Map<String, VirtualUser> users = new LinkedHashMap<>();
+        for (LogEntry entry : entries) {
+            users.computeIfAbsent(entry.client(),
+                    client -> new VirtualUser("replay" + (users.size() + 1) + "_" + config.seed, config.seed + users.size()));
+        }
+        replayUsers = users.size();
+        if (config.target.equals("todo")) {
+            System.out.println("Logging in " + users.size() + " replay users...");
+            measureFrom = Long.MAX_VALUE;
+            for (VirtualUser user : users.values()) {
+                send(user, todoStep(user, 0), System.nanoTime());
+                send(user, todoStep(user, 1), System.nanoTime());
+            }
+        }
+
+        long lastOffset = entries.get(entries.size() - 1).offsetNanos();
+        System.out.printf("Replaying %d requests from %d clients over %.1fs against %s%n",
+                entries.size(), users.size(), lastOffset / 1e9, baseUrl);
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        measureFrom = start;
+        for (LogEntry entry : entries) {
+            long intended = start + entry.offsetNanos();
+            parkUntil(intended);
+            VirtualUser user = users.get(entry.client());
+            workers.execute(() -> send(user, replayStep(user, entry), intended));
+        }
+        awaitWorkers();
+    }
+
+    private Step replayStep(VirtualUser user, LogEntry entry) {
+        String route = entry.method() + " " + entry.path().split("\\?", 2)[0];
+        String form = null;
+        if (entry.method().equals("POST")) {
+            if (route.equals("POST /tasks")) {
+                form = createTask(user).form();
+            } else if (route.equals("POST /login")) {
+                form = form("username", user.username, "password", user.password);
+            } else {
+                form = "";
+            }
+        }
+        return new Step(route, entry.method(), entry.path(), form);
+    }
+
+    // Entries in time order, as offsets from the first. Log times only have second resolution,
+    // so the requests logged within one second are spread evenly across it.
+    static List<LogEntry> parseLog(Path log, double speed) throws IOException {
+        List<LogEntry> raw = new ArrayList<>();
+        List<Long> seconds = new ArrayList<>();
+        for (String line : Files.readAllLines(log, StandardCharsets.UTF_8)) {
+            Matcher m = LOG_LINE.matcher(line);
+            if (!m.find()) {
+                continue;
+            }
+            String client = "-".equals(m.group(2)) ? m.group(1) : m.group(2);
+            seconds.add(ZonedDateTime.parse(m.group(3), LOG_TIME).toEpochSecond());
+            raw.add(new LogEntry(client, 0, m.group(4), m.group(5)));
+        }
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < raw.size(); i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> Long.compare(seconds.get(a), seconds.get(b)));
+
+        List<LogEntry> entries = new ArrayList<>(raw.size());
+        int i = 0;
+        while (i < order.size()) {
+            long second = seconds.get(order.get(i));
+            int j = i;
+            while (j < order.size() && seconds.get(order.get(j)) == second) {
+                j++;
+            }
+            long first = seconds.get(order.get(0));
+            for (int k = i; k < j; k++) {
+                LogEntry e = raw.get(order.get(k));
+                double offsetSeconds = (second - first) + (k - i) / (double) (j - i);
+                entries.add(new LogEntry(e.client(), (long) (offsetSeconds * 1e9 / speed), e.method(), e.path()));
+            }
+            i = j;
+        }
+        return entries;
+    }
+
+    void report() {
+        long measuredNanos = Math.max(1, lastCompletion.get() - measureFrom);
+        long count = latency.count();
+        System.out.println();
+        System.out.printf("%d requests, %d errors, %.1f req/s over %.1fs, %d virtual users%n",
+                count, errors.sum(), count / (measuredNanos / 1e9), measuredNanos / 1e9,
+                config.replay != null ? replayUsers : Math.min(userCount.get(), config.maxUsers));
+        System.out.println("Latency from scheduled arrival (ms):");
+        System.out.printf("  %-22s %8s %9s %9s %9s %9s %9s%n", "", "count", "p50", "p90", "p99", "p99.9", "max");
+        printRow("all", latency);
+        stepLatency.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> printRow(e.getKey(), e.getValue()));
+        System.out.println("Service time, send to response, not corrected for queueing (ms):");
+        printRow("all", serviceTime);
+    }
+
+    private static void printRow(String name, LatencyHistogram h) {
+        System.out.printf("  %-22s %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, h.count(),
+                h.quantileMicros(0.5) / 1000.0, h.quantileMicros(0.9) / 1000.0, h.quantileMicros(0.99) / 1000.0,
+                h.quantileMicros(0.999) / 1000.0, h.maxMicros() / 1000.0);
+    }
+
+    private void awaitWorkers() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(config.timeoutSeconds * 2, TimeUnit.SECONDS)) {
+            System.out.println("Some requests were still running at the end and were not recorded");
+        }
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static String form(String... pairs) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (i > 0) {
+                body.append('&');
+            }
+            body.append(URLEncoder.encode(pairs[i], StandardCharsets.UTF_8)).append('=')
+                .append(URLEncoder.encode(pairs[i + 1], StandardCharsets.UTF_8));
+        }
+        return body.toString();
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var paths = Files.walk(dir)) {
+            for (Path path : paths.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static final String[] STATUSES = {"pending", "in_progress", "completed"};
+    private static final String[] PRIORITIES = {"low", "medium", "high"};
+    private static final String[] LOREM = {
+        "report", "invoice", "meeting", "deploy", "review", "budget", "design", "release", "backup", "roadmap"
+    };
+}
@@ -1,23 +1,40 @@
 package com.example;
 
 import io.javalin.Javalin;
-import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
-import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 
 public class Main {
-    public static void main(String[] args) {
-        // 🏗️ BACKEND: Set up Thymeleaf for dynamic templates
-        TemplateEngine templateEngine = new TemplateEngine();
-        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
-        resolver.setPrefix("/templates/");
-        resolver.setSuffix(".html");
-        resolver.setTemplateMode("HTML");
-        templateEngine.setTemplateResolver(resolver);
+    public static void main(String[] args) throws IOException {
+        start(7071);  // Server runs on port 7071
+    }
+
+    // Start the app on a port (0 picks a free one); used by main and by LoadGenerator
+    public static Javalin start(int port) throws IOException {
+        // 🏗️ BACKEND: Set up Thymeleaf for dynamic templates, rendered straight into the response stream
+        StaticAssets assets = StaticAssets.load();
+        TemplateRenderer renderer = TemplateRenderer.create(assets);
+
+        // Form and registration submissions are queued here and written to disk in the background
+        SubmissionLog submissions = new SubmissionLog(SubmissionLog.Config.fromSystemProperties());
+        Runtime.getRuntime().addShutdownHook(new Thread(submissions::close, "submission-log-shutdown"));
         
         Javalin app = Javalin.create();
-        app.start(7071);  // Server runs on port 7071
+        app.start(port);
+
+        // ✅ Admin access: /admin/* needs -Dtodo.admin.token, or a local client without one
+        AdminAccess adminAccess = new AdminAccess(AdminAccess.Config.fromSystemProperties());
+        app.before("/admin/*", adminAccess::check);
+
+        // ✅ Static assets (immutable, precompressed)
+        assets.register(app);
+
+        // ✅ Submission log metrics
+        app.get("/admin/submissions", ctx -> ctx.json(submissions.stats()));
 
         // ✅ Route 1: Home page
         app.get("/", ctx -> {
@@ -29,8 +46,7 @@ public class Main {
             context.setVariable("hobby", "Software Engineer");
             context.setVariable("isStudent", false);
             
-            String renderedHtml = templateEngine.process("index", context);
-            ctx.html(renderedHtml);
+            renderer.render(ctx, "index", context);
         });
 
         // ✅ Route 2: Contact page
@@ -42,8 +58,7 @@ public class Main {
             context.setVariable("phone", "+1-555-123-4567");
             context.setVariable("address", "123 Tech Street, Silicon Valley");
             
-            String renderedHtml = templateEngine.process("contact", context);
-            ctx.html(renderedHtml);
+            renderer.render(ctx, "contact", context);
         });
 
         // ✅ Route 3: About page
@@ -55,8 +70,7 @@ public class Main {
             context.setVariable("founded", 2020);
             context.setVariable("employees", 50);
             
-            String renderedHtml = templateEngine.process("about", context);
-            ctx.html(renderedHtml);
+            renderer.render(ctx, "about", context);
         });
 
         // ✅ Route 4: GET Form (show form)
@@ -75,8 +89,7 @@ public class Main {
                 context.setVariable("error", error);
             }
             
-            String renderedHtml = templateEngine.process("form", context);  // Changed to lowercase "form"
-            ctx.html(renderedHtml);     
+            renderer.render(ctx, "form", context);  // Changed to lowercase "form"
         });
 
         // ✅ Route 5: POST Form (process form submission)
@@ -92,12 +105,15 @@ public class Main {
                 return;
             }
             
-            // Process the data
-            System.out.println("=== FORM SUBMISSION ===");
-            System.out.println("Name: " + name);
-            System.out.println("Email: " + email);
-            System.out.println("Message: " + message);
-            System.out.println("=====================");
+            // Queue the data for the submission log; a full queue means the disk is falling behind
+            Map<String, String> fields = new LinkedHashMap<>();
+            fields.put("name", name);
+            fields.put("email", email);
+            fields.put("message", message);
+            if (!submissions.offer("form", fields)) {
+                ctx.redirect("/Form?error=We are busy right now, please try again!");
+                return;
+            }
             
             // Redirect back with success message
             ctx.redirect("/Form?msg=Message sent successfully!");
@@ -117,16 +133,13 @@ public class Main {
             if (error != null) {
                 context.setVariable("error", error);
             }
-            String renderedHtml = templateEngine.process("registration", context);
-            ctx.html(renderedHtml);
+            renderer.render(ctx, "registration", context);
         });
         app.post("/registration", ctx -> {
             String FirstName = ctx.formParam("firstName");
             String LastName = ctx.formParam("lastName");
             String email = ctx.formParam("email");
-            String password = ctx.formParam("password");
-            String ConformPassword = ctx.formParam("confirmPassword");
-            int age = Integer.parseInt(ctx.formParam("age"));
+            Integer age = parseAge(ctx.formParam("age"));
             String Gender = ctx.formParam("gender");
             String Hobbies = ctx.formParam("hobbies");
 
@@ -136,17 +149,41 @@ public class Main {
                 ctx.redirect("/registration?error=Username is required!");
                 return;
             }
+            if (age == null) {
+                ctx.redirect("/registration?error=Age must be a number!");
+                return;
+            }
             
-            // Process the data
-            System.out.println("=== REGISTRATION SUBMISSION ===");
-            System.out.println("Username: " + FirstName);
-            System.out.println("Password: " + password);
-            System.out.println("Email: " + email);
-            System.out.println("===============================");
+            // Queue the data for the submission log; the password is deliberately not stored
+            Map<String, String> fields = new LinkedHashMap<>();
+            fields.put("firstName", FirstName);
+            fields.put("lastName", LastName);
+            fields.put("email", email);
+            fields.put("age", String.valueOf(age));
+            fields.put("gender", Gender);
+            fields.put("hobbies", Hobbies);
+            if (!submissions.offer("registration", fields)) {
+                ctx.redirect("/registration?error=We are busy right now, please try again!");
+                return;
+            }
             
             // Redirect back with success message
             
             ctx.redirect("/registration?msg=Registration successful!");
         });
+        return app;
+    }
+
+    // Age from the form, or null when it is missing or not a sensible number
+    private static Integer parseAge(String age) {
+        if (age == null) {
+            return null;
+        }
+        try {
+            int value = Integer.parseInt(age.trim());
+            return value >= 0 && value <= 150 ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.example;
+
+import io.javalin.Javalin;
+import io.javalin.event.HandlerMetaInfo;
+import io.javalin.http.Context;
+import io.javalin.http.HandlerType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+// Request latency per route, plus whatever histograms and gauges the rest of the app registers,
+// served at /metrics in the Prometheus text format. Histograms are reported as summaries
+// (p50/p99/p999, sum, count) over the life of the process.
+// Recording is allocation-free once a route has been seen: an enum-keyed map, a lookup of the
+// route pattern string Javalin already holds, and LatencyHistogram's atomic increments.
+public class Metrics {
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    // Requests that reached no endpoint: no route matched, or a before-handler answered (401, 429, ...)
+    private static final String UNMATCHED = "unmatched";
+
+    private record Summary(String name, String help, String label, Map<String, LatencyHistogram> histograms) {}
+
+    private record Gauge(String name, String help, String type, DoubleSupplier value) {}
+
+    private final Map<HandlerType, ConcurrentHashMap<String, LatencyHistogram>> routes = new EnumMap<>(HandlerType.class);
+    // Endpoint paths by method, as registered; only these get a series of their own
+    private final Map<HandlerType, Set<String>> endpoints = new EnumMap<>(HandlerType.class);
+    private final List<Summary> summaries = new ArrayList<>();
+    private final List<Gauge> gauges = new ArrayList<>();
+
+    public Metrics() {
+        for (HandlerType method : HandlerType.values()) {
+            routes.put(method, new ConcurrentHashMap<>());
+            endpoints.put(method, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    // Pass to app.events(e -> e.handlerAdded(...)) before any route is added
+    public void routeAdded(HandlerMetaInfo info) {
+        if (info.getHttpMethod().isHttpMethod()) {
+            endpoints.get(info.getHttpMethod()).add(info.getPath());
+        }
+    }
+
+    // Pass to config.requestLogger.http(...); Javalin calls it once per request with the total time.
+    // Javalin's path is that of the last before- or endpoint handler to run, so it only names the
+    // route when it is a registered endpoint path for the method; before-handlers on the same path
+    // as an endpoint (/metrics) count towards it. endpointHandlerPath() itself throws while the
+    // last handler was a before-handler, so that is checked first rather than caught.
+    public void recordRequest(Context ctx, Float executionTimeMs) {
+        ConcurrentHashMap<String, LatencyHistogram> byRoute = routes.get(ctx.method());
+        if (byRoute == null) {
+            return;
+        }
+        String route = ctx.handlerType() == HandlerType.BEFORE ? UNMATCHED : ctx.endpointHandlerPath();
+        LatencyHistogram histogram = route != null ? byRoute.get(route) : null;
+        if (histogram == null) {
+            if (route == null || !endpoints.get(ctx.method()).contains(route)) {
+                route = UNMATCHED;
+            }
+            histogram = byRoute.computeIfAbsent(route, k -> new LatencyHistogram());
+        }
+        histogram.recordMicros((long) (executionTimeMs * 1_000));
+    }
+
+    // A single histogram, exposed as a summary without labels
+    public synchronized void summary(String name, String help, LatencyHistogram histogram) {
+        summaries.add(new Summary(name, help, null, Map.of("", histogram)));
+    }
+
+    // A live map of histograms (it may gain keys later), one series per key under the given label
+    public synchronized void summaries(String name, String help, String label, Map<String, LatencyHistogram> histograms) {
+        summaries.add(new Summary(name, help, label, histograms));
+    }
+
+    // A value that goes up and down, read at scrape time
+    public synchronized void gauge(String name, String help, DoubleSupplier value) {
+        gauges.add(new Gauge(name, help, "gauge", value));
+    }
+
+    // A value that only grows, read at scrape time
+    public synchronized void counter(String name, String help, DoubleSupplier value) {
+        gauges.add(new Gauge(name, help, "counter", value));
+    }
+
+    public void register(Javalin app) {
+        app.get("/metrics", ctx -> {
+            ctx.contentType("text/plain; version=0.0.4; charset=utf-8");
+            ctx.result(scrape());
+        });
+    }
+
+    synchronized String scrape() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+
+        header(out, "http_request_duration_seconds", "Time to handle a request, by method and route", "summary");
+        for (Map.Entry<HandlerType, ConcurrentHashMap<String, LatencyHistogram>> method : routes.entrySet()) {
+            for (Map.Entry<String, LatencyHistogram> route : new TreeMap<>(method.getValue()).entrySet()) {
+                String labels = "method=\"" + method.getKey() + "\",route=\"" + escape(route.getKey()) + "\"";
+                writeSummary(out, "http_request_duration_seconds", labels, route.getValue());
+            }
+        }
+
+        for (Summary summary : summaries) {
+            header(out, summary.name(), summary.help(), "summary");
+            for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(summary.histograms()).entrySet()) {
+                String labels = summary.label() == null ? "" : summary.label() + "=\"" + escape(entry.getKey()) + "\"";
+                writeSummary(out, summary.name(), labels, entry.getValue());
+            }
+        }
+
+        for (Gauge gauge : gauges) {
+            header(out, gauge.name(), gauge.help(), gauge.type());
+            out.append(gauge.name()).append(' ').append(gauge.value().getAsDouble()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void writeSummary(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        String separator = labels.isEmpty() ? "" : ",";
+        for (double quantile : QUANTILES) {
+            out.append(name).append('{').append(labels).append(separator)
+               .append("quantile=\"").append(quantile).append("\"} ")
+               .append(seconds(histogram.quantileMicros(quantile))).append('\n');
+        }
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(braces).append(' ').append(seconds(histogram.sumMicros())).append('\n');
+        out.append(name).append("_count").append(braces).append(' ').append(histogram.count()).append('\n');
+    }
+
+    private static double seconds(long micros) {
+        return micros / 1_000_000.0;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,184 @@
+package com.example;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Salted PBKDF2-HMAC-SHA256 password hashes, stored as
+//   pbkdf2-sha256$<iterations>$<base64 salt>$<base64 hash>
+// so the cost can be raised later: hashes made with fewer iterations still verify and are
+// reported by needsRehash(). Rows from before hashing (plain text) verify once and are rehashed.
+//
+// Hashing is deliberately slow, so it runs on a small dedicated pool rather than on request
+// threads. The pool's queue is bounded: when it is full, or a hash waits too long, callers get
+// Busy at once instead of piling up and stealing CPU from every other route.
+public class PasswordHasher implements AutoCloseable {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+
+    // Hasher settings, read from -Dtodo.password.* system properties
+    public static class Config {
+        int iterations = 600_000;
+        int saltBytes = 16;
+        int hashBytes = 32;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int queueCapacity = 64;
+        long maxWaitMillis = 5_000;
+
+        public static Config fromSystemProperties() {
+            Config config = new Config();
+            config.iterations = Integer.getInteger("todo.password.iterations", config.iterations);
+            config.threads = Integer.getInteger("todo.password.threads", config.threads);
+            config.queueCapacity = Integer.getInteger("todo.password.queueCapacity", config.queueCapacity);
+            config.maxWaitMillis = Long.getLong("todo.password.maxWaitMillis", config.maxWaitMillis);
+            return config;
+        }
+    }
+
+    // Thrown when the hashing pool cannot take or finish the work in time
+    public static class Busy extends RuntimeException {
+        Busy(String message) {
+            super(message);
+        }
+    }
+
+    public record Stats(int threads, int active, int queued, long hashed, long rejected, double avgMillis) {}
+
+    private final Config config;
+    private final ThreadPoolExecutor executor;
+    private final SecureRandom random = new SecureRandom();
+    private final LongAdder hashed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+
+    public PasswordHasher(Config config) {
+        this.config = config;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(config.threads, config.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.queueCapacity), r -> {
+                    Thread t = new Thread(r, "password-hasher-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // New hash of the password at the current cost
+    public String hash(String password) {
+        return run(() -> {
+            byte[] salt = new byte[config.saltBytes];
+            random.nextBytes(salt);
+            byte[] hash = pbkdf2(password, salt, config.iterations, config.hashBytes);
+            Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+            return PREFIX + "$" + config.iterations + "$" + b64.encodeToString(salt) + "$" + b64.encodeToString(hash);
+        });
+    }
+
+    // Check a password against a stored hash (or a legacy plain-text value).
+    // Whatever is stored, a check costs one hash at the current setting: a null stored value
+    // (unknown user), a plain-text one or an unreadable hash must not answer sooner than a real
+    // hash would, or response time would tell them apart.
+    public boolean verify(String password, String stored) {
+        return run(() -> {
+            String[] parts = stored != null ? stored.split("\\$") : new String[0];
+            if (parts.length == 4 && parts[0].equals(PREFIX)) {
+                try {
+                    int iterations = Integer.parseInt(parts[1]);
+                    byte[] salt = Base64.getDecoder().decode(parts[2]);
+                    byte[] expected = Base64.getDecoder().decode(parts[3]);
+                    byte[] actual = pbkdf2(password, salt, iterations, expected.length);
+                    return MessageDigest.isEqual(expected, actual);
+                } catch (IllegalArgumentException e) {
+                    dummyHash(password);
+                    return false;
+                }
+            }
+            dummyHash(password);
+            if (stored == null) {
+                return false;
+            }
+            // Stored before passwords were hashed
+            return MessageDigest.isEqual(stored.getBytes(StandardCharsets.UTF_8),
+                    password.getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    // True when the stored value is plain text or was hashed at a different cost than today's
+    public boolean needsRehash(String stored) {
+        String[] parts = stored.split("\\$");
+        return parts.length != 4 || !parts[0].equals(PREFIX) || !parts[1].equals(String.valueOf(config.iterations));
+    }
+
+    public Stats stats() {
+        long count = hashed.sum();
+        return new Stats(config.threads, executor.getActiveCount(), executor.getQueue().size(),
+                count, rejected.sum(), count == 0 ? 0 : hashNanos.sum() / (double) count / 1_000_000.0);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // Run on the hashing pool and wait for the result
+    private <T> T run(Callable<T> work) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return work.call();
+                } finally {
+                    hashNanos.add(System.nanoTime() - start);
+                    hashed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new Busy("Password hashing queue is full");
+        }
+
+        try {
+            return future.get(config.maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new Busy("Password hashing timed out after " + config.maxWaitMillis + "ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new Busy("Interrupted waiting for password hashing");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    // A hash whose result is thrown away, only spending the time a real one takes
+    private void dummyHash(String password) {
+        pbkdf2(password, new byte[config.saltBytes], config.iterations, config.hashBytes);
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations, int bytes) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, bytes * 8);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " unavailable", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// A pooled SQLite connection that keeps its own prepared-statement cache.
+// Closing it hands the connection back to the pool instead of closing it;
+// dedicated connections (no owning pool) are closed for real.
+public class PooledConnection implements AutoCloseable {
+    // SQLite primary result codes after which a connection is not trusted again: IOERR, CORRUPT,
+    // CANTOPEN and NOTADB. Busy, constraint and other statement errors leave it usable.
+    private static final Set<Integer> FATAL_CODES = Set.of(10, 11, 14, 26);
+
+    private final Connection connection;
+    private final ConnectionPool pool;
+    private final int statementCacheSize;
+
+    // Access-ordered so the least recently used statement is evicted first
+    private final LinkedHashMap<String, PreparedStatement> statements =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    private long lastUsedNanos = System.nanoTime();
+    private long borrowedNanos;
+    private boolean broken;
+    // Set by close() until the next borrow, so a second close does not release it twice
+    private boolean closed;
+
+    PooledConnection(Connection connection, ConnectionPool pool, int statementCacheSize) {
+        this.connection = connection;
+        this.pool = pool;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    // Returns a cached statement for this SQL, preparing it on first use.
+    // Callers must not close the returned statement; close the ResultSet only.
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement pstmt = statements.get(sql);
+        if (pstmt != null) {
+            pstmt.clearParameters();
+            return pstmt;
+        }
+
+        pstmt = connection.prepareStatement(sql);
+        statements.put(sql, pstmt);
+        if (statements.size() > statementCacheSize) {
+            Iterator<Map.Entry<String, PreparedStatement>> eldest = statements.entrySet().iterator();
+            closeQuietly(eldest.next().getValue());
+            eldest.remove();
+        }
+        return pstmt;
+    }
+
+    // The underlying JDBC connection, for statements that should not be cached
+    public Connection raw() {
+        return connection;
+    }
+
+    // Marks the connection as unusable so the pool discards it on release
+    public void markBroken() {
+        this.broken = true;
+    }
+
+    // Mark the connection broken if e means it cannot be used again (see FATAL_CODES), or it
+    // has been closed under us
+    public void markBrokenIfFatal(SQLException e) {
+        if (isFatal(e)) {
+            markBroken();
+        }
+    }
+
+    boolean isFatal(SQLException e) {
+        // Extended codes carry the primary code in their low byte
+        if (FATAL_CODES.contains(e.getErrorCode() & 0xff)) {
+            return true;
+        }
+        try {
+            return connection.isClosed();
+        } catch (SQLException closed) {
+            return true;
+        }
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    void touch() {
+        this.lastUsedNanos = System.nanoTime();
+    }
+
+    long getBorrowedNanos() {
+        return borrowedNanos;
+    }
+
+    void markBorrowed() {
+        this.borrowedNanos = System.nanoTime();
+        this.closed = false;
+    }
+
+    int cachedStatementCount() {
+        return statements.size();
+    }
+
+    // Idempotent until the connection is borrowed again: a repeated close neither returns it to
+    // the pool twice nor gives back a second permit
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (pool == null) {
+            closePhysical();
+        } else {
+            pool.release(this);
+        }
+    }
+
+    // Closes the statements and the physical connection
+    void closePhysical() {
+        for (PreparedStatement pstmt : statements.values()) {
+            closeQuietly(pstmt);
+        }
+        statements.clear();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.out.println("Close connection failed: " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement pstmt) {
+        try {
+            pstmt.close();
+        } catch (SQLException ignored) {
+            // Statement is being discarded anyway
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.example;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Fires task reminders (tasks.remind_at, epoch seconds) from an in-memory TimingWheel instead of
+// polling the tasks table. The wheel only ever holds a window of the pending reminders: whenever
+// what it has loaded reaches less than windowSeconds / 2 ahead, the next ones are read in
+// (remind_at, id) order from the partial index on unfired reminders, at most loadBatch at a time
+// and never more than maxScheduled in memory, so millions of future reminders cost one index
+// range scan per window rather than memory or queries per second.
+//
+// Loading starts from the beginning of the index, so reminders that came due while the app was
+// down are simply the first rows read and fire on the first ticks. A reminder fires by setting
+// reminded_at in the same statement that checks it is still due, and only then is it delivered
+// (logged, and pushed to the user's open pages through TaskEvents): at most once, and a crash
+// between a batch's commit and its delivery loses those deliveries rather than repeating them.
+// A batch that cannot be marked (the write failed) goes back on the wheel, since the loader has
+// already moved past it, and is retried after a delay that doubles with each failure in a row.
+// Changes to remind_at go through changed(); a timer that still slips out of date (a task
+// deleted with its parent, say) fails that check and is dropped.
+public class ReminderScheduler implements AutoCloseable {
+
+    // Scheduler settings, read from -Dtodo.reminders.* system properties
+    public static class Config {
+        boolean enabled = true;
+        long tickMillis = 1000;
+        long windowSeconds = 3600;
+        int loadBatch = 10_000;
+        int maxScheduled = 200_000;
+
+        public static Config fromSystemProperties() {
+            Config config = new Config();
+            config.enabled = Boolean.parseBoolean(System.getProperty("todo.reminders.enabled", "true"));
+            config.tickMillis = Long.getLong("todo.reminders.tickMillis", config.tickMillis);
+            config.windowSeconds = Long.getLong("todo.reminders.windowSeconds", config.windowSeconds);
+            config.loadBatch = Integer.getInteger("todo.reminders.loadBatch", config.loadBatch);
+            config.maxScheduled = Integer.getInteger("todo.reminders.maxScheduled", config.maxScheduled);
+            return config;
+        }
+    }
+
+    public record Stats(int scheduled, long loadedUntil, long loads, long fired, long delivered, long stale, long retried) {}
+
+    private record Reminder(int taskId, int userId, long remindAt) {}
+
+    // Pending reminders only, in the order the loader reads them
+    static final String CREATE_INDEX = "CREATE INDEX IF NOT EXISTS idx_tasks_reminders ON tasks(remind_at, id) "
+            + "WHERE remind_at IS NOT NULL AND reminded_at IS NULL";
+
+    private static final String LOAD_SQL = """
+        SELECT id, user_id, remind_at FROM tasks
+        WHERE remind_at IS NOT NULL AND reminded_at IS NULL
+          AND (remind_at, id) > (?, ?) AND remind_at < ?
+        ORDER BY remind_at, id LIMIT ?
+        """;
+
+    // Marks it fired only if it is still the same, unfired reminder; a completed task's reminder
+    // is marked too, so it is not read again, but not delivered
+    private static final String FIRE_SQL = "UPDATE tasks SET reminded_at = ? "
+            + "WHERE id = ? AND remind_at = ? AND reminded_at IS NULL RETURNING status";
+
+    // Longest wait before retrying a batch that failed to fire
+    private static final long MAX_RETRY_MILLIS = 60_000;
+
+    private final Config config;
+    private final TaskEvents events;
+    // The task file this scheduler covers; there is one scheduler per shard
+    private final Shard shard;
+    private final TimingWheel<Reminder> wheel;
+    private final Map<Integer, TimingWheel.Timeout<Reminder>> timeouts = new HashMap<>();
+    // Everything at or before (loadedAt, loadedId) in (remind_at, id) order is in the wheel or fired
+    private long loadedAt = Long.MIN_VALUE;
+    private int loadedId = Integer.MIN_VALUE;
+    // Set while a window is being read; changes made meanwhile are applied after it is merged
+    private Map<Integer, Reminder> changedDuringLoad;
+    // Batches in a row that failed to fire; only the ticker thread uses it
+    private int fireFailures;
+    private final ScheduledExecutorService ticker;
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+
+    public ReminderScheduler(Config config, TaskEvents events, Shard shard) {
+        this.config = config;
+        this.events = events;
+        this.shard = shard;
+        // 64 slots on 3 levels: 64^3 ticks (three days at one a second) before a timer is parked
+        this.wheel = new TimingWheel<>(config.tickMillis, 64, 3, System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reminder-wheel-" + shard.name());
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::tick, 0, config.tickMillis, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "reminder-wheel-shutdown-" + shard.name()));
+    }
+
+    // Add the reminder columns to databases created before tasks had them, and the index
+    static void initialize(PooledConnection conn) throws SQLException {
+        try (Statement stmt = conn.raw().createStatement()) {
+            List<String> columns = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(tasks)")) {
+                while (rs.next()) {
+                    columns.add(rs.getString("name"));
+                }
+            }
+            for (String column : List.of("due_at", "remind_at", "reminded_at")) {
+                if (!columns.contains(column)) {
+                    stmt.execute("ALTER TABLE tasks ADD COLUMN " + column + " INTEGER");
+                }
+            }
+            stmt.execute(CREATE_INDEX);
+        }
+    }
+
+    // A task's remind_at was set, moved or cleared (remindAt null), or the task was deleted.
+    // Call after the change commits.
+    public synchronized void changed(int taskId, int userId, Long remindAt) {
+        Reminder reminder = remindAt != null ? new Reminder(taskId, userId, remindAt) : null;
+        if (changedDuringLoad != null) {
+            changedDuringLoad.put(taskId, reminder);
+        }
+        apply(taskId, reminder);
+    }
+
+    private void apply(int taskId, Reminder reminder) {
+        TimingWheel.Timeout<Reminder> previous = timeouts.remove(taskId);
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+        // Later than the loaded window: the loader will read it when it gets there
+        if (reminder != null && isLoaded(reminder.remindAt(), taskId)) {
+            timeouts.put(taskId, wheel.schedule(reminder.remindAt() * 1000, reminder));
+        }
+    }
+
+    private boolean isLoaded(long remindAt, int taskId) {
+        return remindAt < loadedAt || (remindAt == loadedAt && taskId <= loadedId);
+    }
+
+    private void tick() {
+        try {
+            List<Reminder> due = new ArrayList<>();
+            boolean load;
+            synchronized (this) {
+                wheel.advance(System.currentTimeMillis(), reminder -> {
+                    timeouts.remove(reminder.taskId());
+                    due.add(reminder);
+                });
+                long now = System.currentTimeMillis() / 1000;
+                load = timeouts.size() < config.maxScheduled && loadedAt < now + config.windowSeconds / 2;
+                if (load) {
+                    changedDuringLoad = new HashMap<>();
+                }
+            }
+            if (!due.isEmpty()) {
+                fire(due);
+            }
+            if (load) {
+                loadWindow();
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the scheduled task, and with it every future reminder
+            System.out.println("Reminder tick failed: " + e.getMessage());
+        }
+    }
+
+    // Read the next pending reminders, up to windowSeconds ahead, into the wheel
+    private void loadWindow() {
+        long afterAt;
+        int afterId;
+        int limit;
+        synchronized (this) {
+            afterAt = loadedAt;
+            afterId = loadedId;
+            limit = Math.min(config.loadBatch, config.maxScheduled - timeouts.size());
+        }
+        long horizon = System.currentTimeMillis() / 1000 + config.windowSeconds;
+        List<Reminder> rows = new ArrayList<>();
+        boolean merged = false;
+        try {
+            shard.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(LOAD_SQL);
+                pstmt.setLong(1, afterAt);
+                pstmt.setInt(2, afterId);
+                pstmt.setLong(3, horizon);
+                pstmt.setInt(4, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(new Reminder(rs.getInt("id"), rs.getInt("user_id"), rs.getLong("remind_at")));
+                    }
+                }
+                return rows;
+            });
+            merge(rows, limit, horizon);
+            merged = true;
+        } catch (SQLException e) {
+            System.out.println("Load reminders failed: " + e.getMessage());
+        } finally {
+            if (!merged) {
+                // Changes were applied as they came; only the window stays where it was
+                synchronized (this) {
+                    changedDuringLoad = null;
+                }
+            }
+        }
+    }
+
+    // Move the loaded mark past the rows read and schedule them
+    private synchronized void merge(List<Reminder> rows, int limit, long horizon) {
+        if (rows.size() < limit) {
+            // Everything before the horizon is in
+            loadedAt = horizon - 1;
+            loadedId = Integer.MAX_VALUE;
+        } else {
+            Reminder last = rows.get(rows.size() - 1);
+            loadedAt = last.remindAt();
+            loadedId = last.taskId();
+        }
+        for (Reminder reminder : rows) {
+            // A change after the read is newer than the row
+            if (!changedDuringLoad.containsKey(reminder.taskId())) {
+                apply(reminder.taskId(), reminder);
+            }
+        }
+        // and may now fall inside the extended window
+        changedDuringLoad.forEach(this::apply);
+        changedDuringLoad = null;
+        loads.increment();
+    }
+
+    // Mark the batch fired in one transaction, then deliver the ones that were still due
+    private void fire(List<Reminder> due) {
+        long now = System.currentTimeMillis() / 1000;
+        List<Reminder> marked = new ArrayList<>();
+        List<Reminder> deliver = new ArrayList<>();
+        try {
+            TodoAppDatabase.executeWrite(shard, conn -> {
+                marked.clear();
+                deliver.clear();
+                PreparedStatement pstmt = conn.prepare(FIRE_SQL);
+                for (Reminder reminder : due) {
+                    pstmt.setLong(1, now);
+                    pstmt.setInt(2, reminder.taskId());
+                    pstmt.setLong(3, reminder.remindAt());
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            marked.add(reminder);
+                            if (!"completed".equals(rs.getString("status"))) {
+                                deliver.add(reminder);
+                            }
+                        }
+                    }
+                }
+                return marked.size();
+            });
+        } catch (SQLException e) {
+            // Still unfired in the table, but behind the loaded mark: only the wheel will retry them
+            System.out.println("Fire reminders failed: " + e.getMessage());
+            retry(due);
+            return;
+        }
+        fireFailures = 0;
+        fired.add(marked.size());
+        stale.add(due.size() - marked.size());
+
+        for (Reminder reminder : deliver) {
+            System.out.println("Reminder: task #" + reminder.taskId() + " for user " + reminder.userId()
+                    + (reminder.remindAt() < now - 60 ? " (missed, was due " + (now - reminder.remindAt()) + "s ago)" : ""));
+            events.tasksChanged(reminder.userId(), "reminder", List.of(reminder.taskId()));
+            delivered.increment();
+        }
+    }
+
+    // Put a batch that failed to fire back on the wheel, after a tick at first and then twice as
+    // long each time in a row, up to MAX_RETRY_MILLIS
+    private synchronized void retry(List<Reminder> due) {
+        long delayMillis = Math.min(config.tickMillis << Math.min(fireFailures, 20), MAX_RETRY_MILLIS);
+        fireFailures++;
+        long retryAt = System.currentTimeMillis() + delayMillis;
+        for (Reminder reminder : due) {
+            // Rescheduled by changed() while firing: that timer is newer. One it cleared comes back
+            // here, but then no longer matches its row and is dropped as stale when retried.
+            if (!timeouts.containsKey(reminder.taskId())) {
+                timeouts.put(reminder.taskId(), wheel.schedule(retryAt, reminder));
+                retried.increment();
+            }
+        }
+    }
+
+    public String shardName() {
+        return shard.name();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(timeouts.size(), loadedAt, loads.sum(), fired.sum(), delivered.sum(), stale.sum(), retried.sum());
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdown();
+    }
+}
@@ -0,0 +1,187 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+// Offline tool: moves a database's tasks to a new number of task shards (see Shards).
+//   reshard <shards> [db file]
+// Run it with the app stopped. Tasks are copied, ids and all, from the current single file or
+// shard files into fresh shard-<i>-of-<shards> files, where the triggers rebuild their
+// counters, closure rows and search index; the copy is verified, and only then is the new
+// count recorded in the directory, which is the switch-over. The old task data is left as it
+// was, so an interrupted or failed run changes nothing; delete the old files once the app runs
+// on the new ones (a single file's own task tables are simply no longer read).
+public class Reshard {
+    private static final String COLUMNS = "id, user_id, title, description, priority, status, parent_task_id, "
+            + "version, created_at, due_at, remind_at, reminded_at";
+    private static final int COLUMN_COUNT = 12;
+    private static final int BATCH_SIZE = 10_000;
+
+    public static void main(String[] args) throws SQLException, IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: reshard <shards> [db file]");
+            return;
+        }
+        int target = Integer.parseInt(args[0]);
+        String path = args.length > 1 ? args[1] : System.getProperty("todo.db.path", "todo_app.db");
+        if (target < 1) {
+            System.out.println("Shard count must be at least 1");
+            return;
+        }
+        StorageMode mode = StorageMode.fromSystemProperties();
+        ConnectionPool.Config poolConfig = ConnectionPool.Config.fromSystemProperties()
+                .withInitStatements(List.of("PRAGMA busy_timeout = 5000"));
+
+        try (Shard directory = new Shard("main", path, 0, 0, poolConfig);
+             PooledConnection conn = directory.borrow()) {
+            Integer recorded = Shards.readLayout(conn);
+            int current = recorded != null ? recorded : 0;
+            if (current == target) {
+                System.out.println(path + " already has " + target + " task shards");
+                return;
+            }
+
+            List<String> sources = new ArrayList<>();
+            if (current == 0) {
+                sources.add(path);
+            }
+            for (int i = 0; i < current; i++) {
+                sources.add(Shards.taskShardPath(path, i, current));
+            }
+            List<Shard> targets = new ArrayList<>();
+            try {
+                long floor = maxTaskId(sources, poolConfig);
+                for (int i = 0; i < target; i++) {
+                    targets.add(createTarget(path, i, target, floor, poolConfig, mode));
+                }
+                long copied = 0;
+                for (String source : sources) {
+                    copied += copy(source, targets, poolConfig);
+                }
+                verify(targets, copied);
+
+                Shards.writeLayout(conn, target);
+                System.out.println("Switched " + path + " to " + target + " task shards (" + copied + " tasks)");
+                System.out.println("Old task data, no longer read: " + String.join(", ", sources));
+            } finally {
+                for (Shard shard : targets) {
+                    shard.close();
+                }
+            }
+        }
+    }
+
+    // Highest task id in any source: the new shards only hand out ids above it
+    private static long maxTaskId(List<String> sources, ConnectionPool.Config poolConfig) throws SQLException {
+        long max = 0;
+        for (String source : sources) {
+            try (Shard shard = new Shard(source, source, 0, 0, poolConfig);
+                 PooledConnection conn = shard.borrow();
+                 Statement stmt = conn.raw().createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM tasks")) {
+                max = Math.max(max, rs.next() ? rs.getLong(1) : 0);
+            }
+        }
+        return max;
+    }
+
+    // A new, empty shard file with the task schema; leftovers from an earlier run are removed,
+    // as no layout points at them
+    private static Shard createTarget(String path, int index, int count, long floor,
+                                      ConnectionPool.Config poolConfig, StorageMode mode) throws SQLException, IOException {
+        String file = Shards.taskShardPath(path, index, count);
+        for (String suffix : List.of("", "-wal", "-shm")) {
+            if (Files.deleteIfExists(Path.of(file + suffix))) {
+                System.out.println("Removed leftover " + file + suffix);
+            }
+        }
+        Shard shard = new Shard(index + "-of-" + count, file, index, count, poolConfig);
+        try (PooledConnection conn = shard.borrow()) {
+            TodoAppDatabase.initializeTaskTables(conn, mode);
+            try (Statement stmt = conn.raw().createStatement()) {
+                stmt.execute(Shard.CREATE_INFO);
+            }
+            Shard.writeInfo(conn, index, count, floor);
+        }
+        return shard;
+    }
+
+    // Copy every task of one source to its user's new shard, in id order so parents always
+    // exist before their subtasks; commits all targets every BATCH_SIZE rows
+    private static long copy(String source, List<Shard> targets, ConnectionPool.Config poolConfig) throws SQLException {
+        System.out.println("Copying tasks from " + source + "...");
+        List<PooledConnection> conns = new ArrayList<>();
+        try (Shard shard = new Shard(source, source, 0, 0, poolConfig);
+             PooledConnection in = shard.borrow()) {
+            for (Shard target : targets) {
+                PooledConnection conn = target.borrow();
+                conns.add(conn);
+                conn.raw().setAutoCommit(false);
+            }
+            String insert = "INSERT INTO tasks (" + COLUMNS + ") VALUES (?" + ", ?".repeat(COLUMN_COUNT - 1) + ")";
+            long rows = 0;
+            try (Statement stmt = in.raw().createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT " + COLUMNS + " FROM tasks ORDER BY id")) {
+                while (rs.next()) {
+                    PooledConnection out = conns.get(Shards.indexFor(rs.getInt("user_id"), targets.size()));
+                    PreparedStatement pstmt = out.prepare(insert);
+                    for (int i = 1; i <= COLUMN_COUNT; i++) {
+                        pstmt.setObject(i, rs.getObject(i));
+                    }
+                    pstmt.executeUpdate();
+                    if (++rows % BATCH_SIZE == 0) {
+                        commit(conns);
+                        System.out.println("  " + rows + " tasks");
+                    }
+                }
+            }
+            commit(conns);
+            return rows;
+        } catch (SQLException e) {
+            for (PooledConnection conn : conns) {
+                conn.raw().rollback();
+            }
+            throw e;
+        } finally {
+            for (PooledConnection conn : conns) {
+                conn.raw().setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
+    private static void commit(List<PooledConnection> conns) throws SQLException {
+        for (PooledConnection conn : conns) {
+            conn.raw().commit();
+        }
+    }
+
+    // Every task arrived, and the trigger-maintained counters agree with the tasks
+    private static void verify(List<Shard> targets, long copied) throws SQLException {
+        long total = 0;
+        for (Shard shard : targets) {
+            try (PooledConnection conn = shard.borrow()) {
+                try (Statement stmt = conn.raw().createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM tasks")) {
+                    long count = rs.next() ? rs.getLong(1) : 0;
+                    System.out.println("Shard " + shard.name() + ": " + count + " tasks");
+                    total += count;
+                }
+                List<TaskCounters.Drift> drift = TaskCounters.verify(conn);
+                if (!drift.isEmpty()) {
+                    throw new SQLException("Shard " + shard.name() + " has " + drift.size() + " user(s) with drifted task counters");
+                }
+            }
+        }
+        if (total != copied) {
+            throw new SQLException("Copied " + copied + " tasks but the shards hold " + total);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example;
+
+import io.javalin.http.Context;
+
+// Jetty's in-memory HTTP session: the single-node default
+public class ServletSessionStore implements SessionStore {
+    private static final String ATTRIBUTE = "session";
+
+    @Override
+    public Session load(Context ctx) {
+        return ctx.sessionAttribute(ATTRIBUTE);
+    }
+
+    @Override
+    public boolean start(Context ctx, Session session) {
+        ctx.sessionAttribute(ATTRIBUTE, session);
+        return true;
+    }
+
+    @Override
+    public void end(Context ctx) {
+        ctx.sessionAttribute(ATTRIBUTE, null);
+    }
+}
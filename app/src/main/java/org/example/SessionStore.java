@@ -0,0 +1,62 @@
+package com.example;
+
+import io.javalin.http.Context;
+import io.javalin.http.Cookie;
+import io.javalin.http.SameSite;
+
+// Who is logged in on a request, and where that is kept. Chosen with -Dtodo.session.mode:
+//   memory (default) - Jetty's in-memory HTTP session; lost on restart, tied to one node
+//   sqlite           - opaque cookie token, looked up in the sessions table (SqliteSessionStore)
+//   token            - HMAC-signed cookie carrying the session itself, no lookup (TokenSessionStore)
+// Routes go through TodoAppDatabase.currentSession(), which loads the session once per request.
+public interface SessionStore {
+
+    record Session(int userId, String username) {}
+
+    // Session settings, read from -Dtodo.session.* system properties
+    class Config {
+        String mode = "memory";
+        String cookieName = "todo_session";
+        long ttlSeconds = 7 * 24 * 3600;
+        long touchIntervalSeconds = 300;
+        long flushIntervalSeconds = 10;
+        boolean secureCookie = false;
+        String secret;
+
+        public static Config fromSystemProperties() {
+            Config config = new Config();
+            config.mode = System.getProperty("todo.session.mode", config.mode);
+            config.cookieName = System.getProperty("todo.session.cookieName", config.cookieName);
+            config.ttlSeconds = Long.getLong("todo.session.ttlSeconds", config.ttlSeconds);
+            config.touchIntervalSeconds = Long.getLong("todo.session.touchIntervalSeconds", config.touchIntervalSeconds);
+            config.flushIntervalSeconds = Long.getLong("todo.session.flushIntervalSeconds", config.flushIntervalSeconds);
+            config.secureCookie = Boolean.getBoolean("todo.session.secureCookie");
+            config.secret = System.getProperty("todo.session.secret");
+            return config;
+        }
+
+        Cookie cookie(String value, long maxAgeSeconds) {
+            return new Cookie(cookieName, value, "/", (int) maxAgeSeconds, secureCookie, 0, true,
+                    null, null, SameSite.LAX);
+        }
+    }
+
+    // The request's session, or null if not logged in
+    Session load(Context ctx);
+
+    // Log the request in as session; false if it could not be stored, in which case no cookie
+    // was set and the request is not logged in
+    boolean start(Context ctx, Session session);
+
+    void end(Context ctx);
+
+    static SessionStore create(Config config) {
+        return switch (config.mode.toLowerCase()) {
+            case "sqlite" -> new SqliteSessionStore(config);
+            case "token" -> new TokenSessionStore(config);
+            case "memory" -> new ServletSessionStore();
+            default -> throw new IllegalArgumentException(
+                    "Unknown todo.session.mode '" + config.mode + "', expected memory, sqlite or token");
+        };
+    }
+}
@@ -0,0 +1,172 @@
+package com.example;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// One SQLite file with its own connection pool and, in WAL mode, its own writer thread.
+// Shards routes each user's tasks to one of these; see there for the layout.
+public class Shard implements AutoCloseable {
+
+    public record Stats(String name, ConnectionPool.Stats pool, WriteQueue.Stats writer) {}
+
+    // Records which shard of how many a task file is, and the task id allocation floor
+    static final String CREATE_INFO = """
+        CREATE TABLE IF NOT EXISTS shard_info (
+            shard INTEGER NOT NULL,
+            shards INTEGER NOT NULL,
+            id_floor INTEGER NOT NULL
+        )
+        """;
+
+    private final String name;
+    private final int index;
+    private final int count;
+    private final ConnectionPool pool;
+    // Null in ROLLBACK mode (writes use the pool), and outside startWriter() .. stopWriter()
+    private volatile WriteQueue writer;
+    // SQL for the id of the next task inserted here; NULL lets AUTOINCREMENT pick it
+    private String nextTaskId = "NULL";
+
+    // count is the number of task shards, or 0 for the single file that holds everything
+    Shard(String name, String path, int index, int count, ConnectionPool.Config poolConfig) {
+        this.name = name;
+        this.index = index;
+        this.count = count;
+        this.pool = new ConnectionPool("jdbc:sqlite:" + path, poolConfig);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int index() {
+        return index;
+    }
+
+    public PooledConnection borrow() throws SQLException {
+        return pool.borrow();
+    }
+
+    // Route writes through a single writer thread from now on (WAL mode)
+    void startWriter(WriteQueue.Config config) throws SQLException {
+        writer = new WriteQueue(pool::openDedicated, config, count == 0 ? "db-writer" : "db-writer-" + name);
+    }
+
+    // Commit what is queued and stop the writer; later writes use the pool
+    void stopWriter() {
+        WriteQueue stopping = writer;
+        if (stopping != null) {
+            writer = null;
+            stopping.close();
+        }
+    }
+
+    // Run a read on a pooled connection. One that fails with a fatal error is discarded when it
+    // is returned, so the next borrower gets a fresh connection rather than the same failure.
+    <T> T read(WriteQueue.WriteOp<T> op) throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            try {
+                return op.apply(conn);
+            } catch (SQLException e) {
+                conn.markBrokenIfFatal(e);
+                throw e;
+            }
+        }
+    }
+
+    // Run a write and wait for it to commit: through the writer (grouped with other queued
+    // writes), or in its own transaction on a pooled connection when there is none
+    <T> T write(WriteQueue.WriteOp<T> op) throws SQLException {
+        WriteQueue writer = this.writer;
+        if (writer != null) {
+            return writer.execute(op);
+        }
+        try (PooledConnection conn = pool.borrow()) {
+            conn.raw().setAutoCommit(false);
+            try {
+                T result = op.apply(conn);
+                conn.raw().commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                if (e instanceof SQLException sqlException) {
+                    conn.markBrokenIfFatal(sqlException);
+                }
+                conn.raw().rollback();
+                throw e;
+            } finally {
+                conn.raw().setAutoCommit(true);
+            }
+        }
+    }
+
+    // Writes waiting for this file: queued for the writer, or for a connection without one
+    public int queuedWrites() {
+        WriteQueue writer = this.writer;
+        return writer != null ? writer.stats().queued() : pool.stats().waiting();
+    }
+
+    // Check (or on a new file, record) which shard this is and derive how it numbers tasks.
+    //
+    // Task ids must stay unique across shards, so that a reshard can move tasks without
+    // renumbering them (and every link to them). Shard i of n hands out only ids above the
+    // floor, the highest id that existed when the file was created, with id % n == i:
+    // (SELECT MAX(id)) is a rowid lookup, and the INSERT holds the write lock while it runs.
+    void initializeIds(PooledConnection conn) throws SQLException {
+        if (count == 0) {
+            return;
+        }
+        long floor;
+        try (Statement stmt = conn.raw().createStatement()) {
+            stmt.execute(CREATE_INFO);
+            try (ResultSet rs = stmt.executeQuery("SELECT shard, shards, id_floor FROM shard_info")) {
+                if (rs.next()) {
+                    if (rs.getInt("shard") != index || rs.getInt("shards") != count) {
+                        throw new IllegalStateException("Task file " + name + " holds shard " + rs.getInt("shard")
+                                + " of " + rs.getInt("shards") + ", expected " + index + " of " + count);
+                    }
+                    floor = rs.getLong("id_floor");
+                } else {
+                    floor = 0;
+                    writeInfo(conn, index, count, floor);
+                }
+            }
+        }
+        nextTaskId = "(SELECT b + 1 + ((" + index + " - b - 1) % " + count + " + " + count + ") % " + count
+                + " FROM (SELECT MAX(" + floor + ", COALESCE((SELECT MAX(id) FROM tasks), 0)) AS b))";
+    }
+
+    static void writeInfo(PooledConnection conn, int index, int count, long floor) throws SQLException {
+        PreparedStatement pstmt = conn.prepare("INSERT INTO shard_info (shard, shards, id_floor) VALUES (?, ?, ?)");
+        pstmt.setInt(1, index);
+        pstmt.setInt(2, count);
+        pstmt.setLong(3, floor);
+        pstmt.executeUpdate();
+    }
+
+    // Expression for the id column of an INSERT INTO tasks on this shard
+    public String nextTaskId() {
+        return nextTaskId;
+    }
+
+    public ConnectionPool pool() {
+        return pool;
+    }
+
+    // Null without a writer
+    public WriteQueue writer() {
+        return writer;
+    }
+
+    public Stats stats() {
+        WriteQueue writer = this.writer;
+        return new Stats(name, pool.stats(), writer != null ? writer.stats() : null);
+    }
+
+    @Override
+    public void close() {
+        stopWriter();
+        pool.close();
+    }
+}
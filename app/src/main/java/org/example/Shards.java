@@ -0,0 +1,147 @@
+package com.example;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+// Where users and tasks are stored (-Dtodo.db.shards).
+//
+// With 0 shards (the default) everything is in the one todo.db.path file, as it always was.
+// With n, that file becomes the directory, holding users and sessions, and each user's tasks
+// (with their counters, closure rows and search index) live in one of n task files next to
+// it, todo_app.shard-<i>-of-<n>.db, picked by hashing the user id. Every file has its own
+// connection pool and writer thread, so writes for users on different shards commit in
+// parallel instead of queueing for one database lock.
+//
+// The directory records the shard count; starting with a different -Dtodo.db.shards would
+// send users to shards that do not hold their tasks, so it is refused. Reshard moves an
+// existing database to another count offline.
+public class Shards implements AutoCloseable {
+
+    static final String CREATE_LAYOUT = "CREATE TABLE IF NOT EXISTS shard_layout (shards INTEGER NOT NULL)";
+
+    private final Shard directory;
+    private final List<Shard> taskShards = new ArrayList<>();
+
+    public Shards(String path, int count, ConnectionPool.Config poolConfig) {
+        this.directory = new Shard("main", path, 0, 0, poolConfig);
+        if (count == 0) {
+            taskShards.add(directory);
+        }
+        for (int i = 0; i < count; i++) {
+            taskShards.add(new Shard(i + "-of-" + count, taskShardPath(path, i, count), i, count, poolConfig));
+        }
+    }
+
+    // Number of task shards to run with, from -Dtodo.db.shards
+    public static int configuredCount() {
+        return Integer.getInteger("todo.db.shards", 0);
+    }
+
+    // The file holding users and sessions (and, unsharded, everything)
+    public Shard directory() {
+        return directory;
+    }
+
+    // The file holding this user's tasks
+    public Shard forUser(int userId) {
+        return taskShards.get(indexFor(userId, taskShards.size()));
+    }
+
+    public List<Shard> taskShards() {
+        return taskShards;
+    }
+
+    public boolean isSharded() {
+        return taskShards.get(0) != directory;
+    }
+
+    // Murmur3's finalizer, so users created together are spread out rather than striped
+    static int indexFor(int userId, int count) {
+        int h = userId;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, count);
+    }
+
+    static String taskShardPath(String path, int index, int count) {
+        String base = path.endsWith(".db") ? path.substring(0, path.length() - 3) : path;
+        return base + ".shard-" + index + "-of-" + count + ".db";
+    }
+
+    // The shard count recorded in the directory, or null if none has been yet
+    static Integer readLayout(PooledConnection conn) throws SQLException {
+        try (Statement stmt = conn.raw().createStatement()) {
+            stmt.execute(CREATE_LAYOUT);
+            try (ResultSet rs = stmt.executeQuery("SELECT shards FROM shard_layout")) {
+                return rs.next() ? rs.getInt("shards") : null;
+            }
+        }
+    }
+
+    static void writeLayout(PooledConnection conn, int count) throws SQLException {
+        try (Statement stmt = conn.raw().createStatement()) {
+            stmt.execute(CREATE_LAYOUT);
+            stmt.execute("DELETE FROM shard_layout");
+        }
+        PreparedStatement pstmt = conn.prepare("INSERT INTO shard_layout (shards) VALUES (?)");
+        pstmt.setInt(1, count);
+        pstmt.executeUpdate();
+    }
+
+    // Make sure the directory was laid out for count shards, recording it on first start.
+    // A single-file database that already has tasks must be resharded, not just restarted.
+    static void checkLayout(PooledConnection conn, int count) throws SQLException {
+        Integer recorded = readLayout(conn);
+        if (recorded == null) {
+            if (count > 0 && hasTasks(conn)) {
+                throw new IllegalStateException("Database has tasks in a single file; run Reshard to split it into "
+                        + count + " shards before starting with -Dtodo.db.shards=" + count);
+            }
+            writeLayout(conn, count);
+        } else if (recorded != count) {
+            throw new IllegalStateException("Database is laid out for " + recorded + " task shards, but -Dtodo.db.shards="
+                    + count + "; start with " + recorded + " or run Reshard");
+        }
+    }
+
+    private static boolean hasTasks(PooledConnection conn) throws SQLException {
+        try (Statement stmt = conn.raw().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type = 'table' AND name = 'tasks'")) {
+            if (!rs.next()) {
+                return false;
+            }
+        }
+        try (Statement stmt = conn.raw().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT EXISTS (SELECT 1 FROM tasks)")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    public List<Shard.Stats> stats() {
+        List<Shard.Stats> stats = new ArrayList<>();
+        if (isSharded()) {
+            stats.add(directory.stats());
+        }
+        for (Shard shard : taskShards) {
+            stats.add(shard.stats());
+        }
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        if (isSharded()) {
+            directory.close();
+        }
+        for (Shard shard : taskShards) {
+            shard.close();
+        }
+    }
+}
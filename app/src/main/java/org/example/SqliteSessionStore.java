@@ -0,0 +1,209 @@
+package com.example;
+
+import io.javalin.http.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Sessions in the sessions table, so they survive restarts and every node sharing the database
+// sees them. The cookie holds a random 256-bit token; the table holds only its SHA-256 (32 bytes),
+// the user id and the expiry, keyed WITHOUT ROWID on the hash.
+// Expiry slides on use, but not with a write per request: a session is only "touched" once it
+// has gone touchIntervalSeconds without one, and touches are collected in memory and written by a
+// background flush every flushIntervalSeconds, in one transaction, together with expired-row cleanup.
+public class SqliteSessionStore implements SessionStore, AutoCloseable {
+
+    static final String[] CREATE_STATEMENTS = {
+        """
+        CREATE TABLE IF NOT EXISTS sessions (
+            token_hash BLOB PRIMARY KEY,
+            user_id INTEGER NOT NULL,
+            expires_at INTEGER NOT NULL
+        ) WITHOUT ROWID
+        """,
+        "CREATE INDEX IF NOT EXISTS idx_sessions_expires ON sessions(expires_at)"
+    };
+
+    private static final String LOAD_SQL = """
+        SELECT s.user_id, u.username, s.expires_at
+        FROM sessions s JOIN users u ON u.id = s.user_id
+        WHERE s.token_hash = ? AND s.expires_at > ?
+        """;
+
+    private final Config config;
+    private final SecureRandom random = new SecureRandom();
+
+    // base64 token hash -> new expiry, waiting for the next flush
+    private final Map<String, Long> pendingTouches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public SqliteSessionStore(Config config) {
+        this.config = config;
+        try (PooledConnection conn = TodoAppDatabase.borrowConnection();
+             Statement stmt = conn.raw().createStatement()) {
+            for (String sql : CREATE_STATEMENTS) {
+                stmt.execute(sql);
+            }
+        } catch (SQLException e) {
+            System.out.println("Session table creation failed: " + e.getMessage());
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, config.flushIntervalSeconds,
+                config.flushIntervalSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "session-flusher-shutdown"));
+    }
+
+    @Override
+    public Session load(Context ctx) {
+        String token = ctx.cookie(config.cookieName);
+        return token != null ? load(token) : null;
+    }
+
+    // The live session for a cookie token, or null
+    Session load(String token) {
+        byte[] tokenHash = hash(token);
+        long now = System.currentTimeMillis() / 1000;
+
+        try {
+            return TodoAppDatabase.executeRead(conn -> {
+                PreparedStatement pstmt = conn.prepare(LOAD_SQL);
+                pstmt.setBytes(1, tokenHash);
+                pstmt.setLong(2, now);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    long expiresAt = rs.getLong("expires_at");
+                    if (now + config.ttlSeconds - expiresAt >= config.touchIntervalSeconds) {
+                        pendingTouches.put(Base64.getEncoder().encodeToString(tokenHash), now + config.ttlSeconds);
+                    }
+                    return new Session(rs.getInt("user_id"), rs.getString("username"));
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("Load session failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public boolean start(Context ctx, Session session) {
+        String token = create(session);
+        if (token == null) {
+            return false;
+        }
+        ctx.cookie(config.cookie(token, config.ttlSeconds));
+        return true;
+    }
+
+    // Store a new session and return its cookie token, or null if it could not be stored
+    String create(Session session) {
+        byte[] tokenBytes = new byte[32];
+        random.nextBytes(tokenBytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+        long expiresAt = System.currentTimeMillis() / 1000 + config.ttlSeconds;
+
+        try {
+            TodoAppDatabase.executeWrite(conn -> {
+                PreparedStatement pstmt = conn.prepare(
+                        "INSERT INTO sessions (token_hash, user_id, expires_at) VALUES (?, ?, ?)");
+                pstmt.setBytes(1, hash(token));
+                pstmt.setInt(2, session.userId());
+                pstmt.setLong(3, expiresAt);
+                return pstmt.executeUpdate();
+            });
+            return token;
+        } catch (SQLException e) {
+            System.out.println("Start session failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void end(Context ctx) {
+        String token = ctx.cookie(config.cookieName);
+        if (token != null) {
+            byte[] tokenHash = hash(token);
+            pendingTouches.remove(Base64.getEncoder().encodeToString(tokenHash));
+            try {
+                TodoAppDatabase.executeWrite(conn -> {
+                    PreparedStatement pstmt = conn.prepare("DELETE FROM sessions WHERE token_hash = ?");
+                    pstmt.setBytes(1, tokenHash);
+                    return pstmt.executeUpdate();
+                });
+            } catch (SQLException e) {
+                System.out.println("End session failed: " + e.getMessage());
+            }
+        }
+        ctx.removeCookie(config.cookieName, "/");
+    }
+
+    // Write the collected expiry extensions and drop expired sessions, in one transaction
+    void flush() {
+        Map<String, Long> touches = new java.util.HashMap<>();
+        Iterator<Map.Entry<String, Long>> it = pendingTouches.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            touches.put(entry.getKey(), entry.getValue());
+            it.remove();
+        }
+        long now = System.currentTimeMillis() / 1000;
+
+        try {
+            TodoAppDatabase.executeWrite(conn -> {
+                if (!touches.isEmpty()) {
+                    PreparedStatement touch = conn.prepare(
+                            "UPDATE sessions SET expires_at = ? WHERE token_hash = ? AND expires_at < ?");
+                    try {
+                        for (Map.Entry<String, Long> entry : touches.entrySet()) {
+                            touch.setLong(1, entry.getValue());
+                            touch.setBytes(2, Base64.getDecoder().decode(entry.getKey()));
+                            touch.setLong(3, entry.getValue());
+                            touch.addBatch();
+                        }
+                        touch.executeBatch();
+                    } finally {
+                        touch.clearBatch();
+                    }
+                }
+                PreparedStatement expire = conn.prepare("DELETE FROM sessions WHERE expires_at <= ?");
+                expire.setLong(1, now);
+                return expire.executeUpdate();
+            });
+        } catch (SQLException e) {
+            System.out.println("Session flush failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    private static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example;
+
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Serves the fingerprinted CSS/JS that the fingerprintAssets Gradle task builds from
+// src/main/assets. Templates link to them through #assets.url('css/tasks.css'), which
+// resolves to the content-hashed file, so responses can be cached forever.
+public class StaticAssets {
+    private static final String PREFIX = "/assets/";
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    // Logical name (css/tasks.css) -> hashed name (css/tasks.07ebfc616df4.css)
+    private final Map<String, String> manifest;
+
+    // Hashed name (plus .gz/.br suffix) -> bytes; a missing variant is cached as an empty array
+    private final Map<String, byte[]> contents = new ConcurrentHashMap<>();
+
+    private StaticAssets(Map<String, String> manifest) {
+        this.manifest = manifest;
+    }
+
+    public static StaticAssets load() {
+        Map<String, String> manifest = new ConcurrentHashMap<>();
+        try (InputStream in = StaticAssets.class.getResourceAsStream(PREFIX + "manifest.properties")) {
+            if (in == null) {
+                System.out.println("Asset manifest not found; run the fingerprintAssets Gradle task");
+            } else {
+                Properties properties = new Properties();
+                properties.load(in);
+                for (String name : properties.stringPropertyNames()) {
+                    manifest.put(name, properties.getProperty(name));
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Asset manifest could not be read: " + e.getMessage());
+        }
+        return new StaticAssets(manifest);
+    }
+
+    // URL of the current build of a logical asset, e.g. url("css/tasks.css")
+    public String url(String logicalName) {
+        return PREFIX + manifest.getOrDefault(logicalName, logicalName);
+    }
+
+    public void register(Javalin app) {
+        app.get(PREFIX + "<path>", this::serve);
+    }
+
+    private void serve(Context ctx) throws IOException {
+        String path = ctx.pathParam("path");
+        if (path.contains("..") || !manifest.containsValue(path)) {
+            ctx.status(404).result("Not found");
+            return;
+        }
+
+        // Prefer the smallest precompressed variant the client accepts, unless it weights gzip
+        // higher; a coding with q=0 is never used (.gz is always built, .br only with the CLI)
+        String acceptEncoding = ctx.header("Accept-Encoding");
+        double brotli = AcceptEncoding.quality(acceptEncoding, "br");
+        double gzip = AcceptEncoding.quality(acceptEncoding, "gzip");
+        String encoding = null;
+        byte[] body = null;
+        if (brotli > 0 && brotli >= gzip) {
+            body = read(path + ".br");
+            encoding = body.length > 0 ? "br" : null;
+        }
+        if (encoding == null && gzip > 0) {
+            body = read(path + ".gz");
+            encoding = body.length > 0 ? "gzip" : null;
+        }
+        if (encoding == null) {
+            body = read(path);
+        }
+
+        // Written straight to the servlet stream so Javalin does not compress it a second time
+        var res = ctx.res();
+        res.setStatus(200);
+        res.setContentType(contentType(path));
+        res.setHeader("Cache-Control", IMMUTABLE);
+        res.setHeader("Vary", "Accept-Encoding");
+        if (encoding != null) {
+            res.setHeader("Content-Encoding", encoding);
+        }
+        res.setContentLength(body.length);
+        try (OutputStream out = res.getOutputStream()) {
+            out.write(body);
+        }
+    }
+
+    private byte[] read(String name) {
+        return contents.computeIfAbsent(name, key -> {
+            try (InputStream in = StaticAssets.class.getResourceAsStream(PREFIX + key)) {
+                return in != null ? in.readAllBytes() : new byte[0];
+            } catch (IOException e) {
+                System.out.println("Asset read failed: " + e.getMessage());
+                return new byte[0];
+            }
+        });
+    }
+
+    private static String contentType(String path) {
+        if (path.endsWith(".css")) return "text/css; charset=utf-8";
+        if (path.endsWith(".js")) return "text/javascript; charset=utf-8";
+        if (path.endsWith(".svg")) return "image/svg+xml";
+        if (path.endsWith(".png")) return "image/png";
+        return "application/octet-stream";
+    }
+}
@@ -0,0 +1,19 @@
+package com.example;
+
+// How the SQLite file is opened and how writes reach it (-Dtodo.db.mode)
+public enum StorageMode {
+    // Classic rollback journal; every helper writes on its own pooled connection
+    ROLLBACK,
+    // WAL journal; reads use the pool concurrently, writes go through one WriteQueue thread
+    WAL;
+
+    public static StorageMode fromSystemProperties() {
+        String mode = System.getProperty("todo.db.mode", "wal");
+        try {
+            return valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown todo.db.mode '" + mode + "', using WAL");
+            return WAL;
+        }
+    }
+}
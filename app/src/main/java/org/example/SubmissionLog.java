@@ -0,0 +1,445 @@
+package com.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Durable log of the contact form and registration submissions from Main.
+// Request handlers only offer() into a bounded in-memory queue and return; one writer thread
+// drains it in batches, appends each batch to the current segment file and fsyncs once per
+// batch (group commit), the same shape as WriteQueue for SQLite.
+//
+// Segments are segment-<seq>.log in todo.submissions.dir: a 16-byte header (magic, version,
+// and the first sequence number the segment covers) followed by records framed as
+//   [int length][int CRC32 of body][body]
+// where the body is kind, timestamp and the field name/value pairs. A segment is sealed once
+// it passes segmentBytes and a new one is started. A torn record at the end of the newest
+// segment (crash mid-write) is cut off when the log is opened.
+//
+// compact() rewrites the sealed segments into one, keeping only the newest registration per
+// email and dropping forms older than retentionDays (if set). The compacted file records which
+// segments it replaces, so a crash half-way through never replays a record twice.
+//
+//   ./gradlew :app:submissions --args="replay|compact [dir]"   (with Main stopped)
+public class SubmissionLog implements AutoCloseable {
+    private static final int MAGIC = 0x534C4F47; // "SLOG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    // Log settings, read from -Dtodo.submissions.* system properties
+    public static class Config {
+        Path dir = Path.of("submissions");
+        int queueCapacity = 4096;
+        int maxBatchSize = 256;
+        long segmentBytes = 16L * 1024 * 1024;
+        int retentionDays = 0;
+
+        public static Config fromSystemProperties() {
+            Config config = new Config();
+            config.dir = Path.of(System.getProperty("todo.submissions.dir", config.dir.toString()));
+            config.queueCapacity = Integer.getInteger("todo.submissions.queueCapacity", config.queueCapacity);
+            config.maxBatchSize = Integer.getInteger("todo.submissions.maxBatchSize", config.maxBatchSize);
+            config.segmentBytes = Long.getLong("todo.submissions.segmentBytes", config.segmentBytes);
+            config.retentionDays = Integer.getInteger("todo.submissions.retentionDays", config.retentionDays);
+            return config;
+        }
+    }
+
+    public record Submission(String kind, long timestamp, Map<String, String> fields) {}
+
+    public record Stats(int queued, long appended, long rejected, long batches, int segments) {}
+
+    public record CompactionResult(int segments, long recordsBefore, long recordsAfter) {}
+
+    private final Config config;
+    private final BlockingQueue<Submission> queue;
+    private final Thread thread;
+
+    // seq -> path, guarded by itself; the last entry is the active segment
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private FileChannel active;
+    private long activeSeq;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private volatile boolean running = true;
+
+    public SubmissionLog(Config config) throws IOException {
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.queueCapacity);
+        Files.createDirectories(config.dir);
+        loadSegments();
+        openActive();
+        this.thread = new Thread(this::run, "submission-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // Queue a submission for writing; false (and nothing queued) when the queue is full or closed
+    public boolean offer(String kind, Map<String, String> fields) {
+        if (!running || !queue.offer(new Submission(kind, System.currentTimeMillis(), fields))) {
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public Stats stats() {
+        synchronized (segments) {
+            return new Stats(queue.size(), appended.sum(), rejected.sum(), batches.sum(), segments.size());
+        }
+    }
+
+    // Every record written so far, oldest first (queued ones are not included)
+    public void replay(Consumer<Submission> consumer) throws IOException {
+        List<Path> paths;
+        synchronized (segments) {
+            paths = new ArrayList<>(segments.values());
+        }
+        for (Path path : paths) {
+            readSegment(path, consumer);
+        }
+    }
+
+    public CompactionResult compact() throws IOException {
+        List<Map.Entry<Long, Path>> sealed;
+        List<Path> all;
+        synchronized (segments) {
+            sealed = new ArrayList<>(segments.headMap(activeSeq, false).entrySet());
+            all = new ArrayList<>(segments.values());
+        }
+        if (sealed.isEmpty()) {
+            return new CompactionResult(0, 0, 0);
+        }
+
+        // Newest registration per email across the whole log, including the active segment
+        Map<String, Long> newestRegistration = new HashMap<>();
+        for (Path path : all) {
+            readSegment(path, s -> {
+                String key = registrationKey(s);
+                if (key != null) {
+                    newestRegistration.merge(key, s.timestamp(), Math::max);
+                }
+            });
+        }
+
+        long cutoff = config.retentionDays > 0
+                ? System.currentTimeMillis() - TimeUnit.DAYS.toMillis(config.retentionDays) : Long.MIN_VALUE;
+        List<Submission> kept = new ArrayList<>();
+        long[] before = {0};
+        for (Map.Entry<Long, Path> segment : sealed) {
+            readSegment(segment.getValue(), s -> {
+                before[0]++;
+                String key = registrationKey(s);
+                if (key != null ? s.timestamp() >= newestRegistration.get(key) : s.timestamp() >= cutoff) {
+                    kept.add(s);
+                }
+            });
+        }
+
+        long firstSeq = sealed.get(0).getKey();
+        long lastSeq = sealed.get(sealed.size() - 1).getKey();
+        Path target = segmentPath(lastSeq);
+        Path tmp = config.dir.resolve(target.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            writeFully(out, header(firstSeq));
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            for (Submission s : kept) {
+                encode(s, buffer);
+            }
+            writeFully(out, ByteBuffer.wrap(buffer.toByteArray()));
+            out.force(true);
+        }
+        // Replacing the last sealed segment is the commit point; the older ones it covers go after
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        synchronized (segments) {
+            for (Map.Entry<Long, Path> segment : sealed) {
+                if (segment.getKey() != lastSeq) {
+                    Files.deleteIfExists(segment.getValue());
+                    segments.remove(segment.getKey());
+                }
+            }
+        }
+        return new CompactionResult(sealed.size(), before[0], kept.size());
+    }
+
+    // Stops taking submissions and waits for the queued ones to be written. The writer is not
+    // interrupted: that would close the FileChannel under it mid-write.
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            active.close();
+        } catch (IOException e) {
+            System.out.println("Close submission log failed: " + e.getMessage());
+        }
+    }
+
+    private void run() {
+        List<Submission> batch = new ArrayList<>(config.maxBatchSize);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, config.maxBatchSize - batch.size());
+            if (batch.isEmpty()) {
+                continue;
+            }
+
+            buffer.reset();
+            for (Submission s : batch) {
+                encode(s, buffer);
+            }
+            try {
+                writeFully(active, ByteBuffer.wrap(buffer.toByteArray()));
+                active.force(false);
+                appended.add(batch.size());
+                batches.increment();
+                if (active.size() >= config.segmentBytes) {
+                    roll();
+                }
+            } catch (IOException e) {
+                System.out.println("Submission log write failed, " + batch.size() + " lost: " + e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    private void loadSegments() throws IOException {
+        try (var files = Files.list(config.dir)) {
+            for (Path path : files.toList()) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(".compact")) {
+                    // Interrupted compaction, never committed
+                    Files.delete(path);
+                } else if (name.startsWith("segment-") && name.endsWith(".log")) {
+                    segments.put(Long.parseLong(name.substring(8, name.length() - 4)), path);
+                }
+            }
+        }
+        // A compacted segment replaces every older one from the seq in its header: finish
+        // deleting those if the compaction that wrote it was cut short
+        for (Long seq : new ArrayList<>(segments.keySet())) {
+            Path path = segments.get(seq);
+            if (path == null) {
+                continue;
+            }
+            if (Files.size(path) < HEADER_BYTES) {
+                // Crashed while creating it, before any record could be written
+                Files.delete(path);
+                segments.remove(seq);
+                continue;
+            }
+            long coversFrom = readHeader(path);
+            for (Long covered : new ArrayList<>(segments.subMap(coversFrom, true, seq, false).keySet())) {
+                Files.deleteIfExists(segments.remove(covered));
+            }
+        }
+    }
+
+    private void openActive() throws IOException {
+        if (segments.isEmpty()) {
+            createSegment(1);
+            return;
+        }
+        activeSeq = segments.lastKey();
+        Path path = segments.get(activeSeq);
+        long validEnd = readSegment(path, s -> { });
+        active = FileChannel.open(path, StandardOpenOption.WRITE);
+        if (validEnd < active.size()) {
+            System.out.println("Submission log: dropping " + (active.size() - validEnd)
+                    + " bytes of torn write at the end of " + path.getFileName());
+            active.truncate(validEnd);
+            active.force(true);
+        }
+        active.position(validEnd);
+    }
+
+    private void roll() throws IOException {
+        active.close();
+        createSegment(activeSeq + 1);
+    }
+
+    private void createSegment(long seq) throws IOException {
+        Path path = segmentPath(seq);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        writeFully(channel, header(seq));
+        channel.force(true);
+        synchronized (segments) {
+            segments.put(seq, path);
+            active = channel;
+            activeSeq = seq;
+        }
+    }
+
+    private Path segmentPath(long seq) {
+        return config.dir.resolve(String.format("segment-%020d.log", seq));
+    }
+
+    private static ByteBuffer header(long coversFrom) {
+        return ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putLong(coversFrom).flip();
+    }
+
+    private static long readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a submission log segment: " + path);
+            }
+            return header.getLong();
+        }
+    }
+
+    // Read every intact record; returns the offset just past the last one
+    private static long readSegment(Path path, Consumer<Submission> consumer) throws IOException {
+        readHeader(path);
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        data.position(HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        while (data.remaining() >= 8) {
+            int start = data.position();
+            int length = data.getInt();
+            int checksum = data.getInt();
+            if (length < 0 || length > MAX_RECORD_BYTES || length > data.remaining()) {
+                return start;
+            }
+            crc.reset();
+            crc.update(data.array(), data.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                return start;
+            }
+            ByteBuffer body = data.slice(data.position(), length);
+            data.position(data.position() + length);
+            consumer.accept(decode(body));
+        }
+        return data.position();
+    }
+
+    private static void encode(Submission s, ByteArrayOutputStream out) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        writeString(body, s.kind());
+        writeLong(body, s.timestamp());
+        writeInt(body, s.fields().size());
+        for (Map.Entry<String, String> field : s.fields().entrySet()) {
+            writeString(body, field.getKey());
+            writeString(body, field.getValue() != null ? field.getValue() : "");
+        }
+        byte[] bytes = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        writeInt(out, bytes.length);
+        writeInt(out, (int) crc.getValue());
+        out.writeBytes(bytes);
+    }
+
+    private static Submission decode(ByteBuffer body) {
+        String kind = readString(body);
+        long timestamp = body.getLong();
+        int count = body.getInt();
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            fields.put(readString(body), readString(body));
+        }
+        return new Submission(kind, timestamp, fields);
+    }
+
+    private static String registrationKey(Submission s) {
+        String email = s.fields().get("email");
+        return "registration".equals(s.kind()) && email != null && !email.isBlank()
+                ? email.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        writeInt(out, (int) (value >>> 32));
+        writeInt(out, (int) value);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String command = args.length > 0 ? args[0] : "replay";
+        Config config = Config.fromSystemProperties();
+        if (args.length > 1) {
+            config.dir = Path.of(args[1]);
+        }
+
+        try (SubmissionLog log = new SubmissionLog(config)) {
+            if ("replay".equals(command)) {
+                long[] count = {0};
+                log.replay(s -> {
+                    count[0]++;
+                    System.out.println(java.time.Instant.ofEpochMilli(s.timestamp()) + " " + s.kind() + " " + s.fields());
+                });
+                System.out.println(count[0] + " submission(s)");
+            } else if ("compact".equals(command)) {
+                CompactionResult result = log.compact();
+                System.out.println("Compacted " + result.segments() + " segment(s): "
+                        + result.recordsBefore() + " -> " + result.recordsAfter() + " records");
+            } else {
+                System.out.println("Unknown command '" + command + "', expected replay or compact");
+            }
+        }
+    }
+}
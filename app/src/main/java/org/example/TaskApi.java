@@ -0,0 +1,595 @@
+package com.example;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.Javalin;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.ConflictResponse;
+import io.javalin.http.Context;
+import io.javalin.http.ForbiddenResponse;
+import io.javalin.http.HandlerType;
+import io.javalin.http.InternalServerErrorResponse;
+import io.javalin.http.NotFoundResponse;
+import io.javalin.http.ServiceUnavailableResponse;
+import io.javalin.http.UnauthorizedResponse;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Versioned JSON API over the users and tasks tables, for clients that should not scrape HTML.
+//   POST  /api/v1/users                 (sign-up; the one route that needs no login)
+//   GET   /api/v1/users/me
+//   PATCH /api/v1/users/me              ({"username"}, {"email"}, or {"password", "currentPassword"})
+//   DELETE /api/v1/users/me             (the account and all its tasks)
+//   GET   /api/v1/users/{id}            (only your own; anyone else's is 404)
+//   GET   /api/v1/tasks?status=&priority=&cursor=&limit=
+//   POST  /api/v1/tasks
+//   POST  /api/v1/tasks/import   (see TaskImporter)
+//   POST  /api/v1/tasks/bulk
+//   GET   /api/v1/tasks/search?q=&limit=   (full-text, ranked, last word is a prefix)
+//   GET   /api/v1/tasks/{id}
+//   GET   /api/v1/tasks/{id}/tree        (task with all its subtasks, nested)
+//   POST  /api/v1/tasks/{id}/subtasks
+//   PATCH /api/v1/tasks/{id}
+//   PUT   /api/v1/tasks/{id}/status
+//   DELETE /api/v1/tasks/{id}?version=
+// dueAt and remindAt are epoch seconds (or null); a reminder fires once at remindAt, see ReminderScheduler.
+// There is no list of users: no one may see another user's record, so it would only ever hold yours.
+// Uses the same session login as the HTML pages. Writes take the task version the client last
+// saw ("version" in the body, or ?version= for DELETE) and answer 409 if it has changed since.
+public class TaskApi {
+    private static final String BASE = "/api/v1";
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 500;
+    private static final int MAX_BULK = 500;
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+    private static final int MAX_SEARCH_LIMIT = 50;
+    private static final Set<String> USER_PATCHABLE = Set.of("username", "email", "password", "currentPassword");
+    private static final Set<String> PATCHABLE = Set.of("title", "description", "priority", "status", "dueAt", "remindAt");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Generators write into the servlet stream, which Jetty closes itself
+    private static final JsonFactory JSON = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    public static void register(Javalin app) {
+        app.before(BASE + "/*", ctx -> {
+            boolean signUp = ctx.method() == HandlerType.POST && ctx.path().equals(BASE + "/users");
+            if (!signUp && TodoAppDatabase.currentSession(ctx) == null) {
+                throw new UnauthorizedResponse("Login required");
+            }
+        });
+
+        app.post(BASE + "/users", TaskApi::createUser);
+        app.get(BASE + "/users/me", TaskApi::currentUser);
+        app.patch(BASE + "/users/me", TaskApi::updateUser);
+        app.delete(BASE + "/users/me", TaskApi::deleteUser);
+        app.get(BASE + "/users/{id}", TaskApi::getUser);
+        TodoAppDatabase.taskEvents().register(app, BASE + "/events");
+        app.get(BASE + "/tasks", TaskApi::listTasks);
+        app.post(BASE + "/tasks", TaskApi::createTask);
+        app.post(BASE + "/tasks/import", TaskImporter::handle);
+        app.post(BASE + "/tasks/bulk", TaskApi::bulkChange);
+        app.get(BASE + "/tasks/search", TaskApi::searchTasks);
+        app.get(BASE + "/tasks/{id}", TaskApi::getTask);
+        app.get(BASE + "/tasks/{id}/tree", TaskApi::getTaskTree);
+        app.post(BASE + "/tasks/{id}/subtasks", TaskApi::createSubtask);
+        app.patch(BASE + "/tasks/{id}", TaskApi::updateTask);
+        app.put(BASE + "/tasks/{id}/status", TaskApi::updateStatus);
+        app.delete(BASE + "/tasks/{id}", TaskApi::deleteTask);
+    }
+
+    private static void currentUser(Context ctx) {
+        int userId = TodoAppDatabase.sessionUserId(ctx);
+        if (TodoAppDatabase.notModified(ctx)) {
+            return;
+        }
+        ctx.json(loadUser(userId));
+    }
+
+    private static void getUser(Context ctx) {
+        int userId = ctx.pathParamAsClass("id", Integer.class).get();
+        if (userId != TodoAppDatabase.sessionUserId(ctx)) {
+            throw new NotFoundResponse("User not found");
+        }
+        currentUser(ctx);
+    }
+
+    private static void createUser(Context ctx) {
+        JsonNode body = readObject(ctx);
+        String username = textField(body, "username");
+        String email = textField(body, "email");
+        String password = textField(body, "password");
+        if (username == null || username.isBlank()) {
+            throw new BadRequestResponse("username is required");
+        }
+        if (email == null || email.isBlank()) {
+            throw new BadRequestResponse("email is required");
+        }
+        if (password == null || password.isEmpty()) {
+            throw new BadRequestResponse("password is required");
+        }
+
+        int userId;
+        try {
+            userId = TodoAppDatabase.addUser(username.trim(), email.trim(), password);
+        } catch (PasswordHasher.Busy e) {
+            ctx.header("Retry-After", "1");
+            throw new ServiceUnavailableResponse("Too busy right now, please retry shortly");
+        }
+        if (userId < 0) {
+            throw new ConflictResponse("Username or email already exists");
+        }
+        ctx.status(201);
+        ctx.header("Location", BASE + "/users/" + userId);
+        ctx.json(loadUser(userId));
+    }
+
+    // Partial update of the logged-in user; a new password needs the current one
+    private static void updateUser(Context ctx) {
+        SessionStore.Session session = TodoAppDatabase.currentSession(ctx);
+        JsonNode body = readObject(ctx);
+        Iterator<String> fields = body.fieldNames();
+        while (fields.hasNext()) {
+            String field = fields.next();
+            if (!USER_PATCHABLE.contains(field)) {
+                throw new BadRequestResponse("Unknown or read-only field: " + field);
+            }
+        }
+        String username = textField(body, "username");
+        String email = textField(body, "email");
+        String password = textField(body, "password");
+        if (body.has("username") && (username == null || username.isBlank())) {
+            throw new BadRequestResponse("username cannot be empty");
+        }
+        if (body.has("email") && (email == null || email.isBlank())) {
+            throw new BadRequestResponse("email cannot be empty");
+        }
+        if (body.has("password") && (password == null || password.isEmpty())) {
+            throw new BadRequestResponse("password cannot be empty");
+        }
+
+        try {
+            if (password != null
+                    && !TodoAppDatabase.validateUser(session.username(), textField(body, "currentPassword"))) {
+                throw new ForbiddenResponse("currentPassword is not correct");
+            }
+            if (username != null && !username.trim().equals(session.username())) {
+                if (!TodoAppDatabase.renameUser(session.userId(), session.username(), username.trim())) {
+                    throw new ConflictResponse("Username already taken");
+                }
+                if (!TodoAppDatabase.restartSession(ctx, new SessionStore.Session(session.userId(), username.trim()))) {
+                    // Only the sqlite store can fail here, and its sessions read the name from users:
+                    // the old one stays valid and already shows the new name
+                    System.out.println("Restart session after rename failed for user " + session.userId());
+                }
+            }
+            if ((email != null || password != null)
+                    && !TodoAppDatabase.updateUser(session.userId(), email != null ? email.trim() : null, password)) {
+                throw new ConflictResponse("Email already in use");
+            }
+        } catch (PasswordHasher.Busy e) {
+            ctx.header("Retry-After", "1");
+            throw new ServiceUnavailableResponse("Too busy right now, please retry shortly");
+        }
+        ctx.json(loadUser(session.userId()));
+    }
+
+    // Closes the account: the user and their tasks are deleted and this session ends
+    private static void deleteUser(Context ctx) {
+        int userId = TodoAppDatabase.sessionUserId(ctx);
+        if (!TodoAppDatabase.deleteUser(userId)) {
+            throw new InternalServerErrorResponse("Could not delete user");
+        }
+        TodoAppDatabase.endSession(ctx);
+        ctx.status(204);
+    }
+
+    // The user as the API shows it, with their task counts
+    private static Map<String, Object> loadUser(int userId) {
+        String sql = "SELECT id, username, email, created_at FROM users WHERE id = ?";
+
+        Map<String, Object> user = new LinkedHashMap<>();
+        try {
+            TodoAppDatabase.executeRead(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setInt(1, userId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new NotFoundResponse("User not found");
+                    }
+                    user.put("id", rs.getInt("id"));
+                    user.put("username", rs.getString("username"));
+                    user.put("email", rs.getString("email"));
+                    user.put("createdAt", rs.getString("created_at"));
+                }
+                return user;
+            });
+        } catch (SQLException e) {
+            System.out.println("API get user failed: " + e.getMessage());
+            throw new InternalServerErrorResponse("Could not load user");
+        }
+        TaskCounters.Counts counts = TodoAppDatabase.cachedTaskCounts(userId);
+        if (counts == null) {
+            throw new InternalServerErrorResponse("Could not load user");
+        }
+        user.put("taskCounts", counts);
+        return user;
+    }
+
+    // Streams the page straight from the ResultSet into the response with a JsonGenerator,
+    // so memory use does not depend on the page size
+    private static void listTasks(Context ctx) throws IOException {
+        int userId = TodoAppDatabase.sessionUserId(ctx);
+        if (TodoAppDatabase.notModified(ctx)) {
+            return;
+        }
+        String status = allowedOrNull(ctx.queryParam("status"), Task.STATUSES, "status");
+        String priority = allowedOrNull(ctx.queryParam("priority"), Task.PRIORITIES, "priority");
+        String cursorParam = ctx.queryParam("cursor");
+        TaskPage.Cursor cursor = TaskPage.decodeCursor(cursorParam);
+        if (cursorParam != null && cursor == null) {
+            throw new BadRequestResponse("Invalid cursor");
+        }
+        int limit = ctx.queryParamAsClass("limit", Integer.class)
+                .check(l -> l >= 1 && l <= MAX_LIMIT, "limit must be between 1 and " + MAX_LIMIT)
+                .getOrDefault(DEFAULT_LIMIT);
+
+        // Borrowed directly rather than through executeRead, as writing the JSON throws IOException
+        try (PooledConnection conn = TodoAppDatabase.borrowConnection(userId)) {
+            try {
+                PreparedStatement pstmt = TodoAppDatabase.prepareTaskPage(conn, userId, status, priority, cursor, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    ctx.status(200);
+                    ctx.res().setContentType("application/json");
+
+                    try (JsonGenerator json = JSON.createGenerator(ctx.res().getOutputStream())) {
+                        json.writeStartObject();
+                        json.writeArrayFieldStart("tasks");
+
+                        int written = 0;
+                        String nextCursor = null;
+                        String lastCreatedAt = null;
+                        int lastId = 0;
+                        while (rs.next()) {
+                            if (written == limit) {
+                                nextCursor = TaskPage.encodeCursor(lastCreatedAt, lastId);
+                                break;
+                            }
+                            lastId = rs.getInt("id");
+                            lastCreatedAt = rs.getString("created_at");
+                            writeTask(json, TodoAppDatabase.readTask(rs));
+                            written++;
+                        }
+
+                        json.writeEndArray();
+                        json.writeStringField("nextCursor", nextCursor);
+                        json.writeEndObject();
+                    }
+                }
+            } catch (SQLException e) {
+                conn.markBrokenIfFatal(e);
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.out.println("API list tasks failed: " + e.getMessage());
+            throw new InternalServerErrorResponse("Could not load tasks");
+        }
+    }
+
+    private static void searchTasks(Context ctx) {
+        int userId = TodoAppDatabase.sessionUserId(ctx);
+        if (TodoAppDatabase.notModified(ctx)) {
+            return;
+        }
+        String query = ctx.queryParam("q");
+        int limit = ctx.queryParamAsClass("limit", Integer.class)
+                .check(l -> l >= 1 && l <= MAX_SEARCH_LIMIT, "limit must be between 1 and " + MAX_SEARCH_LIMIT)
+                .getOrDefault(DEFAULT_SEARCH_LIMIT);
+
+        List<TaskSearch.Hit> results = TodoAppDatabase.searchTasks(userId, query, limit);
+        if (results == null) {
+            throw new InternalServerErrorResponse("Could not search tasks");
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("query", query);
+        response.put("results", results);
+        ctx.json(response);
+    }
+
+    private static void getTask(Context ctx) throws IOException {
+        int userId = TodoAppDatabase.sessionUserId(ctx);
+        if (TodoAppDatabase.notModified(ctx)) {
+            return;
+        }
+        int taskId = ctx.pathParamAsClass("id", Integer.class).get();
+
+        Task task = TodoAppDatabase.getTask(userId, taskId);
+        if (task == null) {
+            throw new NotFoundResponse("Task not found");
+        }
+        sendTask(ctx, task);
+    }
+
+    private static void getTaskTree(Context ctx) {
+        int userId = TodoAppDatabase.sessionUserId(ctx);
+        if (TodoAppDatabase.notModified(ctx)) {
+            return;
+        }
+        int taskId = ctx.pathParamAsClass("id", Integer.class).get();
+
+        Task tree = TodoAppDatabase.getTaskTree(userId, taskId);
+        if (tree == null) {
+            throw new NotFoundResponse("Task not found");
+        }
+        ctx.json(tree);
+    }
+
+    private static void createTask(Context ctx) throws IOException {
+        createTask(ctx, null);
+    }
+
+    private static void createSubtask(Context ctx) throws IOException {
+        int userId = TodoAppDatabase.sessionUserId(ctx);
+        int parentId = ctx.pathParamAsClass("id", Integer.class).get();
+        if (TodoAppDatabase.getTask(userId, parentId) == null) {
+            throw new NotFoundResponse("Parent task not found");
+        }
+        createTask(ctx, parentId);
+    }
+
+    private static void createTask(Context ctx, Integer parentId) throws IOException {
+        int userId = TodoAppDatabase.sessionUserId(ctx);
+        JsonNode body = readObject(ctx);
+
+        String title = textField(body, "title");
+        if (title == null || title.isBlank()) {
+            throw new BadRequestResponse("title is required");
+        }
+        String description = textField(body, "description");
+        String priority = allowedOrNull(textField(body, "priority"), Task.PRIORITIES, "priority");
+
+        int taskId = TodoAppDatabase.addTask(userId, title.trim(), description, priority, parentId,
+                epochField(body, "dueAt"), epochField(body, "remindAt"));
+        if (taskId < 0) {
+            throw new InternalServerErrorResponse("Could not create task");
+        }
+        ctx.status(201);
+        ctx.header("Location", BASE + "/tasks/" + taskId);
+        sendTask(ctx, TodoAppDatabase.getTask(userId, taskId));
+    }
+
+    // Partial update: only the fields present in the body are changed
+    private static void updateTask(Context ctx) throws IOException {
+        int userId = TodoAppDatabase.sessionUserId(ctx);
+        int taskId = ctx.pathParamAsClass("id", Integer.class).get();
+        JsonNode body = readObject(ctx);
+
+        Map<String, String> changes = readChanges(body);
+        int updated = TodoAppDatabase.updateTask(userId, taskId, changes, versionField(body));
+        respondWithTask(ctx, userId, taskId, updated);
+    }
+
+    // Status transition only, e.g. the task list's "mark as complete" button
+    private static void updateStatus(Context ctx) throws IOException {
+        int userId = TodoAppDatabase.sessionUserId(ctx);
+        int taskId = ctx.pathParamAsClass("id", Integer.class).get();
+        JsonNode body = readObject(ctx);
+
+        String status = textField(body, "status");
+        requireAllowed(status, Task.STATUSES, "status");
+        int updated = TodoAppDatabase.updateTask(userId, taskId, Map.of("status", status), versionField(body));
+        respondWithTask(ctx, userId, taskId, updated);
+    }
+
+    private static void deleteTask(Context ctx) {
+        int userId = TodoAppDatabase.sessionUserId(ctx);
+        int taskId = ctx.pathParamAsClass("id", Integer.class).get();
+        Integer version = ctx.queryParam("version") == null ? null
+                : ctx.queryParamAsClass("version", Integer.class).get();
+
+        int deleted = TodoAppDatabase.deleteTask(userId, taskId, version);
+        checkWriteResult(deleted);
+        ctx.status(204);
+    }
+
+    // Multi-select: {"action": "update"|"delete", "tasks": [{"id": 1, "version": 3}, ...],
+    // "changes": {"status": "completed"}}. All tasks are changed in one transaction; the response
+    // lists which ids were applied, hit a version conflict, or were not found.
+    private static void bulkChange(Context ctx) {
+        int userId = TodoAppDatabase.sessionUserId(ctx);
+        JsonNode body = readObject(ctx);
+
+        String action = textField(body, "action");
+        requireAllowed(action, Set.of("update", "delete"), "action");
+
+        JsonNode tasks = body.get("tasks");
+        if (tasks == null || !tasks.isArray() || tasks.size() == 0) {
+            throw new BadRequestResponse("tasks must be a non-empty array");
+        }
+        if (tasks.size() > MAX_BULK) {
+            throw new BadRequestResponse("At most " + MAX_BULK + " tasks per request");
+        }
+        Map<Integer, Integer> versions = new LinkedHashMap<>();
+        for (JsonNode item : tasks) {
+            JsonNode id = item.get("id");
+            if (id == null || !id.isInt()) {
+                throw new BadRequestResponse("Each task needs an integer id");
+            }
+            Integer version = versionField(item);
+            versions.put(id.asInt(), version != null ? version : TodoAppDatabase.ANY_VERSION);
+        }
+
+        BulkResult result;
+        if (action.equals("delete")) {
+            result = TodoAppDatabase.deleteTasks(userId, versions);
+        } else {
+            JsonNode changes = body.get("changes");
+            if (changes == null || !changes.isObject() || changes.size() == 0) {
+                throw new BadRequestResponse("changes must be a non-empty object");
+            }
+            result = TodoAppDatabase.updateTasks(userId, versions, readChanges(changes));
+        }
+        if (result == null) {
+            throw new InternalServerErrorResponse("Could not apply changes");
+        }
+        ctx.json(result);
+    }
+
+    // Validated field changes from a JSON object, keyed by column; "version" is skipped
+    private static Map<String, String> readChanges(JsonNode body) {
+        Map<String, String> changes = new HashMap<>();
+        Iterator<String> fields = body.fieldNames();
+        while (fields.hasNext()) {
+            String field = fields.next();
+            if (field.equals("version")) {
+                continue;
+            }
+            if (!PATCHABLE.contains(field)) {
+                throw new BadRequestResponse("Unknown or read-only field: " + field);
+            }
+            if (field.equals("dueAt") || field.equals("remindAt")) {
+                Long seconds = epochField(body, field);
+                changes.put(field.equals("dueAt") ? "due_at" : "remind_at", seconds != null ? seconds.toString() : null);
+                continue;
+            }
+            changes.put(field, textField(body, field));
+        }
+        if (changes.containsKey("title") && (changes.get("title") == null || changes.get("title").isBlank())) {
+            throw new BadRequestResponse("title cannot be empty");
+        }
+        if (changes.containsKey("priority")) {
+            requireAllowed(changes.get("priority"), Task.PRIORITIES, "priority");
+        }
+        if (changes.containsKey("status")) {
+            requireAllowed(changes.get("status"), Task.STATUSES, "status");
+        }
+        return changes;
+    }
+
+    private static void respondWithTask(Context ctx, int userId, int taskId, int updated) throws IOException {
+        checkWriteResult(updated);
+        sendTask(ctx, TodoAppDatabase.getTask(userId, taskId));
+    }
+
+    // One task in the same shape as the list and live updates, with the status already set
+    private static void sendTask(Context ctx, Task task) throws IOException {
+        if (task == null) {
+            throw new InternalServerErrorResponse("Could not load task");
+        }
+        ctx.res().setContentType("application/json");
+        try (JsonGenerator json = JSON.createGenerator(ctx.res().getOutputStream())) {
+            writeTask(json, task);
+        }
+    }
+
+    private static void checkWriteResult(int result) {
+        if (result == TodoAppDatabase.VERSION_CONFLICT) {
+            throw new ConflictResponse("Task was changed by another request; reload it and try again");
+        }
+        if (result < 0) {
+            throw new InternalServerErrorResponse("Could not save task");
+        }
+        if (result == 0) {
+            throw new NotFoundResponse("Task not found");
+        }
+    }
+
+    // The API's task object; every endpoint that returns flat tasks writes them through here
+    static void writeTask(JsonGenerator json, Task task) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", task.getId());
+        json.writeStringField("title", task.getTitle());
+        json.writeStringField("description", task.getDescription());
+        json.writeStringField("priority", task.getPriority());
+        json.writeStringField("status", task.getStatus());
+        json.writeNumberField("version", task.getVersion());
+        writeNullableNumber(json, "parentTaskId", task.getParentTaskId());
+        writeNullableNumber(json, "dueAt", task.getDueAt());
+        writeNullableNumber(json, "remindAt", task.getRemindAt());
+        json.writeNumberField("subtaskCount", task.getSubtaskCount());
+        json.writeNumberField("completedSubtaskCount", task.getCompletedSubtaskCount());
+        json.writeStringField("createdAt", task.getCreatedAt());
+        json.writeEndObject();
+    }
+
+    private static void writeNullableNumber(JsonGenerator json, String field, Number value) throws IOException {
+        if (value == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeNumberField(field, value.longValue());
+        }
+    }
+
+    private static JsonNode readObject(Context ctx) {
+        try {
+            JsonNode body = MAPPER.readTree(ctx.body());
+            if (body == null || !body.isObject()) {
+                throw new BadRequestResponse("Request body must be a JSON object");
+            }
+            return body;
+        } catch (IOException e) {
+            throw new BadRequestResponse("Malformed JSON: " + e.getMessage());
+        }
+    }
+
+    // String value of a field; null when absent or JSON null
+    private static String textField(JsonNode body, String field) {
+        JsonNode node = body.get(field);
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        if (!node.isTextual()) {
+            throw new BadRequestResponse(field + " must be a string");
+        }
+        return node.asText();
+    }
+
+    // Time in epoch seconds; null when absent or JSON null
+    private static Long epochField(JsonNode body, String field) {
+        JsonNode node = body.get(field);
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        if (!node.isIntegralNumber() || !node.canConvertToLong() || node.asLong() < 0) {
+            throw new BadRequestResponse(field + " must be a time in epoch seconds");
+        }
+        return node.asLong();
+    }
+
+    // Optional "version" field; null when absent
+    private static Integer versionField(JsonNode body) {
+        JsonNode node = body.get("version");
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        if (!node.isInt() || node.asInt() < 1) {
+            throw new BadRequestResponse("version must be a positive integer");
+        }
+        return node.asInt();
+    }
+
+    private static String allowedOrNull(String value, Set<String> allowed, String name) {
+        if (value == null) {
+            return null;
+        }
+        requireAllowed(value, allowed, name);
+        return value;
+    }
+
+    private static void requireAllowed(String value, Set<String> allowed, String name) {
+        if (value == null || !allowed.contains(value)) {
+            throw new BadRequestResponse(name + " must be one of " + allowed);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Read-through cache of each user's newest tasks and status counts: what /dashboard, the
+// unfiltered first page of /tasks and /api/v1/users/me show. Entries are tagged with the user's
+// DataVersions version when loaded and only served while it is still current, so a write
+// that commits while an entry is loading can never leave stale tasks behind; mutations also
+// invalidate() to free the memory straight away.
+//
+// Like the versions it is checked against, the cache only knows about writes made by this
+// process: with more than one app instance on the same database, another instance's change
+// would not reach it and pages would show stale tasks until a local write. Such deployments
+// run with -Dtodo.versions.enabled=false, which turns the cache off by default as well.
+//
+// Least recently used users are evicted once there are more than todo.cache.maxEntries of
+// them or their estimated size passes todo.cache.maxBytes. Rows are kept compact: priority
+// and status as one-byte codes, decoded back to the shared constant strings.
+public class TaskCache {
+
+    // Cache bounds, read from -Dtodo.cache.* system properties; maxEntries = 0 turns it off,
+    // which is the default when data versions are (-Dtodo.versions.enabled=false)
+    public static class Config {
+        int maxEntries = 10_000;
+        long maxBytes = 64L * 1024 * 1024;
+
+        public static Config fromSystemProperties() {
+            Config config = new Config();
+            if (!DataVersions.enabledBySystemProperties()) {
+                config.maxEntries = 0;
+            }
+            config.maxEntries = Integer.getInteger("todo.cache.maxEntries", config.maxEntries);
+            config.maxBytes = Long.getLong("todo.cache.maxBytes", config.maxBytes);
+            return config;
+        }
+    }
+
+    public record Stats(int entries, long bytes, int maxEntries, long maxBytes,
+                        long hits, long misses, long evictions, long invalidations) {}
+
+    private static final String[] PRIORITY_CODES = {"low", "medium", "high"};
+    private static final String[] STATUS_CODES = {"pending", "in_progress", "completed"};
+
+    // Marks an unset due_at or remind_at in a Row
+    private static final long NONE = Long.MIN_VALUE;
+
+    // One task as cached; parentTaskId 0 means none (ids start at 1)
+    private record Row(int id, String title, String description, byte priority, byte status, int version,
+                       int parentTaskId, int subtasks, int completedSubtasks, String createdAt,
+                       long dueAt, long remindAt) {
+
+        Task toTask() {
+            Task task = new Task();
+            task.setId(id);
+            task.setTitle(title);
+            task.setDescription(description);
+            task.setPriority(decode(PRIORITY_CODES, priority));
+            task.setStatus(decode(STATUS_CODES, status));
+            task.setVersion(version);
+            task.setParentTaskId(parentTaskId == 0 ? null : parentTaskId);
+            task.setSubtaskCount(subtasks);
+            task.setCompletedSubtaskCount(completedSubtasks);
+            task.setCreatedAt(createdAt);
+            task.setDueAt(dueAt == NONE ? null : dueAt);
+            task.setRemindAt(remindAt == NONE ? null : remindAt);
+            return task;
+        }
+    }
+
+    // A user's newest tasks (up to headSize) and counts, as of one data version
+    public static final class Entry {
+        private final long version;
+        private final Row[] rows;
+        // More tasks exist beyond the cached rows
+        private final boolean more;
+        private final TaskCounters.Counts counts;
+        private final long bytes;
+
+        private Entry(long version, Row[] rows, boolean more, TaskCounters.Counts counts) {
+            this.version = version;
+            this.rows = rows;
+            this.more = more;
+            this.counts = counts;
+            long size = 96;
+            for (Row row : rows) {
+                size += 64 + sizeOf(row.title()) + sizeOf(row.description()) + sizeOf(row.createdAt());
+            }
+            this.bytes = size;
+        }
+
+        public TaskCounters.Counts counts() {
+            return counts;
+        }
+
+        // The newest limit tasks as a page, with the cursor /tasks would get from the query;
+        // limit must not exceed the cache's headSize
+        public TaskPage page(int limit) {
+            int n = Math.min(limit, rows.length);
+            List<Task> tasks = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                tasks.add(rows[i].toTask());
+            }
+            String nextCursor = null;
+            if (n > 0 && (rows.length > n || more)) {
+                Row last = rows[n - 1];
+                nextCursor = TaskPage.encodeCursor(last.createdAt(), last.id());
+            }
+            return new TaskPage(tasks, nextCursor);
+        }
+    }
+
+    private final Config config;
+    private final int headSize;
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    // headSize: how many of the newest tasks to keep per user (the longest page served from here)
+    public TaskCache(Config config, int headSize) {
+        this.config = config;
+        this.headSize = headSize;
+    }
+
+    // The user's entry if it was loaded at this version, else null (and the stale one dropped)
+    public synchronized Entry get(int userId, long version) {
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.version == version) {
+            hits.increment();
+            return entry;
+        }
+        if (entry != null) {
+            remove(userId);
+        }
+        misses.increment();
+        return null;
+    }
+
+    // Query the user's newest tasks and counts and cache them under version, which the caller
+    // must have read before calling
+    public Entry load(PooledConnection conn, int userId, long version) throws SQLException {
+        List<Row> rows = new ArrayList<>(headSize);
+        boolean more = false;
+        PreparedStatement pstmt = TodoAppDatabase.prepareTaskPage(conn, userId, null, null, null, headSize);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                if (rows.size() == headSize) {
+                    more = true;
+                    break;
+                }
+                rows.add(readRow(rs));
+            }
+        }
+        Entry entry = new Entry(version, rows.toArray(new Row[0]), more, TaskCounters.load(conn, userId));
+        put(userId, entry);
+        return entry;
+    }
+
+    private synchronized void put(int userId, Entry entry) {
+        if (config.maxEntries <= 0 || entry.bytes > config.maxBytes) {
+            return;
+        }
+        Entry current = entries.get(userId);
+        if (current != null && current.version > entry.version) {
+            // A slower load of an older version finished last
+            return;
+        }
+        Entry previous = entries.put(userId, entry);
+        if (previous != null) {
+            bytes -= previous.bytes;
+        }
+        bytes += entry.bytes;
+
+        // Access order: the eldest is the least recently used
+        Iterator<Map.Entry<Integer, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > config.maxEntries || bytes > config.maxBytes) && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().bytes;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    // Drop the user's entry after a change to their tasks
+    public synchronized void invalidate(int userId) {
+        if (remove(userId)) {
+            invalidations.increment();
+        }
+    }
+
+    private boolean remove(int userId) {
+        Entry removed = entries.remove(userId);
+        if (removed == null) {
+            return false;
+        }
+        bytes -= removed.bytes;
+        return true;
+    }
+
+    public int headSize() {
+        return headSize;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(entries.size(), bytes, config.maxEntries, config.maxBytes,
+                hits.sum(), misses.sum(), evictions.sum(), invalidations.sum());
+    }
+
+    private static Row readRow(ResultSet rs) throws SQLException {
+        int parentTaskId = rs.getInt("parent_task_id");
+        long dueAt = rs.getLong("due_at");
+        if (rs.wasNull()) {
+            dueAt = NONE;
+        }
+        long remindAt = rs.getLong("remind_at");
+        if (rs.wasNull()) {
+            remindAt = NONE;
+        }
+        return new Row(rs.getInt("id"), rs.getString("title"), rs.getString("description"),
+                encode(PRIORITY_CODES, rs.getString("priority")), encode(STATUS_CODES, rs.getString("status")),
+                rs.getInt("version"), parentTaskId, rs.getInt("subtasks"), rs.getInt("completed_subtasks"),
+                rs.getString("created_at"), dueAt, remindAt);
+    }
+
+    // Index into codes, or -1 for null (the CHECK constraints allow nothing else)
+    private static byte encode(String[] codes, String value) {
+        for (byte i = 0; i < codes.length; i++) {
+            if (codes[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String decode(String[] codes, byte code) {
+        return code < 0 ? null : codes[code];
+    }
+
+    // Rough heap size of a String: header and array overhead plus up to two bytes a char
+    private static long sizeOf(String s) {
+        return s == null ? 0 : 56 + 2L * s.length();
+    }
+}
@@ -0,0 +1,220 @@
+package com.example;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-user task counts by status, kept exact by triggers on the tasks table so the
+// dashboard and task page read one row instead of scanning every task.
+// Run as a command to check for or repair drift:
+//   ./gradlew :app:taskCounters --args="verify"   (or "rebuild", optionally followed by the db file)
+public class TaskCounters {
+
+    public record Counts(int pending, int inProgress, int completed, int total) {
+        static final Counts EMPTY = new Counts(0, 0, 0, 0);
+    }
+
+    // A user whose stored counters differ from the tasks table
+    public record Drift(int userId, Counts stored, Counts actual) {}
+
+    static final String CREATE_TABLE = """
+        CREATE TABLE IF NOT EXISTS task_counters (
+            user_id INTEGER PRIMARY KEY,
+            pending INTEGER NOT NULL DEFAULT 0,
+            in_progress INTEGER NOT NULL DEFAULT 0,
+            completed INTEGER NOT NULL DEFAULT 0,
+            total INTEGER NOT NULL DEFAULT 0
+        )
+        """;
+
+    // "status IS 'x'" is 0 or 1 even when status is NULL, so the arithmetic never goes NULL
+    static final String[] CREATE_TRIGGERS = {
+        """
+        CREATE TRIGGER IF NOT EXISTS trg_task_counters_insert AFTER INSERT ON tasks
+        BEGIN
+            INSERT OR IGNORE INTO task_counters (user_id) VALUES (NEW.user_id);
+            UPDATE task_counters SET
+                pending = pending + (NEW.status IS 'pending'),
+                in_progress = in_progress + (NEW.status IS 'in_progress'),
+                completed = completed + (NEW.status IS 'completed'),
+                total = total + 1
+            WHERE user_id = NEW.user_id;
+        END
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS trg_task_counters_delete AFTER DELETE ON tasks
+        BEGIN
+            UPDATE task_counters SET
+                pending = pending - (OLD.status IS 'pending'),
+                in_progress = in_progress - (OLD.status IS 'in_progress'),
+                completed = completed - (OLD.status IS 'completed'),
+                total = total - 1
+            WHERE user_id = OLD.user_id;
+        END
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS trg_task_counters_update AFTER UPDATE OF status, user_id ON tasks
+        WHEN OLD.status IS NOT NEW.status OR OLD.user_id IS NOT NEW.user_id
+        BEGIN
+            UPDATE task_counters SET
+                pending = pending - (OLD.status IS 'pending'),
+                in_progress = in_progress - (OLD.status IS 'in_progress'),
+                completed = completed - (OLD.status IS 'completed'),
+                total = total - 1
+            WHERE user_id = OLD.user_id;
+            INSERT OR IGNORE INTO task_counters (user_id) VALUES (NEW.user_id);
+            UPDATE task_counters SET
+                pending = pending + (NEW.status IS 'pending'),
+                in_progress = in_progress + (NEW.status IS 'in_progress'),
+                completed = completed + (NEW.status IS 'completed'),
+                total = total + 1
+            WHERE user_id = NEW.user_id;
+        END
+        """
+    };
+
+    private static final String ACTUAL_COUNTS_SQL = """
+        SELECT user_id,
+               SUM(status IS 'pending') AS pending,
+               SUM(status IS 'in_progress') AS in_progress,
+               SUM(status IS 'completed') AS completed,
+               COUNT(*) AS total
+        FROM tasks GROUP BY user_id
+        """;
+
+    // Create the table and triggers; backfills from the tasks table the first time
+    static void initialize(PooledConnection conn) throws SQLException {
+        boolean exists;
+        try (Statement stmt = conn.raw().createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'task_counters'")) {
+            exists = rs.next();
+        }
+
+        try (Statement stmt = conn.raw().createStatement()) {
+            stmt.execute(CREATE_TABLE);
+            for (String trigger : CREATE_TRIGGERS) {
+                stmt.execute(trigger);
+            }
+        }
+
+        if (!exists) {
+            rebuild(conn);
+        }
+    }
+
+    // O(1) primary-key lookup of one user's counts
+    static Counts load(PooledConnection conn, int userId) throws SQLException {
+        PreparedStatement pstmt = conn.prepare(
+                "SELECT pending, in_progress, completed, total FROM task_counters WHERE user_id = ?");
+        pstmt.setInt(1, userId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next()) {
+                return new Counts(rs.getInt("pending"), rs.getInt("in_progress"),
+                        rs.getInt("completed"), rs.getInt("total"));
+            }
+        }
+        return Counts.EMPTY;
+    }
+
+    // Compare every user's stored counters with a full recount of the tasks table
+    static List<Drift> verify(PooledConnection conn) throws SQLException {
+        Map<Integer, Counts> actual = new HashMap<>();
+        Map<Integer, Counts> stored = new HashMap<>();
+
+        try (Statement stmt = conn.raw().createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(ACTUAL_COUNTS_SQL)) {
+                while (rs.next()) {
+                    actual.put(rs.getInt("user_id"), readCounts(rs));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT user_id, pending, in_progress, completed, total FROM task_counters")) {
+                while (rs.next()) {
+                    stored.put(rs.getInt("user_id"), readCounts(rs));
+                }
+            }
+        }
+
+        List<Drift> drift = new ArrayList<>();
+        for (Map.Entry<Integer, Counts> entry : actual.entrySet()) {
+            Counts storedCounts = stored.getOrDefault(entry.getKey(), Counts.EMPTY);
+            if (!storedCounts.equals(entry.getValue())) {
+                drift.add(new Drift(entry.getKey(), storedCounts, entry.getValue()));
+            }
+        }
+        for (Map.Entry<Integer, Counts> entry : stored.entrySet()) {
+            if (!actual.containsKey(entry.getKey()) && !entry.getValue().equals(Counts.EMPTY)) {
+                drift.add(new Drift(entry.getKey(), entry.getValue(), Counts.EMPTY));
+            }
+        }
+        return drift;
+    }
+
+    // Recompute every user's counters from the tasks table in one transaction
+    static void rebuild(PooledConnection conn) throws SQLException {
+        boolean autoCommit = conn.raw().getAutoCommit();
+        conn.raw().setAutoCommit(false);
+        try (Statement stmt = conn.raw().createStatement()) {
+            stmt.execute("DELETE FROM task_counters");
+            stmt.execute("INSERT INTO task_counters (user_id, pending, in_progress, completed, total) "
+                    + ACTUAL_COUNTS_SQL);
+            if (autoCommit) {
+                conn.raw().commit();
+            }
+        } catch (SQLException e) {
+            if (autoCommit) {
+                conn.raw().rollback();
+            }
+            throw e;
+        } finally {
+            conn.raw().setAutoCommit(autoCommit);
+        }
+    }
+
+    private static Counts readCounts(ResultSet rs) throws SQLException {
+        return new Counts(rs.getInt("pending"), rs.getInt("in_progress"),
+                rs.getInt("completed"), rs.getInt("total"));
+    }
+
+    // Verify/rebuild against the given db file (default -Dtodo.db.path or todo_app.db); when it
+    // is a sharded directory, against each of its task shard files in turn
+    public static void main(String[] args) throws SQLException {
+        String command = args.length > 0 ? args[0] : "verify";
+        String path = args.length > 1 ? args[1] : System.getProperty("todo.db.path", "todo_app.db");
+        if (!"verify".equals(command) && !"rebuild".equals(command)) {
+            System.out.println("Unknown command '" + command + "', expected verify or rebuild");
+            return;
+        }
+        ConnectionPool.Config poolConfig = ConnectionPool.Config.fromSystemProperties()
+                .withInitStatements(List.of("PRAGMA busy_timeout = 5000"));
+
+        int count;
+        try (Shard directory = new Shard("main", path, 0, 0, poolConfig);
+             PooledConnection conn = directory.borrow()) {
+            Integer recorded = Shards.readLayout(conn);
+            count = recorded != null ? recorded : 0;
+        }
+        try (Shards shards = new Shards(path, count, poolConfig)) {
+            for (Shard shard : shards.taskShards()) {
+                try (PooledConnection conn = shard.borrow()) {
+                    List<Drift> drift = verify(conn);
+                    for (Drift d : drift) {
+                        System.out.println("User " + d.userId() + ": stored " + d.stored() + ", actual " + d.actual());
+                    }
+                    System.out.println("Shard " + shard.name() + ": " + drift.size() + " user(s) with drifted task counters");
+
+                    if ("rebuild".equals(command)) {
+                        rebuild(conn);
+                        System.out.println("Shard " + shard.name() + ": task counters rebuilt");
+                    }
+                }
+            }
+        }
+    }
+}
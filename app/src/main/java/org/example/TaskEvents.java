@@ -0,0 +1,348 @@
+package com.example;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.javalin.Javalin;
+import io.javalin.http.sse.SseClient;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Live task updates over Server-Sent Events at /api/v1/events, one stream per open tab.
+// After a task mutation commits, TodoAppDatabase calls tasksChanged(); if that user has any
+// streams open, the changed tasks and the user's counters are loaded once and fanned out:
+//   event: task    {"action":"created|updated|reminder", "task":{...}}, {"action":"deleted","id":N}
+//                  or {"action":"imported","count":N}
+//   event: counts  {"total":..,"pending":..,"inProgress":..,"completed":.., "delta":{...}}
+// Every new stream starts with a counts event, so a reconnecting tab resynchronizes.
+//
+// An idle stream is a parked Jetty request plus one small queue: no thread. Events for a stream
+// are queued and written by a virtual thread that exists only while there is something to send.
+// A client that stops reading fills its queue (todo.events.queueCapacity) and is disconnected
+// rather than buffered without limit; its browser reconnects and resyncs. Heartbeat comments
+// every todo.events.heartbeatSeconds keep proxies from closing idle streams and find dead ones.
+public class TaskEvents {
+
+    // Hub settings, read from -Dtodo.events.* system properties
+    public static class Config {
+        int queueCapacity = 64;
+        int maxStreamsPerUser = 16;
+        long heartbeatSeconds = 15;
+
+        public static Config fromSystemProperties() {
+            Config config = new Config();
+            config.queueCapacity = Integer.getInteger("todo.events.queueCapacity", config.queueCapacity);
+            config.maxStreamsPerUser = Integer.getInteger("todo.events.maxStreamsPerUser", config.maxStreamsPerUser);
+            config.heartbeatSeconds = Long.getLong("todo.events.heartbeatSeconds", config.heartbeatSeconds);
+            return config;
+        }
+    }
+
+    public record Stats(int users, int streams, long published, long delivered, long dropped) {}
+
+    // name == null means a heartbeat comment
+    private record Event(String name, String data) {}
+
+    private static final Event HEARTBEAT = new Event(null, "heartbeat");
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int PUBLISH_STRIPES = 64;
+
+    private final Config config;
+    private final ConcurrentHashMap<Integer, Set<Stream>> streams = new ConcurrentHashMap<>();
+    // Counters last sent to each user, for the deltas
+    private final ConcurrentHashMap<Integer, TaskCounters.Counts> lastCounts = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeat;
+    private final AtomicInteger streamCount = new AtomicInteger();
+    // One publisher per user at a time, striped by user id. ReentrantLock rather than
+    // synchronized: publishers are virtual threads doing JDBC while they hold it, and a parked
+    // virtual thread would pin its carrier inside a monitor.
+    private final ReentrantLock[] publishLocks = new ReentrantLock[PUBLISH_STRIPES];
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public TaskEvents(Config config) {
+        this.config = config;
+        for (int i = 0; i < publishLocks.length; i++) {
+            publishLocks[i] = new ReentrantLock();
+        }
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "task-events-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeats, config.heartbeatSeconds, config.heartbeatSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    public void register(Javalin app, String path) {
+        app.sse(path, this::connect);
+    }
+
+    // One open stream and its pending events
+    private final class Stream {
+        final int userId;
+        final SseClient client;
+        final ArrayBlockingQueue<Event> queue = new ArrayBlockingQueue<>(config.queueCapacity);
+        final AtomicBoolean sending = new AtomicBoolean();
+        volatile boolean closed;
+
+        Stream(int userId, SseClient client) {
+            this.userId = userId;
+            this.client = client;
+        }
+
+        void offer(Event event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                // Not keeping up: cut it loose instead of buffering for it
+                dropped.increment();
+                disconnect(this);
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        // Runs on a virtual thread, so a slow socket write only parks that thread
+        void drain() {
+            do {
+                Event event;
+                while (!closed && (event = queue.poll()) != null) {
+                    if (event.name() == null) {
+                        client.sendComment(event.data());
+                    } else {
+                        client.sendEvent(event.name(), event.data(), null);
+                        delivered.increment();
+                    }
+                    if (client.terminated()) {
+                        disconnect(this);
+                    }
+                }
+                sending.set(false);
+            } while (!closed && !queue.isEmpty() && sending.compareAndSet(false, true));
+        }
+    }
+
+    private void connect(SseClient client) {
+        int userId = TodoAppDatabase.sessionUserId(client.ctx());
+        if (userId < 0) {
+            client.close();
+            return;
+        }
+        Stream stream = new Stream(userId, client);
+        AtomicBoolean added = new AtomicBoolean();
+        // Added under the map's lock so a disconnect emptying the set cannot orphan it
+        streams.compute(userId, (id, set) -> {
+            if (set == null) {
+                set = ConcurrentHashMap.newKeySet();
+            }
+            if (set.size() < config.maxStreamsPerUser) {
+                added.set(set.add(stream));
+            }
+            return set.isEmpty() ? null : set;
+        });
+        if (!added.get()) {
+            client.close();
+            return;
+        }
+        streamCount.incrementAndGet();
+        client.onClose(() -> disconnect(stream));
+        // Hands the request back to Jetty: the stream stays open without holding a thread
+        client.keepAlive();
+
+        // Skipped if the counts cannot be read; the next change sends them
+        TaskCounters.Counts counts = TodoAppDatabase.cachedTaskCounts(userId);
+        if (counts != null) {
+            lastCounts.put(userId, counts);
+            stream.offer(new Event("counts", countsJson(counts, null)));
+        }
+    }
+
+    private void disconnect(Stream stream) {
+        if (stream.closed) {
+            return;
+        }
+        stream.closed = true;
+        stream.queue.clear();
+        streamCount.decrementAndGet();
+        streams.computeIfPresent(stream.userId, (id, set) -> {
+            set.remove(stream);
+            if (set.isEmpty()) {
+                lastCounts.remove(id);
+                return null;
+            }
+            return set;
+        });
+        stream.client.close();
+    }
+
+    // Called after a mutation commits. Does nothing unless the user has a stream open; otherwise
+    // the tasks and counters are loaded off the request thread and sent to every stream.
+    public void tasksChanged(int userId, String action, List<Integer> taskIds) {
+        if (!streams.containsKey(userId)) {
+            return;
+        }
+        senders.execute(() -> publish(userId, action, taskIds, taskIds.size()));
+    }
+
+    // Called after an import batch commits; streams get one reload notice instead of the rows
+    public void tasksImported(int userId, int count) {
+        if (!streams.containsKey(userId)) {
+            return;
+        }
+        senders.execute(() -> publish(userId, "imported", List.of(), count));
+    }
+
+    private void publish(int userId, String action, List<Integer> taskIds, int count) {
+        if (!streams.containsKey(userId)) {
+            return;
+        }
+        // Held across the load and the offers, so every stream sees events and deltas in commit order
+        ReentrantLock lock = publishLocks[Math.floorMod(userId, publishLocks.length)];
+        lock.lock();
+        try {
+            List<Event> events = new ArrayList<>();
+            if (action.equals("imported")) {
+                events.add(new Event("task", "{\"action\":\"imported\",\"count\":" + count + "}"));
+            } else if (action.equals("deleted")) {
+                for (Integer id : taskIds) {
+                    events.add(new Event("task", "{\"action\":\"deleted\",\"id\":" + id + "}"));
+                }
+            } else {
+                events.addAll(loadTasks(userId, action, taskIds));
+            }
+
+            TaskCounters.Counts counts = TodoAppDatabase.cachedTaskCounts(userId);
+            if (counts != null) {
+                TaskCounters.Counts previous = lastCounts.put(userId, counts);
+                events.add(new Event("counts", countsJson(counts, previous)));
+            }
+
+            // The streams open now; offer() only queues, the sends happen on each stream's drainer
+            Set<Stream> userStreams = streams.get(userId);
+            if (userStreams == null) {
+                return;
+            }
+            List<Stream> targets = List.copyOf(userStreams);
+            published.increment();
+            for (Event event : events) {
+                for (Stream stream : targets) {
+                    stream.offer(event);
+                }
+            }
+        } catch (SQLException | IOException e) {
+            System.out.println("Publish task events failed: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The changed tasks as task events, each followed by its parent (whose subtask counts moved)
+    private List<Event> loadTasks(int userId, String action, List<Integer> taskIds) throws SQLException, IOException {
+        List<Event> events = new ArrayList<>();
+        Set<Integer> parents = new LinkedHashSet<>();
+        String sql = "SELECT " + TodoAppDatabase.TASK_COLUMNS + " FROM " + TodoAppDatabase.TASK_TABLE
+                + " WHERE id = ? AND user_id = ?";
+        // Borrowed directly rather than through executeRead, as writing the JSON throws IOException
+        try (PooledConnection conn = TodoAppDatabase.borrowConnection(userId)) {
+            try {
+                PreparedStatement pstmt = conn.prepare(sql);
+                for (Integer id : taskIds) {
+                    String json = loadTask(pstmt, userId, id, action, parents);
+                    if (json != null) {
+                        events.add(new Event("task", json));
+                    }
+                }
+                parents.removeAll(taskIds);
+                for (Integer id : parents) {
+                    String json = loadTask(pstmt, userId, id, "updated", null);
+                    if (json != null) {
+                        events.add(new Event("task", json));
+                    }
+                }
+            } catch (SQLException e) {
+                conn.markBrokenIfFatal(e);
+                throw e;
+            }
+        }
+        return events;
+    }
+
+    private static String loadTask(PreparedStatement pstmt, int userId, int taskId, String action,
+                                   Set<Integer> parents) throws SQLException, IOException {
+        pstmt.setInt(1, taskId);
+        pstmt.setInt(2, userId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.next()) {
+                return null;
+            }
+            if (parents != null) {
+                int parentTaskId = rs.getInt("parent_task_id");
+                if (!rs.wasNull()) {
+                    parents.add(parentTaskId);
+                }
+            }
+            StringWriter out = new StringWriter();
+            try (JsonGenerator json = JSON.createGenerator(out)) {
+                json.writeStartObject();
+                json.writeStringField("action", action);
+                json.writeFieldName("task");
+                TaskApi.writeTask(json, TodoAppDatabase.readTask(rs));
+                json.writeEndObject();
+            }
+            return out.toString();
+        }
+    }
+
+    private static String countsJson(TaskCounters.Counts counts, TaskCounters.Counts previous) {
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"total\":").append(counts.total())
+            .append(",\"pending\":").append(counts.pending())
+            .append(",\"inProgress\":").append(counts.inProgress())
+            .append(",\"completed\":").append(counts.completed());
+        if (previous != null) {
+            json.append(",\"delta\":{\"total\":").append(counts.total() - previous.total())
+                .append(",\"pending\":").append(counts.pending() - previous.pending())
+                .append(",\"inProgress\":").append(counts.inProgress() - previous.inProgress())
+                .append(",\"completed\":").append(counts.completed() - previous.completed())
+                .append('}');
+        }
+        return json.append('}').toString();
+    }
+
+    private void sendHeartbeats() {
+        for (Map.Entry<Integer, Set<Stream>> entry : streams.entrySet()) {
+            for (Stream stream : entry.getValue()) {
+                stream.offer(HEARTBEAT);
+            }
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(streams.size(), streamCount.get(), published.sum(), delivered.sum(), dropped.sum());
+    }
+}
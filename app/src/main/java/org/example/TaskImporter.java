@@ -0,0 +1,377 @@
+package com.example;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.ContentTooLargeResponse;
+import io.javalin.http.Context;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// POST /api/v1/tasks/import — bulk import of tasks for the logged-in user.
+// The body is CSV (header: title,description,priority,status) or NDJSON (one object per line),
+// read as a stream. Valid rows are inserted in JDBC batches of todo.import.chunkSize rows, one
+// transaction per batch. The response is NDJSON too, written while the upload is still being read:
+//   {"type":"error","row":12,"message":"..."}     for each rejected row
+//   {"type":"progress","rowsRead":..,"imported":..,"failed":..}   after each batch
+//   {"type":"summary","rowsRead":..,"imported":..,"failed":..}    at the end
+// At most one batch of rows is held in memory, whatever the size of the upload: CSV fields,
+// fields per record and NDJSON lines are capped. An upload breaking a cap is refused with 413
+// while nothing has been imported yet, and aborted with an error event once a batch has been.
+public class TaskImporter {
+    private static final int CHUNK_SIZE = Integer.getInteger("todo.import.chunkSize", 500);
+    private static final int MAX_FIELD_LENGTH = 64 * 1024;
+    private static final int MAX_FIELDS = 64;
+    private static final int MAX_LINE_LENGTH = 4 * MAX_FIELD_LENGTH;
+    // The id expression depends on the user's shard
+    private static final String INSERT_SQL =
+            "INSERT INTO tasks (id, user_id, title, description, priority, status) VALUES (%s, ?, ?, ?, ?, ?)";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // One event per line: no separator between root values, each event ends with its own newline
+    private static final JsonFactory JSON = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .setRootValueSeparator(null);
+
+    private record Row(long line, String title, String description, String priority, String status) {}
+
+    // A line, field or record over its cap; the rest of the upload is not read
+    static class RecordTooLarge extends IOException {
+        RecordTooLarge(String message) {
+            super(message);
+        }
+    }
+
+    private final int userId;
+    private final JsonGenerator out;
+    private final List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+    private long rowsRead;
+    private long imported;
+    private long failed;
+
+    private TaskImporter(int userId, JsonGenerator out) {
+        this.userId = userId;
+        this.out = out;
+    }
+
+    public static void handle(Context ctx) throws IOException {
+        int userId = TodoAppDatabase.sessionUserId(ctx);
+        boolean csv = isCsv(ctx);
+
+        ctx.status(200);
+        ctx.res().setContentType("application/x-ndjson");
+        try (BufferedReader body = new BufferedReader(
+                new InputStreamReader(ctx.req().getInputStream(), StandardCharsets.UTF_8))) {
+            JsonGenerator json = JSON.createGenerator(ctx.res().getOutputStream());
+            TaskImporter importer = new TaskImporter(userId, json);
+            try {
+                if (csv) {
+                    importer.readCsv(body);
+                } else {
+                    importer.readNdjson(body);
+                }
+                importer.flushChunk();
+            } catch (RecordTooLarge e) {
+                if (!ctx.res().isCommitted()) {
+                    // No batch has committed (each one flushes progress): refuse the whole upload.
+                    // The generator is dropped unclosed so its buffered events are never written.
+                    ctx.res().resetBuffer();
+                    throw new ContentTooLargeResponse(e.getMessage());
+                }
+                importer.event("error", importer.rowsRead + 1, "Import aborted: " + e.getMessage());
+            } catch (IOException e) {
+                // Upload cut off or unparseable; report what made it in so far
+                importer.event("error", importer.rowsRead + 1, "Import aborted: " + e.getMessage());
+            }
+            importer.counters("summary");
+            json.close();
+        }
+    }
+
+    private static boolean isCsv(Context ctx) {
+        String format = ctx.queryParam("format");
+        if (format == null) {
+            String contentType = ctx.header("Content-Type");
+            format = contentType != null ? contentType.toLowerCase(Locale.ROOT) : "";
+        }
+        if (format.contains("csv")) {
+            return true;
+        }
+        if (format.contains("ndjson") || format.contains("jsonl")) {
+            return false;
+        }
+        throw new BadRequestResponse("Send text/csv or application/x-ndjson (or ?format=csv|ndjson)");
+    }
+
+    private void readCsv(BufferedReader body) throws IOException {
+        CsvReader csv = new CsvReader(body);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        int titleColumn = header.indexOf("title");
+        int descriptionColumn = header.indexOf("description");
+        int priorityColumn = header.indexOf("priority");
+        int statusColumn = header.indexOf("status");
+        if (titleColumn < 0) {
+            event("error", 1, "CSV header must include a title column");
+            return;
+        }
+
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            rowsRead++;
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue; // blank line
+            }
+            accept(csv.recordLine(),
+                    column(record, titleColumn), column(record, descriptionColumn),
+                    column(record, priorityColumn), column(record, statusColumn));
+        }
+    }
+
+    private void readNdjson(BufferedReader lines) throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = readLine(lines, MAX_LINE_LENGTH)) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            rowsRead++;
+            JsonNode node;
+            try {
+                node = MAPPER.readTree(line);
+            } catch (IOException e) {
+                reject(lineNumber, "Malformed JSON");
+                continue;
+            }
+            if (node == null || !node.isObject()) {
+                reject(lineNumber, "Each line must be a JSON object");
+                continue;
+            }
+            accept(lineNumber, text(node, "title"), text(node, "description"),
+                    text(node, "priority"), text(node, "status"));
+        }
+    }
+
+    // BufferedReader.readLine() without its unbounded buffer: null at the end of input, and
+    // RecordTooLarge (after reading no more than max + 1 characters) for a longer line
+    static String readLine(BufferedReader in, int max) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1 && c != '\n') {
+            if (line.length() == max) {
+                throw new RecordTooLarge("Line longer than " + max + " characters");
+            }
+            line.append((char) c);
+            c = in.read();
+        }
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            line.setLength(end - 1);
+        }
+        return line.toString();
+    }
+
+    // Validate one row against the tasks table's CHECK constraints and queue it for the next batch
+    private void accept(long line, String title, String description, String priority, String status)
+            throws IOException {
+        if (title == null || title.isBlank()) {
+            reject(line, "title is required");
+            return;
+        }
+        priority = priority == null || priority.isBlank() ? "medium" : priority.trim().toLowerCase(Locale.ROOT);
+        status = status == null || status.isBlank() ? "pending" : status.trim().toLowerCase(Locale.ROOT);
+        if (!Task.PRIORITIES.contains(priority)) {
+            reject(line, "priority must be one of " + Task.PRIORITIES);
+            return;
+        }
+        if (!Task.STATUSES.contains(status)) {
+            reject(line, "status must be one of " + Task.STATUSES);
+            return;
+        }
+
+        chunk.add(new Row(line, title.trim(), description, priority, status));
+        if (chunk.size() >= CHUNK_SIZE) {
+            flushChunk();
+        }
+    }
+
+    // Insert the queued rows as one JDBC batch in one transaction
+    private void flushChunk() throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            String sql = INSERT_SQL.formatted(TodoAppDatabase.nextTaskId(userId));
+            TodoAppDatabase.executeWrite(userId, conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                try {
+                    for (Row row : chunk) {
+                        pstmt.setInt(1, userId);
+                        pstmt.setString(2, row.title());
+                        pstmt.setString(3, row.description());
+                        pstmt.setString(4, row.priority());
+                        pstmt.setString(5, row.status());
+                        pstmt.addBatch();
+                    }
+                    return pstmt.executeBatch().length;
+                } finally {
+                    pstmt.clearBatch();
+                }
+            });
+            imported += chunk.size();
+            TodoAppDatabase.tasksImported(userId, chunk.size());
+        } catch (SQLException e) {
+            System.out.println("Import batch failed: " + e.getMessage());
+            for (Row row : chunk) {
+                reject(row.line(), "Batch insert failed: " + e.getMessage());
+            }
+        }
+        chunk.clear();
+        counters("progress");
+    }
+
+    private void reject(long line, String message) throws IOException {
+        failed++;
+        event("error", line, message);
+    }
+
+    private void event(String type, long row, String message) throws IOException {
+        out.writeStartObject();
+        out.writeStringField("type", type);
+        out.writeNumberField("row", row);
+        out.writeStringField("message", message);
+        out.writeEndObject();
+        out.writeRaw('\n');
+    }
+
+    private void counters(String type) throws IOException {
+        out.writeStartObject();
+        out.writeStringField("type", type);
+        out.writeNumberField("rowsRead", rowsRead);
+        out.writeNumberField("imported", imported);
+        out.writeNumberField("failed", failed);
+        out.writeEndObject();
+        out.writeRaw('\n');
+        out.flush();
+    }
+
+    private static String column(List<String> record, int index) {
+        return index >= 0 && index < record.size() ? record.get(index) : null;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    // Minimal RFC 4180 reader: quoted fields, "" escapes, and newlines inside quotes
+    static class CsvReader {
+        private final Reader in;
+        private long line = 1;
+        private long recordLine = 1;
+        private int pushedBack = -2;
+
+        CsvReader(Reader in) {
+            this.in = in;
+        }
+
+        // Line number where the last record returned by next() started
+        long recordLine() {
+            return recordLine;
+        }
+
+        List<String> next() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                    }
+                    if (c == '"') {
+                        int nextChar = read();
+                        if (nextChar == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = nextChar;
+                            continue;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    if (fields.size() == MAX_FIELDS - 1) {
+                        throw new RecordTooLarge("More than " + MAX_FIELDS + " fields on line " + recordLine);
+                    }
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    break;
+                } else if (c == '\r') {
+                    int nextChar = read();
+                    if (nextChar != '\n') {
+                        unread(nextChar);
+                    }
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+
+                if (field.length() > MAX_FIELD_LENGTH) {
+                    throw new RecordTooLarge("Field longer than " + MAX_FIELD_LENGTH + " characters on line " + recordLine);
+                }
+                c = read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private int read() throws IOException {
+            int c;
+            if (pushedBack != -2) {
+                c = pushedBack;
+                pushedBack = -2;
+            } else {
+                c = in.read();
+            }
+            if (c == '\n') {
+                line++;
+            }
+            return c;
+        }
+
+        private void unread(int c) {
+            if (c == '\n') {
+                line--;
+            }
+            pushedBack = c;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+// One page of a user's tasks plus the keyset cursor for the next page.
+// The cursor encodes the (created_at, id) of the last row, so fetching the next
+// page is an index range scan no matter how deep into the list the user is.
+public class TaskPage {
+    private final List<Task> tasks;
+    private final String nextCursor;
+
+    // Decoded cursor position: rows strictly older than this are on the next page
+    public record Cursor(String createdAt, int id) {}
+
+    public TaskPage(List<Task> tasks, String nextCursor) {
+        this.tasks = tasks;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Task> getTasks() { return tasks; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean hasMore() { return nextCursor != null; }
+
+    public static String encodeCursor(String createdAt, int id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns null for a missing or malformed cursor, which means "first page"
+    public static Cursor decodeCursor(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf('|');
+            if (split <= 0) {
+                return null;
+            }
+            return new Cursor(raw.substring(0, split), Integer.parseInt(raw.substring(split + 1)));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
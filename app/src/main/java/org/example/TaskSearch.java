@@ -0,0 +1,160 @@
+package com.example;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+// Full-text search over task titles and descriptions with SQLite FTS5.
+// tasks_fts is an external-content index: it stores only the index and reads text back from
+// tasks (through the tasks_search_source view) for snippets. Triggers on tasks keep it in sync.
+// Every row is also indexed under an owner token ("u<user id>"), so a query is the intersection
+// of that user's posting list with the search terms instead of a match across all users.
+public class TaskSearch {
+
+    // A matching task with its title and a description excerpt as HTML, matches wrapped in <mark>
+    public record Hit(Task task, String titleHtml, String snippetHtml) {}
+
+    // Marker characters passed to highlight()/snippet(), swapped for <mark> after HTML-escaping
+    private static final char MARK_START = '\u0002';
+    private static final char MARK_END = '\u0003';
+
+    static final String[] CREATE_STATEMENTS = {
+        """
+        CREATE VIEW IF NOT EXISTS tasks_search_source AS
+            SELECT id, 'u' || user_id AS owner, title, description FROM tasks
+        """,
+        """
+        CREATE VIRTUAL TABLE IF NOT EXISTS tasks_fts USING fts5(
+            owner, title, description,
+            content = 'tasks_search_source', content_rowid = 'id',
+            tokenize = 'unicode61 remove_diacritics 2', prefix = '2 3'
+        )
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS trg_tasks_fts_insert AFTER INSERT ON tasks
+        BEGIN
+            INSERT INTO tasks_fts (rowid, owner, title, description)
+                VALUES (NEW.id, 'u' || NEW.user_id, NEW.title, NEW.description);
+        END
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS trg_tasks_fts_delete AFTER DELETE ON tasks
+        BEGIN
+            INSERT INTO tasks_fts (tasks_fts, rowid, owner, title, description)
+                VALUES ('delete', OLD.id, 'u' || OLD.user_id, OLD.title, OLD.description);
+        END
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS trg_tasks_fts_update AFTER UPDATE OF user_id, title, description ON tasks
+        BEGIN
+            INSERT INTO tasks_fts (tasks_fts, rowid, owner, title, description)
+                VALUES ('delete', OLD.id, 'u' || OLD.user_id, OLD.title, OLD.description);
+            INSERT INTO tasks_fts (rowid, owner, title, description)
+                VALUES (NEW.id, 'u' || NEW.user_id, NEW.title, NEW.description);
+        END
+        """
+    };
+
+    // bm25 weights per column: owner never counts, a title hit counts ten times a description hit.
+    // The match, ranking and markup run in the subquery against tasks_fts alone (its title and
+    // description columns would clash with tasks' in one join); tasks are joined by rowid after.
+    private static final String SEARCH_SQL = "SELECT " + TodoAppDatabase.TASK_COLUMNS + ","
+            + " m.title_marked, m.snippet_marked"
+            + " FROM (SELECT rowid AS task_id,"
+            + "   highlight(tasks_fts, 1, char(2), char(3)) AS title_marked,"
+            + "   snippet(tasks_fts, 2, char(2), char(3), '…', 12) AS snippet_marked,"
+            + "   bm25(tasks_fts, 0.0, 10.0, 1.0) AS score"
+            + "   FROM tasks_fts WHERE tasks_fts MATCH ? ORDER BY score LIMIT ?) m"
+            + " JOIN tasks ON tasks.id = m.task_id"
+            + " LEFT JOIN task_rollups r ON r.task_id = tasks.id"
+            + " WHERE tasks.user_id = ?"
+            + " ORDER BY m.score";
+
+    // Create the index and triggers; indexes the existing tasks the first time
+    static void initialize(PooledConnection conn) throws SQLException {
+        boolean exists;
+        try (Statement stmt = conn.raw().createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'tasks_fts'")) {
+            exists = rs.next();
+        }
+
+        try (Statement stmt = conn.raw().createStatement()) {
+            for (String sql : CREATE_STATEMENTS) {
+                stmt.execute(sql);
+            }
+            if (!exists) {
+                stmt.execute("INSERT INTO tasks_fts (tasks_fts) VALUES ('rebuild')");
+            }
+        }
+    }
+
+    // Best matches first. The last word is treated as a prefix so results follow typing.
+    static List<Hit> search(PooledConnection conn, int userId, String query, int limit) throws SQLException {
+        List<Hit> hits = new ArrayList<>();
+        String match = toMatchExpression(userId, query);
+        if (match == null) {
+            return hits;
+        }
+
+        PreparedStatement pstmt = conn.prepare(SEARCH_SQL);
+        pstmt.setString(1, match);
+        pstmt.setInt(2, limit);
+        pstmt.setInt(3, userId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                hits.add(new Hit(TodoAppDatabase.readTask(rs),
+                        markedToHtml(rs.getString("title_marked")),
+                        markedToHtml(rs.getString("snippet_marked"))));
+            }
+        }
+        return hits;
+    }
+
+    // Turn free text into an FTS5 expression. Every word is quoted, so user input can never be
+    // FTS syntax; words are ANDed, the last one is a prefix, and only title and description are searched:
+    //   owner:"u7" AND {title description}: ("quarterly" "bud"*)
+    static String toMatchExpression(int userId, String query) {
+        if (query == null) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            String cleaned = word.replace("\"", "");
+            if (cleaned.codePoints().anyMatch(Character::isLetterOrDigit)) {
+                terms.add('"' + cleaned + '"');
+            }
+        }
+        if (terms.isEmpty()) {
+            return null;
+        }
+        int last = terms.size() - 1;
+        terms.set(last, terms.get(last) + "*");
+        return "owner:\"u" + userId + "\" AND {title description}: (" + String.join(" ", terms) + ")";
+    }
+
+    // HTML-escape the stored text, then turn the match markers into <mark> tags
+    static String markedToHtml(String marked) {
+        if (marked == null) {
+            return "";
+        }
+        StringBuilder html = new StringBuilder(marked.length() + 16);
+        for (int i = 0; i < marked.length(); i++) {
+            char c = marked.charAt(i);
+            switch (c) {
+                case MARK_START -> html.append("<mark>");
+                case MARK_END -> html.append("</mark>");
+                case '&' -> html.append("&amp;");
+                case '<' -> html.append("&lt;");
+                case '>' -> html.append("&gt;");
+                case '"' -> html.append("&quot;");
+                case '\'' -> html.append("&#39;");
+                default -> html.append(c);
+            }
+        }
+        return html.toString();
+    }
+}
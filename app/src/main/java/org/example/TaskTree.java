@@ -0,0 +1,175 @@
+package com.example;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+// Subtask trees over tasks.parent_task_id.
+// task_closure holds one row per (ancestor, descendant) pair, including each task with itself at
+// depth 0, so a whole subtree is one indexed range read whatever its depth. task_rollups keeps
+// each parent's subtask and completed-subtask counts (all levels below it), so completion
+// percentages are a primary-key lookup. Both are maintained by triggers on tasks.
+// Deleting a task deletes its subtree; parent_task_id is fixed once a task is created.
+public class TaskTree {
+
+    static final String[] CREATE_TABLES = {
+        """
+        CREATE TABLE IF NOT EXISTS task_closure (
+            ancestor_id INTEGER NOT NULL,
+            descendant_id INTEGER NOT NULL,
+            depth INTEGER NOT NULL,
+            PRIMARY KEY (ancestor_id, descendant_id)
+        ) WITHOUT ROWID
+        """,
+        "CREATE INDEX IF NOT EXISTS idx_task_closure_descendant ON task_closure(descendant_id, depth)",
+        """
+        CREATE TABLE IF NOT EXISTS task_rollups (
+            task_id INTEGER PRIMARY KEY,
+            subtasks INTEGER NOT NULL DEFAULT 0,
+            completed INTEGER NOT NULL DEFAULT 0
+        )
+        """,
+        "CREATE INDEX IF NOT EXISTS idx_tasks_parent ON tasks(parent_task_id)"
+    };
+
+    static final String[] CREATE_TRIGGERS = {
+        """
+        CREATE TRIGGER IF NOT EXISTS trg_task_tree_insert AFTER INSERT ON tasks
+        BEGIN
+            INSERT INTO task_closure (ancestor_id, descendant_id, depth) VALUES (NEW.id, NEW.id, 0);
+            INSERT INTO task_closure (ancestor_id, descendant_id, depth)
+                SELECT ancestor_id, NEW.id, depth + 1 FROM task_closure WHERE descendant_id = NEW.parent_task_id;
+            INSERT OR IGNORE INTO task_rollups (task_id)
+                SELECT ancestor_id FROM task_closure WHERE descendant_id = NEW.id AND depth > 0;
+            UPDATE task_rollups SET subtasks = subtasks + 1, completed = completed + (NEW.status IS 'completed')
+                WHERE task_id IN (SELECT ancestor_id FROM task_closure WHERE descendant_id = NEW.id AND depth > 0);
+        END
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS trg_task_tree_delete_subtree BEFORE DELETE ON tasks
+        BEGIN
+            DELETE FROM tasks WHERE id IN
+                (SELECT descendant_id FROM task_closure WHERE ancestor_id = OLD.id AND depth > 0);
+        END
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS trg_task_tree_delete AFTER DELETE ON tasks
+        BEGIN
+            UPDATE task_rollups SET subtasks = subtasks - 1, completed = completed - (OLD.status IS 'completed')
+                WHERE task_id IN (SELECT ancestor_id FROM task_closure WHERE descendant_id = OLD.id AND depth > 0);
+            DELETE FROM task_closure WHERE descendant_id = OLD.id;
+            DELETE FROM task_rollups WHERE task_id = OLD.id;
+        END
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS trg_task_tree_status AFTER UPDATE OF status ON tasks
+        WHEN (OLD.status IS 'completed') != (NEW.status IS 'completed')
+        BEGIN
+            UPDATE task_rollups SET completed = completed + (NEW.status IS 'completed') - (OLD.status IS 'completed')
+                WHERE task_id IN (SELECT ancestor_id FROM task_closure WHERE descendant_id = NEW.id AND depth > 0);
+        END
+        """,
+        """
+        CREATE TRIGGER IF NOT EXISTS trg_task_tree_reparent BEFORE UPDATE OF parent_task_id ON tasks
+        WHEN OLD.parent_task_id IS NOT NEW.parent_task_id
+        BEGIN
+            SELECT RAISE(ABORT, 'parent_task_id cannot be changed');
+        END
+        """
+    };
+
+    // Create the tables and triggers; backfills from parent_task_id the first time
+    static void initialize(PooledConnection conn) throws SQLException {
+        boolean exists;
+        try (Statement stmt = conn.raw().createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'task_closure'")) {
+            exists = rs.next();
+        }
+
+        try (Statement stmt = conn.raw().createStatement()) {
+            for (String sql : CREATE_TABLES) {
+                stmt.execute(sql);
+            }
+            for (String trigger : CREATE_TRIGGERS) {
+                stmt.execute(trigger);
+            }
+        }
+
+        if (!exists) {
+            rebuild(conn);
+        }
+    }
+
+    // Recompute the closure table and rollups from parent_task_id in one transaction
+    static void rebuild(PooledConnection conn) throws SQLException {
+        boolean autoCommit = conn.raw().getAutoCommit();
+        conn.raw().setAutoCommit(false);
+        try (Statement stmt = conn.raw().createStatement()) {
+            stmt.execute("DELETE FROM task_closure");
+            stmt.execute("""
+                INSERT INTO task_closure (ancestor_id, descendant_id, depth)
+                WITH RECURSIVE tree(ancestor_id, descendant_id, depth) AS (
+                    SELECT id, id, 0 FROM tasks
+                    UNION ALL
+                    SELECT tree.ancestor_id, t.id, tree.depth + 1
+                    FROM tree JOIN tasks t ON t.parent_task_id = tree.descendant_id
+                )
+                SELECT ancestor_id, descendant_id, depth FROM tree
+                """);
+            stmt.execute("DELETE FROM task_rollups");
+            stmt.execute("""
+                INSERT INTO task_rollups (task_id, subtasks, completed)
+                SELECT c.ancestor_id, COUNT(*), SUM(t.status IS 'completed')
+                FROM task_closure c JOIN tasks t ON t.id = c.descendant_id
+                WHERE c.depth > 0
+                GROUP BY c.ancestor_id
+                """);
+            if (autoCommit) {
+                conn.raw().commit();
+            }
+        } catch (SQLException e) {
+            if (autoCommit) {
+                conn.raw().rollback();
+            }
+            throw e;
+        } finally {
+            conn.raw().setAutoCommit(autoCommit);
+        }
+    }
+
+    // Load a task and every task below it in one query, nested through Task.getSubtasks().
+    // Returns null if the task does not exist or belongs to another user.
+    static Task load(PooledConnection conn, int userId, int rootId) throws SQLException {
+        PreparedStatement pstmt = conn.prepare(
+                "SELECT " + TodoAppDatabase.TASK_COLUMNS + " FROM task_closure c"
+                + " JOIN tasks ON tasks.id = c.descendant_id"
+                + " LEFT JOIN task_rollups r ON r.task_id = tasks.id"
+                + " WHERE c.ancestor_id = ? AND tasks.user_id = ?"
+                + " ORDER BY c.depth, tasks.created_at, tasks.id");
+        pstmt.setInt(1, rootId);
+        pstmt.setInt(2, userId);
+
+        // Ordered by depth, so a task's parent is always read before the task itself
+        Map<Integer, Task> byId = new HashMap<>();
+        Task root = null;
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                Task task = TodoAppDatabase.readTask(rs);
+                byId.put(task.getId(), task);
+                if (task.getId() == rootId) {
+                    root = task;
+                } else {
+                    Task parent = byId.get(task.getParentTaskId());
+                    if (parent != null) {
+                        parent.getSubtasks().add(task);
+                    }
+                }
+            }
+        }
+        return root;
+    }
+}
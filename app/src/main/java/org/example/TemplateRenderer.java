@@ -0,0 +1,155 @@
+package com.example;
+
+import io.javalin.http.Context;
+import jakarta.servlet.http.HttpServletResponse;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+// Renders Thymeleaf templates straight into the servlet output stream instead of
+// building the whole page as a String first. No Content-Length is set, so Jetty sends
+// the page with chunked transfer encoding as soon as the first buffer fills up.
+public class TemplateRenderer {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final TemplateEngine templateEngine;
+    private final boolean gzip;
+
+    // Per template: time in templateEngine.process, which includes writing the page out
+    private final ConcurrentHashMap<String, LatencyHistogram> renderTimes = new ConcurrentHashMap<>();
+
+    private TemplateRenderer(TemplateEngine templateEngine, boolean gzip) {
+        this.templateEngine = templateEngine;
+        this.gzip = gzip;
+    }
+
+    // Template caching is on unless -Dtodo.dev=true; gzip can be turned off with -Dtodo.html.gzip=false
+    public static TemplateRenderer create(StaticAssets assets) {
+        boolean devMode = Boolean.getBoolean("todo.dev");
+
+        TemplateEngine templateEngine = new TemplateEngine();
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("/templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode("HTML");
+        resolver.setCharacterEncoding("UTF-8");
+        // Parsed templates stay cached for the life of the process; dev mode re-reads them on every request
+        resolver.setCacheable(!devMode);
+        resolver.setCacheTTLMs(null);
+        templateEngine.setTemplateResolver(resolver);
+
+        // Fingerprinted CSS/JS, linked from templates via #assets.url(...)
+        templateEngine.addDialect(new AssetDialect(assets));
+
+        boolean gzip = Boolean.parseBoolean(System.getProperty("todo.html.gzip", "true"));
+        return new TemplateRenderer(templateEngine, gzip);
+    }
+
+    public TemplateEngine getTemplateEngine() {
+        return templateEngine;
+    }
+
+    public Map<String, LatencyHistogram> renderTimes() {
+        return renderTimes;
+    }
+
+    // Render a template as the HTML response of this request. Content-Encoding is only set
+    // once the page starts coming out; if the template fails before the response is committed,
+    // the response is reset so the error page goes out plain, not labelled as gzip.
+    public void render(Context ctx, String template, IContext context) throws IOException {
+        HttpServletResponse res = ctx.res();
+        res.setContentType("text/html; charset=utf-8");
+        res.setBufferSize(BUFFER_SIZE);
+
+        boolean compress = gzip && AcceptEncoding.accepts(ctx.header("Accept-Encoding"), "gzip");
+        if (gzip) {
+            res.setHeader("Vary", "Accept-Encoding");
+        }
+
+        OutputStream out = res.getOutputStream();
+        EncodingStream encoded = new EncodingStream(res, out, compress);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(encoded, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        long start = System.nanoTime();
+        try {
+            templateEngine.process(template, context, writer);
+            renderTime(template).recordNanos(System.nanoTime() - start);
+            writer.flush();
+            encoded.finish();
+        } catch (RuntimeException e) {
+            if (!res.isCommitted()) {
+                res.reset();
+            }
+            throw e;
+        }
+        out.flush();
+    }
+
+    // Passes the page to the servlet stream, gzipped or not, deciding the headers on the first write
+    private static final class EncodingStream extends OutputStream {
+        private final HttpServletResponse res;
+        private final OutputStream out;
+        private final boolean compress;
+        private OutputStream target;
+
+        EncodingStream(HttpServletResponse res, OutputStream out, boolean compress) {
+            this.res = res;
+            this.out = out;
+            this.compress = compress;
+        }
+
+        private OutputStream target() throws IOException {
+            if (target == null) {
+                if (compress) {
+                    res.setHeader("Content-Encoding", "gzip");
+                    target = new GZIPOutputStream(out, BUFFER_SIZE);
+                } else {
+                    target = out;
+                }
+            }
+            return target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                target().write(b, off, len);
+            }
+        }
+
+        // Flushing an untouched stream must not pick the encoding
+        @Override
+        public void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        // End the gzip stream (an empty page is sent as it is)
+        void finish() throws IOException {
+            if (target instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
+            }
+        }
+    }
+
+    private LatencyHistogram renderTime(String template) {
+        LatencyHistogram histogram = renderTimes.get(template);
+        return histogram != null ? histogram : renderTimes.computeIfAbsent(template, k -> new LatencyHistogram());
+    }
+}
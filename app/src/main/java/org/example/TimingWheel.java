@@ -0,0 +1,172 @@
+package com.example;
+
+import java.util.function.Consumer;
+
+// Hierarchical timing wheel (Varghese & Lauck): levels of wheelSize slots, where a slot on
+// level l spans wheelSize^l ticks. A timer goes on the lowest level whose range covers its
+// deadline and is moved down a level each time the wheel reaches its slot, so scheduling and
+// cancelling are O(1) and a tick only touches timers that are due or being moved down.
+// Deadlines beyond the top level's range wait in its farthest slot and are placed again later.
+//
+// Not thread-safe: ReminderScheduler calls it under its own lock.
+public class TimingWheel<T> {
+
+    // A scheduled value; cancel it through the wheel it came from
+    public static final class Timeout<T> {
+        private final long deadlineTick;
+        private final T value;
+        private Slot<T> slot;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(long deadlineTick, T value) {
+            this.deadlineTick = deadlineTick;
+            this.value = value;
+        }
+
+        public T value() {
+            return value;
+        }
+
+        public boolean isPending() {
+            return slot != null;
+        }
+    }
+
+    // Doubly linked list of the timeouts in one slot
+    private static final class Slot<T> {
+        Timeout<T> head;
+
+        void add(Timeout<T> timeout) {
+            timeout.slot = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.slot = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        // Empty the slot, returning its former contents as a list linked through next
+        Timeout<T> drain() {
+            Timeout<T> all = head;
+            head = null;
+            return all;
+        }
+    }
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int bits;
+    private final int mask;
+    private final Slot<T>[][] levels;
+    // Last tick processed; timers are always placed after it
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        if (Integer.bitCount(wheelSize) != 1 || levelCount < 1 || (long) Integer.numberOfTrailingZeros(wheelSize) * levelCount > 62) {
+            throw new IllegalArgumentException("wheelSize must be a power of two and the levels fit in 62 bits");
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.levels = new Slot[levelCount][wheelSize];
+        for (Slot<T>[] level : levels) {
+            for (int i = 0; i < wheelSize; i++) {
+                level[i] = new Slot<>();
+            }
+        }
+    }
+
+    // Schedule value for deadlineMillis; anything already due fires on the next tick
+    public Timeout<T> schedule(long deadlineMillis, T value) {
+        long deadlineTick = Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis);
+        Timeout<T> timeout = new Timeout<>(Math.max(deadlineTick, currentTick + 1), value);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    public void cancel(Timeout<T> timeout) {
+        if (timeout.slot != null) {
+            timeout.slot.remove(timeout);
+            size--;
+        }
+    }
+
+    // Process every tick up to nowMillis, handing each expired value to expired
+    public void advance(long nowMillis, Consumer<T> expired) {
+        long nowTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        while (currentTick < nowTick) {
+            long tick = ++currentTick;
+            // Move down every higher-level slot whose span starts at this tick, top level first
+            for (int level = levels.length - 1; level >= 1; level--) {
+                long span = tick >> (level * bits);
+                if ((span << (level * bits)) == tick) {
+                    cascade(levels[level][(int) (span & mask)]);
+                }
+            }
+            Timeout<T> due = levels[0][(int) (tick & mask)].drain();
+            while (due != null) {
+                Timeout<T> next = due.next;
+                due.slot = null;
+                due.prev = null;
+                due.next = null;
+                size--;
+                expired.accept(due.value);
+                due = next;
+            }
+        }
+    }
+
+    private void cascade(Slot<T> slot) {
+        Timeout<T> timeout = slot.drain();
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    // Put a timeout on the lowest level that can hold it; deadlineTick > currentTick, or
+    // == currentTick while cascading, when it lands in the level 0 slot about to be drained
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        for (int level = 0; level < levels.length; level++) {
+            if (delta < 1L << ((level + 1) * bits)) {
+                levels[level][(int) ((timeout.deadlineTick >> (level * bits)) & mask)].add(timeout);
+                return;
+            }
+        }
+        // Past the top level's range: park it in the last slot that range reaches
+        int top = levels.length - 1;
+        long parkTick = currentTick + (1L << ((top + 1) * bits)) - 1;
+        levels[top][(int) ((parkTick >> (top * bits)) & mask)].add(timeout);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // The wall-clock time of the last tick processed
+    public long currentMillis() {
+        return startMillis + currentTick * tickMillis;
+    }
+}
@@ -1,32 +1,214 @@
 package com.example;
 
 import io.javalin.Javalin;
-import org.thymeleaf.TemplateEngine;
+import io.javalin.http.InternalServerErrorResponse;
 import org.thymeleaf.context.Context;
-import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 
 // Database imports
 import java.sql.*;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TodoAppDatabase {
-    private static final String DB_URL = "jdbc:sqlite:todo_app.db";
+    private static final String DB_PATH = System.getProperty("todo.db.path", "todo_app.db");
+
+    // The database files, each with its own connection pool and (WAL mode) writer: one file,
+    // or a users directory plus -Dtodo.db.shards task files. Every data-access helper borrows
+    // from the directory or from the user's task shard.
+    private static Shards shards;
+
+    // Sheds task writes per shard (429/503) before its writer queue grows
+    private static AdmissionControl admission;
+
+    // username -> id, so authenticated routes never look the user up again
+    private static final IdentityCache identities =
+            new IdentityCache(Integer.getInteger("todo.identityCache.maxEntries", 10_000));
+
+    // Ids of users known to exist, and of users deleted by this process. Memory and token sessions
+    // never read the users table, so currentSession checks these to stop honouring a session once
+    // its account is deleted. The deleted set wins over a lookup that raced the delete; ids are
+    // never reused. A delete by another process is only seen once the id drops out of liveUsers.
+    private static final int LIVE_USERS_MAX = Integer.getInteger("todo.identityCache.maxEntries", 10_000);
+    private static final Set<Integer> liveUsers = Collections.synchronizedSet(Collections.newSetFromMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+                    return size() > LIVE_USERS_MAX;
+                }
+            }));
+    private static final Set<Integer> deletedUsers = ConcurrentHashMap.newKeySet();
+
+    // PBKDF2 hashing on its own bounded pool, so login bursts cannot starve other routes
+    private static final PasswordHasher passwords = new PasswordHasher(PasswordHasher.Config.fromSystemProperties());
+
+    // Route latency histograms and gauges, served at /metrics
+    private static final Metrics metrics = new Metrics();
+
+    // End-to-end time of executeWrite: queueing for the writer (WAL) or a connection, plus the commit
+    private static final LatencyHistogram writeTimes = new LatencyHistogram();
+
+    // Live task updates pushed to open pages over SSE (/api/v1/events)
+    private static final TaskEvents events = new TaskEvents(TaskEvents.Config.fromSystemProperties());
+
+    // Per-user data version behind the ETags on task pages and JSON, bumped by every task mutation;
+    // only sees this process's writes (-Dtodo.versions.enabled=false when several share the database)
+    private static final DataVersions versions = new DataVersions(DataVersions.enabledBySystemProperties());
+
+    // Tasks listed on the dashboard
+    private static final int DASHBOARD_TASKS = 10;
+
+    // Fires tasks' reminders, one scheduler per task shard; empty until start(), or with
+    // -Dtodo.reminders.enabled=false
+    private static final List<ReminderScheduler> reminders = new ArrayList<>();
+
+    // Where logins live: Jetty's memory, the sessions table or signed cookies (-Dtodo.session.mode)
+    private static SessionStore sessions;
+
+    // Columns Task is built from, in every task query; the rollup columns need
+    // task_rollups joined as r (TASK_TABLE does that)
+    static final String TASK_COLUMNS = "id, title, description, priority, status, version, parent_task_id, created_at, "
+            + "due_at, remind_at, COALESCE(r.subtasks, 0) AS subtasks, COALESCE(r.completed, 0) AS completed_subtasks";
+    static final String TASK_TABLE = "tasks LEFT JOIN task_rollups r ON r.task_id = tasks.id";
+
+    // Tasks shown per page on /tasks
+    private static final int TASK_PAGE_SIZE = Integer.getInteger("todo.tasks.pageSize", 20);
+
+    // Best matches shown for /tasks?q=
+    private static final int SEARCH_PAGE_SIZE = 100;
+
+    // Each user's newest tasks and counts, for the dashboard and first task page; like versions,
+    // single-process only, and off with them
+    private static final TaskCache taskCache = new TaskCache(TaskCache.Config.fromSystemProperties(),
+            Math.max(DASHBOARD_TASKS, TASK_PAGE_SIZE));
+
+    // Returned by updateTask/deleteTask when the task exists but no longer has the expected version
+    static final int VERSION_CONFLICT = -2;
+
+    // Marker in a bulk versions map for "change it whatever its version"
+    static final int ANY_VERSION = -1;
+
+    // Applied to every connection; synchronous=NORMAL is safe with WAL and skips the per-commit fsync
+    private static final List<String> WAL_PRAGMAS = List.of(
+            "PRAGMA busy_timeout = 5000",
+            "PRAGMA synchronous = NORMAL",
+            "PRAGMA cache_size = -16000",
+            "PRAGMA temp_store = MEMORY",
+            "PRAGMA mmap_size = 134217728"
+    );
 
     public static void main(String[] args) {
+        start(7072);  // Server runs on port 7072 (different from your other app)
+    }
+
+    // Start the app on a port (0 picks a free one); used by main, LoadGenerator and the tests
+    public static Javalin start(int port) {
         // Initialize database when app starts
         initializeDatabase();
+        sessions = SessionStore.create(SessionStore.Config.fromSystemProperties());
+        ReminderScheduler.Config reminderConfig = ReminderScheduler.Config.fromSystemProperties();
+        if (reminderConfig.enabled) {
+            for (Shard shard : shards.taskShards()) {
+                reminders.add(new ReminderScheduler(reminderConfig, events, shard));
+            }
+        }
+        admission = new AdmissionControl(AdmissionControl.Config.fromSystemProperties(), shards);
 
-        // Set up Thymeleaf template engine
-        TemplateEngine templateEngine = new TemplateEngine();
-        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
-        resolver.setPrefix("/templates/");
-        resolver.setSuffix(".html");
-        resolver.setTemplateMode("HTML");
-        templateEngine.setTemplateResolver(resolver);
+        // Set up Thymeleaf, rendering straight into the response stream
+        StaticAssets assets = StaticAssets.load();
+        TemplateRenderer renderer = TemplateRenderer.create(assets);
         
-        Javalin app = Javalin.create();
-        app.start(7072);  // Server runs on port 7072 (different from your other app)
+        // Jetty threads: platform pool by default, a virtual thread per request with -Dtodo.http.threads=virtual
+        Javalin app = Javalin.create(config -> {
+            config.jetty.server(HttpThreads::server);
+            config.requestLogger.http(metrics::recordRequest);
+        });
+        app.events(event -> event.handlerAdded(metrics::routeAdded));
+        app.start(port);
+
+        // ✅ Admission control: task writes over their shard's rate or queue limit get 429/503
+        app.before(admission::check);
+
+        // ✅ Admin access: /metrics and /admin/* need -Dtodo.admin.token, or a local client without one
+        AdminAccess adminAccess = new AdminAccess(AdminAccess.Config.fromSystemProperties());
+        app.before("/admin/*", adminAccess::check);
+        app.before("/metrics", adminAccess::check);
+
+        // ✅ A failed read must not be cached under the ETag set before the data was loaded
+        app.after(ctx -> {
+            if (ctx.statusCode() >= 500) {
+                versions.withdraw(ctx);
+            }
+        });
+
+        // ✅ Static assets (immutable, precompressed)
+        assets.register(app);
+
+        // ✅ JSON API (/api/v1/...)
+        TaskApi.register(app);
+
+        // ✅ Connection pool metrics, for sizing todo.db.pool.maxSize (the users file when sharded)
+        app.get("/admin/pool", ctx -> ctx.json(shards.directory().pool().stats()));
+
+        // ✅ Write queue metrics (WAL mode only; the users file when sharded)
+        app.get("/admin/writer", ctx -> {
+            WriteQueue writer = shards.directory().writer();
+            if (writer == null) {
+                ctx.status(404).result("Write queue is only used in WAL mode");
+                return;
+            }
+            ctx.json(writer.stats());
+        });
+
+        // ✅ Pool and writer metrics of every database file
+        app.get("/admin/shards", ctx -> ctx.json(shards.stats()));
+
+        // ✅ Admission control metrics
+        app.get("/admin/admission", ctx -> ctx.json(admission.stats()));
+
+        // ✅ Identity cache metrics
+        app.get("/admin/identities", ctx -> ctx.json(identities.stats()));
+
+        // ✅ Password hashing pool metrics
+        app.get("/admin/passwords", ctx -> ctx.json(passwords.stats()));
+
+        // ✅ Live update stream metrics
+        app.get("/admin/events", ctx -> ctx.json(events.stats()));
+
+        // ✅ Conditional GET metrics (304s answered from the data versions)
+        app.get("/admin/versions", ctx -> ctx.json(versions.stats()));
+
+        // ✅ Task cache metrics
+        app.get("/admin/task-cache", ctx -> ctx.json(taskCache.stats()));
+
+        // ✅ Reminder scheduler metrics
+        app.get("/admin/reminders", ctx -> {
+            if (reminders.isEmpty()) {
+                ctx.status(404).result("Reminders are disabled");
+                return;
+            }
+            Map<String, ReminderScheduler.Stats> stats = new LinkedHashMap<>();
+            for (ReminderScheduler scheduler : reminders) {
+                stats.put(scheduler.shardName(), scheduler.stats());
+            }
+            ctx.json(stats);
+        });
+
+        // ✅ Prometheus scrape endpoint: route, query and template latencies, pool and queue gauges
+        registerMetrics(renderer);
+        metrics.register(app);
 
         // ✅ Route 1: Home/Dashboard page
         app.get("/", ctx -> {
@@ -34,8 +216,7 @@ public class TodoAppDatabase {
             context.setVariable("pageTitle", "Todo App Dashboard");
             context.setVariable("appName", "My Todo Application");
             
-            String renderedHtml = templateEngine.process("index", context);
-            ctx.html(renderedHtml);
+            renderer.render(ctx, "index", context);
         });
 
         // ✅ Route 2: User Registration page
@@ -53,8 +234,7 @@ public class TodoAppDatabase {
             context.setVariable("username", "");
             context.setVariable("email", "");
             
-            String renderedHtml = templateEngine.process("register", context);
-            ctx.html(renderedHtml);
+            renderer.render(ctx, "register", context);
         });
 
         // ✅ Route 3: Process Registration - FIXED
@@ -71,8 +251,7 @@ public class TodoAppDatabase {
                 context.setVariable("username", username != null ? username : "");
                 context.setVariable("email", email != null ? email : "");
                 
-                String renderedHtml = templateEngine.process("register", context);
-                ctx.html(renderedHtml);
+                renderer.render(ctx, "register", context);
                 return;
             }
             if (!password.equals(confirmPassword)) {
@@ -81,13 +260,27 @@ public class TodoAppDatabase {
                 context.setVariable("username", username != null ? username : "");
                 context.setVariable("email", email != null ? email : "");
                 
-                String renderedHtml = templateEngine.process("register", context);
-                ctx.html(renderedHtml);
+                renderer.render(ctx, "register", context);
                 return;
             }
 
             // Add user to database
-            if (addUser(username, email, password)) {
+            boolean added;
+            try {
+                added = addUser(username, email, password) > 0;
+            } catch (PasswordHasher.Busy e) {
+                // Hashing pool is saturated: turn the request away now instead of queueing it
+                ctx.status(503);
+                ctx.header("Retry-After", "1");
+                Context context = new Context();
+                context.setVariable("error", "We are very busy right now, please try again in a moment.");
+                context.setVariable("username", username);
+                context.setVariable("email", email != null ? email : "");
+
+                renderer.render(ctx, "register", context);
+                return;
+            }
+            if (added) {
                 ctx.redirect("/register?msg=Registration successful! Please login.");
             } else {
                 Context context = new Context();
@@ -95,8 +288,7 @@ public class TodoAppDatabase {
                 context.setVariable("username", username != null ? username : "");
                 context.setVariable("email", email != null ? email : "");
                 
-                String renderedHtml = templateEngine.process("register", context);
-                ctx.html(renderedHtml);
+                renderer.render(ctx, "register", context);
             }
         });
 
@@ -113,8 +305,7 @@ public class TodoAppDatabase {
             // Always set username variable to avoid null errors in templates
             context.setVariable("username", "");
 
-            String renderedHtml = templateEngine.process("login", context);
-            ctx.html(renderedHtml);
+            renderer.render(ctx, "login", context);
         });
 
         // ✅ Route 5: Process Login - FIXED
@@ -122,10 +313,37 @@ public class TodoAppDatabase {
             String username = ctx.formParam("username");
             String password = ctx.formParam("password");
 
-            if (validateUser(username, password)) {
-                // Store user session info (simplified)
-                ctx.sessionAttribute("username", username);
-                ctx.sessionAttribute("isLoggedIn", true);
+            boolean valid;
+            try {
+                valid = validateUser(username, password);
+            } catch (PasswordHasher.Busy e) {
+                // Hashing pool is saturated: turn the login away now instead of queueing it
+                ctx.status(503);
+                ctx.header("Retry-After", "1");
+                Context context = new Context();
+                context.setVariable("error", "Too many sign-ins right now, please try again in a moment.");
+                context.setVariable("username", username != null ? username : "");
+
+                renderer.render(ctx, "login", context);
+                return;
+            }
+
+            if (valid) {
+                // The id is resolved once here (validateUser has just cached it)
+                // and carried in the session for every later request
+                int userId = getUserIdByUsername(username);
+                if (userId < 0 || !sessions.start(ctx, new SessionStore.Session(userId, username))) {
+                    // Right password, but no session to show for it: say so rather than
+                    // redirecting to a dashboard that would send them back here
+                    ctx.status(503);
+                    ctx.header("Retry-After", "1");
+                    Context context = new Context();
+                    context.setVariable("error", "Could not sign you in right now, please try again in a moment.");
+                    context.setVariable("username", username);
+
+                    renderer.render(ctx, "login", context);
+                    return;
+                }
                 ctx.redirect("/dashboard");
             } else {
                 // Pass the username back to preserve form data
@@ -133,97 +351,56 @@ public class TodoAppDatabase {
                 context.setVariable("error", "Invalid username or password!");
                 context.setVariable("username", username != null ? username : "");
                 
-                String renderedHtml = templateEngine.process("login", context);
-                ctx.html(renderedHtml);
+                renderer.render(ctx, "login", context);
             }
         });
 
         // ✅ Route 6: User Dashboard
         // ✅ Route 6: User Dashboard - MODIFIED
         app.get("/dashboard", ctx -> {
-            if (ctx.sessionAttribute("isLoggedIn") == null) {
+            if (currentSession(ctx) == null) {
                 ctx.redirect("/login");
                 return;
             }
 
-            Context context = new Context();
-            String username = ctx.sessionAttribute("username");
-            List<Task> userTasks = getUserTasks(getUserIdByUsername(username));
-
-            // Calculate counts manually
-            int pendingCount = 0;
-            int completedCount = 0;
-            int inProgressCount = 0;
-
-            if (userTasks != null) {
-                for (Task task : userTasks) {
-                    if ("pending".equals(task.getStatus())) {
-                        pendingCount++;
-                    } else if ("completed".equals(task.getStatus())) {
-                        completedCount++;
-                    } else if ("in_progress".equals(task.getStatus())) {
-                        inProgressCount++;
-                    }
-                }
+            if (notModified(ctx)) {
+                return;
             }
 
-            context.setVariable("username", username);
-            context.setVariable("tasks", userTasks);
-            context.setVariable("pendingCount", pendingCount);
-            context.setVariable("completedCount", completedCount);
-            context.setVariable("inProgressCount", inProgressCount);
-            context.setVariable("pageTitle", "Dashboard - " + username);
-
-            String renderedHtml = templateEngine.process("dashboard", context);
-            ctx.html(renderedHtml);
+            Context context = dashboardContext(sessionUserId(ctx), currentSession(ctx).username());
+            if (context == null) {
+                throw new InternalServerErrorResponse("Could not load your tasks");
+            }
+            renderer.render(ctx, "dashboard", context);
         });
 
         // ✅ Route 7: Show all tasks
         // ✅ Route 7: Show all tasks - MODIFIED
         app.get("/tasks", ctx -> {
-            if (ctx.sessionAttribute("isLoggedIn") == null) {
+            if (currentSession(ctx) == null) {
                 ctx.redirect("/login");
                 return;
             }
 
-            Context context = new Context();
-            String username = ctx.sessionAttribute("username");
-            List<Task> userTasks = getUserTasks(getUserIdByUsername(username));
-
-            // Calculate task counts in Java
-            int pendingCount = 0;
-            int completedCount = 0;
-            int inProgressCount = 0;
-            int totalCount = 0;
-
-            if (userTasks != null) {
-                totalCount = userTasks.size();
-                for (Task task : userTasks) {
-                    if ("pending".equals(task.getStatus())) {
-                        pendingCount++;
-                    } else if ("completed".equals(task.getStatus())) {
-                        completedCount++;
-                    } else if ("in_progress".equals(task.getStatus())) {
-                        inProgressCount++;
-                    }
-                }
+            if (notModified(ctx)) {
+                return;
             }
 
-            context.setVariable("username", username);
-            context.setVariable("tasks", userTasks);
-            context.setVariable("pendingCount", pendingCount);
-            context.setVariable("completedCount", completedCount);
-            context.setVariable("inProgressCount", inProgressCount);
-            context.setVariable("totalCount", totalCount);
-            context.setVariable("pageTitle", "My Tasks");
+            // Filters and cursor come from the query string; unknown values are ignored
+            String status = knownOrNull(ctx.queryParam("status"), Task.STATUSES);
+            String priority = knownOrNull(ctx.queryParam("priority"), Task.PRIORITIES);
+            Context context = tasksContext(sessionUserId(ctx), currentSession(ctx).username(), status, priority,
+                    ctx.queryParam("cursor"), parsePageNumber(ctx.queryParam("page")), ctx.queryParam("q"));
+            if (context == null) {
+                throw new InternalServerErrorResponse("Could not load your tasks");
+            }
 
-            String renderedHtml = templateEngine.process("tasks", context);
-            ctx.html(renderedHtml);
+            renderer.render(ctx, "tasks", context);
         });
 
         // ✅ Route 8: Create new task form - FIXED
         app.get("/tasks/new", ctx -> {
-            if (ctx.sessionAttribute("isLoggedIn") == null) {
+            if (currentSession(ctx) == null) {
                 ctx.redirect("/login");
                 return;
             }
@@ -235,14 +412,17 @@ public class TodoAppDatabase {
             context.setVariable("title", "");
             context.setVariable("description", "");
             context.setVariable("priority", "");
+
+            // /tasks/new?parent=ID creates a subtask of one of the user's tasks
+            Integer parentId = parseTaskId(ctx.queryParam("parent"));
+            context.setVariable("parent", parentId != null ? getTask(sessionUserId(ctx), parentId) : null);
             
-            String renderedHtml = templateEngine.process("new-task", context);
-            ctx.html(renderedHtml);
+            renderer.render(ctx, "new-task", context);
         });
 
         // ✅ Route 9: Process new task creation
         app.post("/tasks", ctx -> {
-            if (ctx.sessionAttribute("isLoggedIn") == null) {
+            if (currentSession(ctx) == null) {
                 ctx.redirect("/login");
                 return;
             }
@@ -250,36 +430,61 @@ public class TodoAppDatabase {
             String title = ctx.formParam("title");
             String description = ctx.formParam("description");
             String priority = ctx.formParam("priority");
-            String username = ctx.sessionAttribute("username");
+            Integer parentTaskId = parseTaskId(ctx.formParam("parentTaskId"));
+
+            // The date inputs are in the browser's local time; the form sends its zone along
+            ZoneId zone = parseZone(ctx.formParam("timezone"));
+            LocalDate dueDate = parseFormTime(ctx.formParam("dueDate"), LocalDate::parse);
+            LocalDateTime remindAt = parseFormTime(ctx.formParam("remindAt"), LocalDateTime::parse);
+            boolean timesValid = (blank(ctx.formParam("dueDate")) || dueDate != null)
+                    && (blank(ctx.formParam("remindAt")) || remindAt != null);
 
-            if (title != null && !title.trim().isEmpty()) {
-                addTask(getUserIdByUsername(username), title, description, priority);
+            if (title != null && !title.trim().isEmpty() && timesValid) {
+                // Due by the end of that day
+                Long dueAt = dueDate != null ? dueDate.plusDays(1).atStartOfDay(zone).toEpochSecond() - 1 : null;
+                addTask(sessionUserId(ctx), title, description, priority, parentTaskId,
+                        dueAt, remindAt != null ? remindAt.atZone(zone).toEpochSecond() : null);
                 ctx.redirect("/tasks");
             } else {
                 // If title is empty, show form again with error
                 Context context = new Context();
-                context.setVariable("error", "Task title is required!");
+                context.setVariable("error", timesValid ? "Task title is required!" : "Due date or reminder is not a valid date!");
                 context.setVariable("title", title != null ? title : "");
                 context.setVariable("description", description != null ? description : "");
                 context.setVariable("priority", priority != null ? priority : "");
                 context.setVariable("pageTitle", "Create New Task");
+                context.setVariable("parent", parentTaskId != null ? getTask(sessionUserId(ctx), parentTaskId) : null);
                 
-                String renderedHtml = templateEngine.process("new-task", context);
-                ctx.html(renderedHtml);
+                renderer.render(ctx, "new-task", context);
             }
         });
 
         // ✅ Route 10: Logout
         app.get("/logout", ctx -> {
-            ctx.sessionAttribute("isLoggedIn", null);
-            ctx.sessionAttribute("username", null);
+            sessions.end(ctx);
             ctx.redirect("/?msg=Logged out successfully!");
         });
+        return app;
+    }
+
+    // The value if it is one of the known ones, else null; Set.of() sets throw on contains(null)
+    private static String knownOrNull(String value, Set<String> known) {
+        return value != null && known.contains(value) ? value : null;
     }
 
     // Initialize database tables
-    private static void initializeDatabase() {
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+    static void initializeDatabase() {
+        StorageMode mode = StorageMode.fromSystemProperties();
+        ConnectionPool.Config poolConfig = ConnectionPool.Config.fromSystemProperties();
+        if (mode == StorageMode.WAL) {
+            poolConfig.withInitStatements(WAL_PRAGMAS);
+        } else {
+            poolConfig.withInitStatements(List.of("PRAGMA busy_timeout = 5000"));
+        }
+        int shardCount = Shards.configuredCount();
+        shards = new Shards(DB_PATH, shardCount, poolConfig);
+
+        try (PooledConnection conn = shards.directory().borrow()) {
             
             String createUserTable = """
                 CREATE TABLE IF NOT EXISTS users (
@@ -290,146 +495,1019 @@ public class TodoAppDatabase {
                     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
                 )
                 """;
-            
-            String createTasksTable = """
-                CREATE TABLE IF NOT EXISTS tasks (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    user_id INTEGER NOT NULL,
-                    title TEXT NOT NULL,
-                    description TEXT,
-                    priority TEXT CHECK(priority IN ('low', 'medium', 'high')) DEFAULT 'medium',
-                    status TEXT CHECK(status IN ('pending', 'in_progress', 'completed')) DEFAULT 'pending',
-                    parent_task_id INTEGER,
-                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                    FOREIGN KEY (user_id) REFERENCES users(id),
-                    FOREIGN KEY (parent_task_id) REFERENCES tasks(id)
-                )
-                """;
-            
-            try (Statement stmt = conn.createStatement()) {
+
+            try (Statement stmt = conn.raw().createStatement()) {
+                // journal_mode is stored in the database file, so this only has to happen once
+                stmt.execute(mode == StorageMode.WAL ? "PRAGMA journal_mode = WAL" : "PRAGMA journal_mode = DELETE");
                 stmt.execute(createUserTable);
-                stmt.execute(createTasksTable);
             }
+
+            // Refuses to start with a shard count the data was not laid out for
+            Shards.checkLayout(conn, shardCount);
             
         } catch (SQLException e) {
             System.out.println("Database initialization failed: " + e.getMessage());
         }
+
+        for (Shard shard : shards.taskShards()) {
+            try (PooledConnection conn = shard.borrow()) {
+                initializeTaskTables(conn, mode);
+                shard.initializeIds(conn);
+            } catch (SQLException e) {
+                System.out.println("Database initialization failed for shard " + shard.name() + ": " + e.getMessage());
+            }
+        }
+
+        if (mode == StorageMode.WAL) {
+            List<Shard> files = databaseFiles();
+            for (Shard shard : files) {
+                try {
+                    shard.startWriter(WriteQueue.Config.fromSystemProperties());
+                } catch (SQLException e) {
+                    System.out.println("Writer connection failed, falling back to pooled writes: " + e.getMessage());
+                }
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> files.forEach(Shard::stopWriter), "db-writer-shutdown"));
+        }
+    }
+
+    // Tasks and everything derived from them; run on each file that holds tasks
+    static void initializeTaskTables(PooledConnection conn, StorageMode mode) throws SQLException {
+        String createTasksTable = """
+            CREATE TABLE IF NOT EXISTS tasks (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                user_id INTEGER NOT NULL,
+                title TEXT NOT NULL,
+                description TEXT,
+                priority TEXT CHECK(priority IN ('low', 'medium', 'high')) DEFAULT 'medium',
+                status TEXT CHECK(status IN ('pending', 'in_progress', 'completed')) DEFAULT 'pending',
+                parent_task_id INTEGER,
+                version INTEGER NOT NULL DEFAULT 1,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                due_at INTEGER,
+                remind_at INTEGER,
+                reminded_at INTEGER,
+                FOREIGN KEY (user_id) REFERENCES users(id),
+                FOREIGN KEY (parent_task_id) REFERENCES tasks(id)
+            )
+            """;
+        
+        // Composite indexes for keyset pagination: one per filter shape, each ordered
+        // like the /tasks query so SQLite never has to sort
+        String[] createTaskIndexes = {
+            "CREATE INDEX IF NOT EXISTS idx_tasks_user_created ON tasks(user_id, created_at DESC, id DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_tasks_user_status_created ON tasks(user_id, status, created_at DESC, id DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_tasks_user_priority_created ON tasks(user_id, priority, created_at DESC, id DESC)"
+        };
+
+        try (Statement stmt = conn.raw().createStatement()) {
+            stmt.execute(mode == StorageMode.WAL ? "PRAGMA journal_mode = WAL" : "PRAGMA journal_mode = DELETE");
+            stmt.execute(createTasksTable);
+            addVersionColumn(stmt);
+            for (String createIndex : createTaskIndexes) {
+                stmt.execute(createIndex);
+            }
+        }
+
+        // Per-user status counters, maintained by triggers on tasks
+        TaskCounters.initialize(conn);
+
+        // Due date and reminder columns, and the pending-reminder index ReminderScheduler reads
+        ReminderScheduler.initialize(conn);
+
+        // Subtask closure table and per-parent rollups, also trigger-maintained
+        TaskTree.initialize(conn);
+
+        // FTS5 index over title and description
+        TaskSearch.initialize(conn);
+    }
+
+    // Everything /metrics reports besides route latencies
+    private static void registerMetrics(TemplateRenderer renderer) {
+        Map<String, LatencyHistogram> holdTimes = new LinkedHashMap<>();
+        for (Shard shard : databaseFiles()) {
+            holdTimes.put(shard.name(), shard.pool().holdTimes());
+        }
+        metrics.summaries("db_connection_hold_seconds",
+                "Time a pooled connection is held per borrow (the queries run on it)", "shard", holdTimes);
+        metrics.summary("db_write_seconds",
+                "Time to run and commit one write, including waiting for the writer", writeTimes);
+        metrics.summaries("template_render_seconds",
+                "Time to render and write out a template", "template", renderer.renderTimes());
+
+        // Pool and writer figures are totals over all database files; /admin/shards has them per file
+        metrics.gauge("db_pool_active", "Connections borrowed", () -> sumShards(shard -> shard.pool().stats().active()));
+        metrics.gauge("db_pool_idle", "Connections idle in the pool", () -> sumShards(shard -> shard.pool().stats().idle()));
+        metrics.gauge("db_pool_waiting", "Callers waiting for a connection", () -> sumShards(shard -> shard.pool().stats().waiting()));
+        metrics.counter("db_pool_timeouts_total", "Borrows that timed out", () -> sumShards(shard -> shard.pool().stats().timeouts()));
+        metrics.counter("db_pool_rejected_total", "Borrows turned away with the wait queue full", () -> sumShards(shard -> shard.pool().stats().rejected()));
+        if (shards.directory().writer() != null) {
+            metrics.gauge("db_writer_queued", "Writes waiting for the writer threads", () -> sumShards(shard -> writerStat(shard, WriteQueue.Stats::queued)));
+            metrics.counter("db_writer_commits_total", "Group commits", () -> sumShards(shard -> writerStat(shard, WriteQueue.Stats::commits)));
+            metrics.counter("db_writer_failed_total", "Writes that failed", () -> sumShards(shard -> writerStat(shard, WriteQueue.Stats::failedOperations)));
+        }
+        metrics.counter("admission_rate_limited_total", "Task writes refused with 429 over their shard's rate", () -> admission.stats().rateLimited());
+        metrics.counter("admission_shed_total", "Task writes refused with 503 with their shard's queue full", () -> admission.stats().shed());
+        metrics.gauge("password_hash_active", "Hashes running", () -> passwords.stats().active());
+        metrics.gauge("password_hash_queued", "Hashes waiting for a thread", () -> passwords.stats().queued());
+        metrics.counter("password_hash_rejected_total", "Hashes refused as busy", () -> passwords.stats().rejected());
+        metrics.gauge("task_event_streams", "Open live update streams", () -> events.stats().streams());
+        metrics.counter("task_events_delivered_total", "Events written to live update streams", () -> events.stats().delivered());
+        metrics.counter("task_event_streams_dropped_total", "Streams closed for falling behind", () -> events.stats().dropped());
+        metrics.counter("http_not_modified_total", "Conditional GETs answered 304 from the data versions", () -> versions.stats().notModified());
+        metrics.gauge("task_cache_entries", "Users with cached tasks", () -> taskCache.stats().entries());
+        metrics.gauge("task_cache_bytes", "Estimated size of the cached tasks", () -> taskCache.stats().bytes());
+        metrics.counter("task_cache_hits_total", "Task cache hits", () -> taskCache.stats().hits());
+        metrics.counter("task_cache_misses_total", "Task cache misses", () -> taskCache.stats().misses());
+        metrics.counter("task_cache_evictions_total", "Users evicted from the task cache", () -> taskCache.stats().evictions());
+        if (!reminders.isEmpty()) {
+            metrics.gauge("reminders_scheduled", "Reminders loaded into the timing wheels", () -> sumReminders(ReminderScheduler.Stats::scheduled));
+            metrics.counter("reminders_fired_total", "Reminders marked as fired", () -> sumReminders(ReminderScheduler.Stats::fired));
+            metrics.counter("reminders_delivered_total", "Reminders logged and pushed to open pages", () -> sumReminders(ReminderScheduler.Stats::delivered));
+            metrics.counter("reminders_retried_total", "Reminders put back on the wheel after failing to fire", () -> sumReminders(ReminderScheduler.Stats::retried));
+        }
+        metrics.gauge("identity_cache_size", "Cached username to id entries", () -> identities.stats().size());
+        if (HttpThreads.threadPool() != null) {
+            metrics.gauge("http_threads", "Jetty pool threads", () -> HttpThreads.threadPool().getThreads());
+            metrics.gauge("http_threads_busy", "Jetty pool threads running a job", () -> HttpThreads.threadPool().getBusyThreads());
+            metrics.gauge("http_queued_jobs", "Jobs waiting for a Jetty pool thread", () -> HttpThreads.threadPool().getQueueSize());
+        }
+    }
+
+    // The users file and every task file, once each
+    private static List<Shard> databaseFiles() {
+        List<Shard> files = new ArrayList<>(shards.taskShards());
+        if (shards.isSharded()) {
+            files.add(0, shards.directory());
+        }
+        return files;
+    }
+
+    private static double sumShards(java.util.function.ToLongFunction<Shard> stat) {
+        long sum = 0;
+        for (Shard shard : databaseFiles()) {
+            sum += stat.applyAsLong(shard);
+        }
+        return sum;
+    }
+
+    private static long writerStat(Shard shard, java.util.function.ToLongFunction<WriteQueue.Stats> stat) {
+        WriteQueue writer = shard.writer();
+        return writer != null ? stat.applyAsLong(writer.stats()) : 0;
+    }
+
+    private static double sumReminders(java.util.function.ToLongFunction<ReminderScheduler.Stats> stat) {
+        long sum = 0;
+        for (ReminderScheduler scheduler : reminders) {
+            sum += stat.applyAsLong(scheduler.stats());
+        }
+        return sum;
+    }
+
+    // Databases created before tasks had a row version get the column added in place
+    private static void addVersionColumn(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(tasks)")) {
+            while (rs.next()) {
+                if ("version".equals(rs.getString("name"))) {
+                    return;
+                }
+            }
+        }
+        stmt.execute("ALTER TABLE tasks ADD COLUMN version INTEGER NOT NULL DEFAULT 1");
+    }
+
+    // Run a write on the users file and wait for it to commit: through its writer in WAL mode
+    // (grouped with other queued writes), or in its own transaction on a pooled connection otherwise
+    static <T> T executeWrite(WriteQueue.WriteOp<T> op) throws SQLException {
+        return executeWrite(shards.directory(), op);
+    }
+
+    // Same, on the file holding the user's tasks
+    static <T> T executeWrite(int userId, WriteQueue.WriteOp<T> op) throws SQLException {
+        return executeWrite(shards.forUser(userId), op);
+    }
+
+    // Run a read on the directory (users and sessions); a connection that fails with a fatal
+    // error is discarded instead of going back to the pool (see Shard.read)
+    static <T> T executeRead(WriteQueue.WriteOp<T> op) throws SQLException {
+        return shards.directory().read(op);
+    }
+
+    // Same, on the file holding the user's tasks
+    static <T> T executeRead(int userId, WriteQueue.WriteOp<T> op) throws SQLException {
+        return shards.forUser(userId).read(op);
+    }
+
+    static <T> T executeWrite(Shard shard, WriteQueue.WriteOp<T> op) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return shard.write(op);
+        } finally {
+            writeTimes.recordNanos(System.nanoTime() - start);
+        }
     }
 
-    // Add user to database
-    private static boolean addUser(String username, String email, String password) {
-        String hashedPassword = hashPassword(password); // Simple hash for now
+    // Add user to database; returns the new user's id, or -1 if it could not be added
+    // (the username or email is taken, or the write failed)
+    static int addUser(String username, String email, String password) {
+        // Hashed before touching the database, so no connection is held while it runs
+        String hashedPassword = passwords.hash(password);
         String sql = "INSERT INTO users (username, email, password_hash) VALUES (?, ?, ?)";
         
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, username);
-            pstmt.setString(2, email);
-            pstmt.setString(3, hashedPassword);
-            pstmt.executeUpdate();
-            return true;
+        try {
+            return executeWrite(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, username);
+                pstmt.setString(2, email);
+                pstmt.setString(3, hashedPassword);
+                pstmt.executeUpdate();
+                try (ResultSet rs = conn.prepare("SELECT last_insert_rowid()").executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : -1;
+                }
+            });
         } catch (SQLException e) {
             System.out.println("Add user failed: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Change a user's email and/or password (null leaves it as it is). False when the email is
+    // taken or the write failed. Throws PasswordHasher.Busy when the hashing pool is saturated.
+    static boolean updateUser(int userId, String email, String password) {
+        String hashedPassword = password != null ? passwords.hash(password) : null;
+        String sql = "UPDATE users SET email = COALESCE(?, email), password_hash = COALESCE(?, password_hash) WHERE id = ?";
+
+        try {
+            int updated = executeWrite(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, email);
+                pstmt.setString(2, hashedPassword);
+                pstmt.setInt(3, userId);
+                return pstmt.executeUpdate();
+            });
+            versions.bump(userId);
+            return updated == 1;
+        } catch (SQLException e) {
+            System.out.println("Update user failed: " + e.getMessage());
             return false;
         }
     }
 
-    // Validate user credentials
-    private static boolean validateUser(String username, String password) {
-        String sql = "SELECT password_hash FROM users WHERE username = ?";
+    // A user's id and password hash as read for a login; -1 and null for an unknown username
+    private record StoredLogin(int userId, String passwordHash) {}
+
+    // Validate user credentials. The stored hash is read first and the connection returned
+    // before the (slow) verification; hashes from an older cost setting are upgraded on success.
+    // Throws PasswordHasher.Busy when the hashing pool is too saturated to verify.
+    static boolean validateUser(String username, String password) {
+        if (username == null || password == null) {
+            return false;
+        }
+        String sql = "SELECT id, password_hash FROM users WHERE username = ?";
+        StoredLogin stored;
         
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                String storedHash = rs.getString("password_hash");
-                return storedHash.equals(hashPassword(password));
-            }
+        try {
+            stored = executeRead(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, username);
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? new StoredLogin(rs.getInt("id"), rs.getString("password_hash"))
+                            : new StoredLogin(-1, null);
+                }
+            });
         } catch (SQLException e) {
             System.out.println("Validate user failed: " + e.getMessage());
+            return false;
         }
-        return false;
+        int userId = stored.userId();
+        String storedHash = stored.passwordHash();
+
+        // Unknown users are verified against nothing, at the same cost
+        if (!passwords.verify(password, storedHash) || userId < 0) {
+            return false;
+        }
+        // Same row carries the id, so login needs no separate lookup
+        identities.put(username, userId);
+
+        if (passwords.needsRehash(storedHash)) {
+            try {
+                rehashPassword(userId, storedHash, passwords.hash(password));
+            } catch (PasswordHasher.Busy e) {
+                // The password was right; the upgrade can wait for the next login
+                System.out.println("Rehash password skipped: " + e.getMessage());
+            }
+        }
+        return true;
     }
 
-    // Get user ID by username
+    // Replace a user's hash, unless it changed since it was read
+    private static void rehashPassword(int userId, String oldHash, String newHash) {
+        String sql = "UPDATE users SET password_hash = ? WHERE id = ? AND password_hash = ?";
+        try {
+            executeWrite(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, newHash);
+                pstmt.setInt(2, userId);
+                pstmt.setString(3, oldHash);
+                return pstmt.executeUpdate();
+            });
+        } catch (SQLException e) {
+            System.out.println("Rehash password failed: " + e.getMessage());
+        }
+    }
+
+    // Get user ID by username, from the identity cache when possible
     private static int getUserIdByUsername(String username) {
+        Integer cached = identities.get(username);
+        if (cached != null) {
+            return cached;
+        }
+
         String sql = "SELECT id FROM users WHERE username = ?";
         
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt("id");
+        try {
+            int id = executeRead(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, username);
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getInt("id") : -1;
+                }
+            });
+            if (id >= 0) {
+                identities.put(username, id);
             }
+            return id;
         } catch (SQLException e) {
             System.out.println("Get user ID failed: " + e.getMessage());
         }
         return -1;
     }
 
-    // Add task to database
-    private static void addTask(int userId, String title, String description, String priority) {
-        String sql = "INSERT INTO tasks (user_id, title, description, priority) VALUES (?, ?, ?, ?)";
-        
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
+    // Whether the user still has an account; see liveUsers. Errs towards true when the
+    // lookup fails, so a database hiccup does not log everyone out.
+    static boolean userExists(int userId) {
+        if (deletedUsers.contains(userId)) {
+            return false;
+        }
+        if (liveUsers.contains(userId)) {
+            return true;
+        }
+        try {
+            boolean exists = executeRead(conn -> {
+                PreparedStatement pstmt = conn.prepare("SELECT 1 FROM users WHERE id = ?");
+                pstmt.setInt(1, userId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next();
+                }
+            });
+            if (exists && !deletedUsers.contains(userId)) {
+                liveUsers.add(userId);
+            }
+            return exists;
+        } catch (SQLException e) {
+            System.out.println("Check user failed: " + e.getMessage());
+            return true;
+        }
+    }
+
+    // The logged-in session, or null. Loaded from the store once per request and kept
+    // on the request, so repeated checks in filters and handlers cost nothing.
+    static SessionStore.Session currentSession(io.javalin.http.Context ctx) {
+        if (ctx.attribute("session.loaded") == null) {
+            SessionStore.Session session = sessions.load(ctx);
+            if (session != null && !userExists(session.userId())) {
+                // The account was deleted after this session started
+                sessions.end(ctx);
+                session = null;
+            }
+            ctx.attribute("session", session);
+            ctx.attribute("session.loaded", true);
+        }
+        return ctx.attribute("session");
+    }
+
+    // User id stored in the session at login, or -1 when not logged in
+    static int sessionUserId(io.javalin.http.Context ctx) {
+        SessionStore.Session session = currentSession(ctx);
+        return session != null ? session.userId() : -1;
+    }
+
+    // Replace the request's session, e.g. to carry a new username; false (and the old session
+    // kept) if the new one could not be stored
+    static boolean restartSession(io.javalin.http.Context ctx, SessionStore.Session session) {
+        if (session.userId() < 0 || !sessions.start(ctx, session)) {
+            return false;
+        }
+        ctx.attribute("session", session);
+        return true;
+    }
+
+    static void endSession(io.javalin.http.Context ctx) {
+        sessions.end(ctx);
+        ctx.attribute("session", null);
+    }
+
+    // Rename a user and drop the old name from the identity cache (PATCH /api/v1/users/me).
+    // Other open sessions keep showing the old name until they log in again; their user id,
+    // which is all that authorization uses, stays right.
+    static boolean renameUser(int userId, String oldUsername, String newUsername) {
+        String sql = "UPDATE users SET username = ? WHERE id = ?";
+
+        try {
+            int updated = executeWrite(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setString(1, newUsername);
+                pstmt.setInt(2, userId);
+                return pstmt.executeUpdate();
+            });
+            identities.invalidate(oldUsername);
+            versions.bump(userId);
+            return updated == 1;
+        } catch (SQLException e) {
+            System.out.println("Rename user failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Delete a user with their tasks and evict them from the identity cache (DELETE
+    // /api/v1/users/me). When sharded the two are separate transactions, user first: a failure
+    // in between only strands tasks no one can reach, since user ids are never reused.
+    static boolean deleteUser(int userId) {
+        boolean sameFile = shards.forUser(userId) == shards.directory();
+        WriteQueue.WriteOp<Integer> deleteTasks = conn -> {
+            PreparedStatement pstmt = conn.prepare("DELETE FROM tasks WHERE user_id = ?");
             pstmt.setInt(1, userId);
-            pstmt.setString(2, title);
-            pstmt.setString(3, description);
-            pstmt.setString(4, priority != null ? priority : "medium");
-            pstmt.executeUpdate();
+            return pstmt.executeUpdate();
+        };
+        try {
+            int deleted = executeWrite(conn -> {
+                if (sameFile) {
+                    deleteTasks.apply(conn);
+                }
+                PreparedStatement deleteUser = conn.prepare("DELETE FROM users WHERE id = ?");
+                deleteUser.setInt(1, userId);
+                return deleteUser.executeUpdate();
+            });
+            deletedUsers.add(userId);
+            liveUsers.remove(userId);
+            if (!sameFile) {
+                executeWrite(userId, deleteTasks);
+            }
+            identities.invalidateId(userId);
+            versions.bump(userId);
+            taskCache.invalidate(userId);
+            return deleted == 1;
         } catch (SQLException e) {
-            System.out.println("Add task failed: " + e.getMessage());
+            System.out.println("Delete user failed: " + e.getMessage());
+            return false;
         }
     }
 
-    // Get user's tasks from database
-    private static List<Task> getUserTasks(int userId) {
-        List<Task> tasks = new ArrayList<>();
-        String sql = "SELECT * FROM tasks WHERE user_id = ? ORDER BY created_at DESC LIMIT 10";
+    // Borrow a pooled read connection to the users file (also used by TaskApi and the session store)
+    static PooledConnection borrowConnection() throws SQLException {
+        return shards.directory().borrow();
+    }
+
+    // Borrow a pooled read connection to the file holding the user's tasks
+    static PooledConnection borrowConnection(int userId) throws SQLException {
+        return shards.forUser(userId).borrow();
+    }
+
+    // SQL for the id column of a task inserted for this user; see Shard.initializeIds
+    static String nextTaskId(int userId) {
+        return shards.forUser(userId).nextTaskId();
+    }
+
+    // The reminder scheduler for the user's tasks, or null with reminders disabled
+    private static ReminderScheduler reminders(int userId) {
+        return reminders.isEmpty() ? null : reminders.get(shards.forUser(userId).index());
+    }
+
+    // The live update hub, for TaskApi to mount
+    static TaskEvents taskEvents() {
+        return events;
+    }
+
+    // Answer 304 if the logged-in user's data is unchanged since the copy the request holds;
+    // otherwise set the ETag and Last-Modified for the response about to be built
+    static boolean notModified(io.javalin.http.Context ctx) {
+        return versions.notModified(ctx, sessionUserId(ctx));
+    }
+
+    // Everything that follows a committed task change: a new data version, then live updates
+    private static void tasksChanged(int userId, String action, List<Integer> taskIds) {
+        versions.bump(userId);
+        taskCache.invalidate(userId);
+        events.tasksChanged(userId, action, taskIds);
+    }
+
+    // Called by TaskImporter after each batch commits
+    static void tasksImported(int userId, int count) {
+        versions.bump(userId);
+        taskCache.invalidate(userId);
+        events.tasksImported(userId, count);
+    }
+
+    // Add task to database; returns the new task id, or -1 on failure
+    static int addTask(int userId, String title, String description, String priority) {
+        return addTask(userId, title, description, priority, null);
+    }
+
+    // Add a task, optionally as a subtask of one of the user's own tasks.
+    // Returns the new task id, or -1 on failure (including a parent that is missing or not the user's).
+    static int addTask(int userId, String title, String description, String priority, Integer parentTaskId) {
+        return addTask(userId, title, description, priority, parentTaskId, null, null);
+    }
+
+    // Same, with an optional due date and reminder time (epoch seconds)
+    static int addTask(int userId, String title, String description, String priority, Integer parentTaskId,
+                       Long dueAt, Long remindAt) {
+        // The parent's ownership is checked by the INSERT itself: no parent row, no insert
+        String sql = parentTaskId == null
+                ? "INSERT INTO tasks (id, user_id, title, description, priority, due_at, remind_at) "
+                  + "VALUES (" + nextTaskId(userId) + ", ?, ?, ?, ?, ?, ?)"
+                : "INSERT INTO tasks (id, user_id, title, description, priority, due_at, remind_at, parent_task_id) "
+                  + "SELECT " + nextTaskId(userId) + ", ?, ?, ?, ?, ?, ?, id FROM tasks WHERE id = ? AND user_id = ?";
         
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                Task task = new Task();
-                task.setId(rs.getInt("id"));
-                task.setTitle(rs.getString("title"));
-                task.setDescription(rs.getString("description"));
-                task.setPriority(rs.getString("priority"));
-                task.setStatus(rs.getString("status"));
-                tasks.add(task);
+        try {
+            int taskId = executeWrite(userId, conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setInt(1, userId);
+                pstmt.setString(2, title);
+                pstmt.setString(3, description);
+                pstmt.setString(4, priority != null ? priority : "medium");
+                pstmt.setObject(5, dueAt);
+                pstmt.setObject(6, remindAt);
+                if (parentTaskId != null) {
+                    pstmt.setInt(7, parentTaskId);
+                    pstmt.setInt(8, userId);
+                }
+                if (pstmt.executeUpdate() == 0) {
+                    return -1;
+                }
+
+                // Same connection, same transaction, so this is the row just inserted
+                try (ResultSet rs = conn.prepare("SELECT last_insert_rowid()").executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : -1;
+                }
+            });
+            if (taskId > 0) {
+                tasksChanged(userId, "created", List.of(taskId));
+                if (remindAt != null && reminders(userId) != null) {
+                    reminders(userId).changed(taskId, userId, remindAt);
+                }
+            }
+            return taskId;
+        } catch (SQLException e) {
+            System.out.println("Add task failed: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Full-text search over the user's tasks, best match first; null on failure
+    static List<TaskSearch.Hit> searchTasks(int userId, String query, int limit) {
+        try {
+            return executeRead(userId, conn -> TaskSearch.search(conn, userId, query, limit));
+        } catch (SQLException e) {
+            System.out.println("Search tasks failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Load one of the user's tasks with its whole subtree, or null if not found
+    static Task getTaskTree(int userId, int taskId) {
+        try {
+            return executeRead(userId, conn -> TaskTree.load(conn, userId, taskId));
+        } catch (SQLException e) {
+            System.out.println("Get task tree failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Get one of the user's tasks, or null if it does not exist or belongs to someone else
+    static Task getTask(int userId, int taskId) {
+        String sql = "SELECT " + TASK_COLUMNS + " FROM " + TASK_TABLE + " WHERE id = ? AND user_id = ?";
+
+        try {
+            return executeRead(userId, conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                pstmt.setInt(1, taskId);
+                pstmt.setInt(2, userId);
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? readTask(rs) : null;
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("Get task failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Apply a partial update (title, description, priority and/or status) to one of the user's tasks.
+    // With an expectedVersion the update only happens if nobody changed the task since that version
+    // was read. Returns 1 if updated, 0 if not found, VERSION_CONFLICT, or -1 on failure.
+    static int updateTask(int userId, int taskId, Map<String, String> changes, Integer expectedVersion) {
+        if (changes.isEmpty()) {
+            Task task = getTask(userId, taskId);
+            if (task == null) {
+                return 0;
+            }
+            return expectedVersion == null || expectedVersion == task.getVersion() ? 1 : VERSION_CONFLICT;
+        }
+        return singleResult(updateTasks(userId, Map.of(taskId, versionOrAny(expectedVersion)), changes));
+    }
+
+    // Delete one of the user's tasks; same return values as updateTask
+    static int deleteTask(int userId, int taskId, Integer expectedVersion) {
+        return singleResult(deleteTasks(userId, Map.of(taskId, versionOrAny(expectedVersion))));
+    }
+
+    // Apply the same changes to many of the user's tasks: one JDBC batch in one transaction.
+    // versions maps task id -> version the client last saw, or ANY_VERSION to skip the check.
+    // Returns null on failure.
+    static BulkResult updateTasks(int userId, Map<Integer, Integer> versions, Map<String, String> changes) {
+        StringBuilder sql = new StringBuilder("UPDATE tasks SET ");
+        List<String> values = new ArrayList<>();
+        for (String column : List.of("title", "description", "priority", "status", "due_at", "remind_at")) {
+            if (changes.containsKey(column)) {
+                sql.append(column).append(" = ?, ");
+                values.add(changes.get(column));
+            }
+        }
+        if (changes.containsKey("remind_at")) {
+            // A new reminder time is a new reminder, even if the old one already fired
+            sql.append("reminded_at = NULL, ");
+        }
+        sql.append("version = version + 1 WHERE id = ? AND user_id = ? AND version = COALESCE(?, version)");
+        BulkResult result = executeBulk(sql.toString(), values, userId, versions);
+        if (result != null && !result.applied().isEmpty()) {
+            tasksChanged(userId, "updated", result.applied());
+            if (changes.containsKey("remind_at") && reminders(userId) != null) {
+                Long remindAt = changes.get("remind_at") != null ? Long.valueOf(changes.get("remind_at")) : null;
+                for (int taskId : result.applied()) {
+                    reminders(userId).changed(taskId, userId, remindAt);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Delete many of the user's tasks in one JDBC batch and one transaction; see updateTasks
+    static BulkResult deleteTasks(int userId, Map<Integer, Integer> versions) {
+        String sql = "DELETE FROM tasks WHERE id = ? AND user_id = ? AND version = COALESCE(?, version)";
+        BulkResult result = executeBulk(sql, List.of(), userId, versions);
+        if (result != null && !result.applied().isEmpty()) {
+            tasksChanged(userId, "deleted", result.applied());
+            if (reminders(userId) != null) {
+                for (int taskId : result.applied()) {
+                    reminders(userId).changed(taskId, userId, null);
+                }
             }
+        }
+        return result;
+    }
+
+    private static BulkResult executeBulk(String sql, List<String> values, int userId, Map<Integer, Integer> versions) {
+        List<Integer> ids = new ArrayList<>(versions.keySet());
+        try {
+            return executeWrite(userId, conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                int[] counts;
+                try {
+                    for (int taskId : ids) {
+                        int i = 1;
+                        for (String value : values) {
+                            pstmt.setString(i++, value);
+                        }
+                        pstmt.setInt(i++, taskId);
+                        pstmt.setInt(i++, userId);
+                        int version = versions.get(taskId);
+                        if (version == ANY_VERSION) {
+                            pstmt.setNull(i, Types.INTEGER);
+                        } else {
+                            pstmt.setInt(i, version);
+                        }
+                        pstmt.addBatch();
+                    }
+                    counts = pstmt.executeBatch();
+                } finally {
+                    pstmt.clearBatch();
+                }
+
+                // Rows the batch did not touch are either gone or at another version;
+                // look them up in the same transaction to tell which
+                BulkResult result = new BulkResult();
+                PreparedStatement exists = null;
+                for (int k = 0; k < ids.size(); k++) {
+                    int taskId = ids.get(k);
+                    if (counts[k] > 0) {
+                        result.applied().add(taskId);
+                        continue;
+                    }
+                    if (exists == null) {
+                        exists = conn.prepare("SELECT 1 FROM tasks WHERE id = ? AND user_id = ?");
+                    }
+                    exists.setInt(1, taskId);
+                    exists.setInt(2, userId);
+                    try (ResultSet rs = exists.executeQuery()) {
+                        if (rs.next()) {
+                            result.conflicts().add(taskId);
+                        } else {
+                            result.notFound().add(taskId);
+                        }
+                    }
+                }
+                return result;
+            });
+        } catch (SQLException e) {
+            System.out.println("Bulk task change failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static int versionOrAny(Integer expectedVersion) {
+        return expectedVersion != null ? expectedVersion : ANY_VERSION;
+    }
+
+    private static int singleResult(BulkResult result) {
+        if (result == null) {
+            return -1;
+        }
+        if (!result.applied().isEmpty()) {
+            return 1;
+        }
+        return result.conflicts().isEmpty() ? 0 : VERSION_CONFLICT;
+    }
+
+    // Template variables for the dashboard: the 10 newest tasks and the user's counts;
+    // null if they could not be read
+    static Context dashboardContext(int userId, String username) {
+        Context context = new Context();
+        TaskCache.Entry cached = cachedTasks(userId);
+        List<Task> userTasks = cached != null ? cached.page(DASHBOARD_TASKS).getTasks() : getUserTasks(userId);
+
+        // Counts cover all of the user's tasks, not just the ones listed
+        TaskCounters.Counts counts = cached != null ? cached.counts() : getTaskCounts(userId);
+        if (userTasks == null || counts == null) {
+            return null;
+        }
+
+        context.setVariable("username", username);
+        context.setVariable("tasks", userTasks);
+        context.setVariable("pendingCount", counts.pending());
+        context.setVariable("completedCount", counts.completed());
+        context.setVariable("inProgressCount", counts.inProgress());
+        context.setVariable("totalCount", counts.total());
+        context.setVariable("pageTitle", "Dashboard - " + username);
+        return context;
+    }
+
+    // Template variables for /tasks: one page of (optionally filtered) tasks, or the best
+    // matches for a search query, plus counts and paging links; null if they could not be read
+    static Context tasksContext(int userId, String username, String status, String priority,
+                                String cursor, int page, String query) {
+        Context context = new Context();
+        boolean searching = query != null && !query.isBlank();
+        TaskCache.Entry cached = cachedTasks(userId);
+
+        TaskPage taskPage;
+        if (searching) {
+            // Search results are ranked rather than paged
+            List<TaskSearch.Hit> hits = searchTasks(userId, query, SEARCH_PAGE_SIZE);
+            if (hits == null) {
+                return null;
+            }
+            List<Task> matches = new ArrayList<>();
+            for (TaskSearch.Hit hit : hits) {
+                matches.add(hit.task());
+            }
+            taskPage = new TaskPage(matches, null);
+        } else if (status == null && priority == null && TaskPage.decodeCursor(cursor) == null && cached != null) {
+            // The unfiltered first page is the head of the cached tasks
+            taskPage = cached.page(TASK_PAGE_SIZE);
+        } else {
+            taskPage = getUserTasks(userId, status, priority, TaskPage.decodeCursor(cursor), TASK_PAGE_SIZE);
+        }
+
+        // Maintained per-user counters, one row lookup regardless of task count
+        TaskCounters.Counts counts = cached != null ? cached.counts() : getTaskCounts(userId);
+        if (taskPage == null || counts == null) {
+            return null;
+        }
+        List<Task> userTasks = taskPage.getTasks();
+
+        context.setVariable("username", username);
+        context.setVariable("tasks", userTasks);
+        context.setVariable("pendingCount", counts.pending());
+        context.setVariable("completedCount", counts.completed());
+        context.setVariable("inProgressCount", counts.inProgress());
+        context.setVariable("totalCount", counts.total());
+        context.setVariable("pageTitle", "My Tasks");
+        context.setVariable("activeFilter", searching ? "search"
+                : status != null ? status : "high".equals(priority) ? "high" : "all");
+        context.setVariable("searchQuery", searching ? query.trim() : "");
+        context.setVariable("pageNumber", page);
+        context.setVariable("firstPageUrl", cursor != null ? tasksUrl(status, priority, null, 1) : null);
+        context.setVariable("nextPageUrl", taskPage.hasMore()
+                ? tasksUrl(status, priority, taskPage.getNextCursor(), page + 1) : null);
+        return context;
+    }
+
+    // Get user's 10 newest tasks from database, or null if the read failed
+    static List<Task> getUserTasks(int userId) {
+        TaskPage page = getUserTasks(userId, null, null, null, DASHBOARD_TASKS);
+        return page != null ? page.getTasks() : null;
+    }
+
+    // The user's newest tasks and counts from the task cache, loading them on a miss;
+    // null if loading failed, in which case callers query directly
+    static TaskCache.Entry cachedTasks(int userId) {
+        // Read before loading, so a write committing meanwhile makes the entry stale, not wrong
+        long version = versions.version(userId);
+        TaskCache.Entry entry = taskCache.get(userId, version);
+        if (entry != null) {
+            return entry;
+        }
+        try {
+            return executeRead(userId, conn -> taskCache.load(conn, userId, version));
+        } catch (SQLException e) {
+            System.out.println("Load task cache failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Task counts through the task cache, or null if they could not be read; see cachedTasks
+    static TaskCounters.Counts cachedTaskCounts(int userId) {
+        TaskCache.Entry entry = cachedTasks(userId);
+        return entry != null ? entry.counts() : getTaskCounts(userId);
+    }
+
+    // Get one page of a user's tasks, newest first, optionally filtered by status and priority.
+    // Keyset pagination: the cursor is the (created_at, id) of the previous page's last row,
+    // so every page is a range scan on idx_tasks_user_* that stops after limit + 1 rows.
+    // Null if the read failed, so an error is never shown (or cached) as an empty list.
+    static TaskPage getUserTasks(int userId, String status, String priority,
+                                 TaskPage.Cursor cursor, int limit) {
+        try {
+            return executeRead(userId, conn -> {
+                List<Task> tasks = new ArrayList<>();
+                String nextCursor = null;
+                PreparedStatement pstmt = prepareTaskPage(conn, userId, status, priority, cursor, limit);
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (tasks.size() == limit) {
+                            Task last = tasks.get(tasks.size() - 1);
+                            nextCursor = TaskPage.encodeCursor(last.getCreatedAt(), last.getId());
+                            break;
+                        }
+                        tasks.add(readTask(rs));
+                    }
+                }
+                return new TaskPage(tasks, nextCursor);
+            });
         } catch (SQLException e) {
             System.out.println("Get user tasks failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Bind the keyset page query. It returns limit + 1 rows at most; the extra row
+    // only signals that there is a next page.
+    static PreparedStatement prepareTaskPage(PooledConnection conn, int userId, String status, String priority,
+                                             TaskPage.Cursor cursor, int limit) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT " + TASK_COLUMNS + " FROM " + TASK_TABLE + " WHERE user_id = ?");
+        if (status != null) sql.append(" AND status = ?");
+        if (priority != null) sql.append(" AND priority = ?");
+        if (cursor != null) sql.append(" AND (created_at, id) < (?, ?)");
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+
+        PreparedStatement pstmt = conn.prepare(sql.toString());
+        int i = 1;
+        pstmt.setInt(i++, userId);
+        if (status != null) pstmt.setString(i++, status);
+        if (priority != null) pstmt.setString(i++, priority);
+        if (cursor != null) {
+            pstmt.setString(i++, cursor.createdAt());
+            pstmt.setInt(i++, cursor.id());
         }
-        return tasks;
+        pstmt.setInt(i, limit + 1);
+        return pstmt;
+    }
+
+    static Task readTask(ResultSet rs) throws SQLException {
+        Task task = new Task();
+        task.setId(rs.getInt("id"));
+        task.setTitle(rs.getString("title"));
+        task.setDescription(rs.getString("description"));
+        task.setPriority(rs.getString("priority"));
+        task.setStatus(rs.getString("status"));
+        task.setVersion(rs.getInt("version"));
+        int parentTaskId = rs.getInt("parent_task_id");
+        task.setParentTaskId(rs.wasNull() ? null : parentTaskId);
+        task.setSubtaskCount(rs.getInt("subtasks"));
+        task.setCompletedSubtaskCount(rs.getInt("completed_subtasks"));
+        task.setCreatedAt(rs.getString("created_at"));
+        long dueAt = rs.getLong("due_at");
+        task.setDueAt(rs.wasNull() ? null : dueAt);
+        long remindAt = rs.getLong("remind_at");
+        task.setRemindAt(rs.wasNull() ? null : remindAt);
+        return task;
     }
 
-    // Simple password hashing (in real app, use proper encryption)
-    private static String hashPassword(String password) {
-        return password; // Simplified for learning
+    // Get a user's task counts by status from the maintained counter table, or null on failure
+    static TaskCounters.Counts getTaskCounts(int userId) {
+        try {
+            return executeRead(userId, conn -> TaskCounters.load(conn, userId));
+        } catch (SQLException e) {
+            System.out.println("Get task counts failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Integer parseTaskId(String id) {
+        try {
+            return id != null && !id.isBlank() ? Integer.valueOf(id.trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean blank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    // A date or date-time form field, or null when empty or malformed
+    private static <T> T parseFormTime(String value, java.util.function.Function<String, T> parser) {
+        try {
+            return blank(value) ? null : parser.apply(value.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // The browser's IANA zone from the form, UTC when missing or unknown
+    private static ZoneId parseZone(String zone) {
+        try {
+            return blank(zone) ? ZoneOffset.UTC : ZoneId.of(zone.trim());
+        } catch (DateTimeException e) {
+            return ZoneOffset.UTC;
+        }
+    }
+
+    private static int parsePageNumber(String page) {
+        try {
+            return page != null ? Math.max(1, Integer.parseInt(page)) : 1;
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    // Build a /tasks link that keeps the active filters
+    private static String tasksUrl(String status, String priority, String cursor, int page) {
+        StringBuilder url = new StringBuilder("/tasks");
+        char sep = '?';
+        if (status != null) {
+            url.append(sep).append("status=").append(status);
+            sep = '&';
+        }
+        if (priority != null) {
+            url.append(sep).append("priority=").append(priority);
+            sep = '&';
+        }
+        if (cursor != null) {
+            url.append(sep).append("cursor=").append(URLEncoder.encode(cursor, StandardCharsets.UTF_8))
+               .append("&page=").append(page);
+        }
+        return url.toString();
     }
 }
 
 // Task class for storing task data
 class Task {
+    // Allowed values, matching the CHECK constraints on the tasks table
+    static final Set<String> PRIORITIES = Set.of("low", "medium", "high");
+    static final Set<String> STATUSES = Set.of("pending", "in_progress", "completed");
+
     private int id;
     private String title;
     private String description;
     private String priority;
     private String status;
+    private int version;
+    private Integer parentTaskId;
+    private String createdAt;
+    // Epoch seconds, or null when not set
+    private Long dueAt;
+    private Long remindAt;
+
+    // Rolled up over every level below this task; subtasks is only filled in by tree loads
+    private int subtaskCount;
+    private int completedSubtaskCount;
+    private final List<Task> subtasks = new ArrayList<>();
 
     // Constructors
     public Task() {}
@@ -456,4 +1534,40 @@ class Task {
 
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
+    public Integer getParentTaskId() { return parentTaskId; }
+    public void setParentTaskId(Integer parentTaskId) { this.parentTaskId = parentTaskId; }
+
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+
+    public Long getDueAt() { return dueAt; }
+    public void setDueAt(Long dueAt) { this.dueAt = dueAt; }
+
+    public Long getRemindAt() { return remindAt; }
+    public void setRemindAt(Long remindAt) { this.remindAt = remindAt; }
+
+    // For templates, which show these until the page's script puts them in local time
+    public String dueAtText() { return formatUtc(dueAt); }
+    public String remindAtText() { return formatUtc(remindAt); }
+
+    private static String formatUtc(Long epochSeconds) {
+        return epochSeconds == null ? "" : java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm 'UTC'")
+                .withZone(java.time.ZoneOffset.UTC).format(java.time.Instant.ofEpochSecond(epochSeconds));
+    }
+
+    public int getSubtaskCount() { return subtaskCount; }
+    public void setSubtaskCount(int subtaskCount) { this.subtaskCount = subtaskCount; }
+
+    public int getCompletedSubtaskCount() { return completedSubtaskCount; }
+    public void setCompletedSubtaskCount(int completedSubtaskCount) { this.completedSubtaskCount = completedSubtaskCount; }
+
+    public int getCompletionPercent() {
+        return subtaskCount == 0 ? 0 : completedSubtaskCount * 100 / subtaskCount;
+    }
+
+    public List<Task> getSubtasks() { return subtasks; }
 }
\ No newline at end of file
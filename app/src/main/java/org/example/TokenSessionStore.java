@@ -0,0 +1,119 @@
+package com.example;
+
+import io.javalin.http.Context;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// Stateless sessions: the cookie is <payload>.<HMAC-SHA256 of payload>, both base64url, where
+// the payload is user id, expiry (epoch seconds) and username. Verifying it is one HMAC, with
+// no storage lookup, so any node holding the same todo.session.secret accepts it.
+// Expiry slides: once less than half the lifetime is left the cookie is re-issued.
+// A token cannot be revoked before it expires; logout only removes the cookie from the browser.
+public class TokenSessionStore implements SessionStore {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+
+    private final Config config;
+    private final SecretKeySpec key;
+
+    public TokenSessionStore(Config config) {
+        this.config = config;
+        byte[] secret;
+        if (config.secret != null && !config.secret.isBlank()) {
+            secret = config.secret.getBytes(StandardCharsets.UTF_8);
+        } else {
+            // Fine for one node; every restart logs everyone out
+            System.out.println("todo.session.secret is not set; using a random key for this process only");
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+        }
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+    }
+
+    @Override
+    public Session load(Context ctx) {
+        String cookie = ctx.cookie(config.cookieName);
+        if (cookie == null) {
+            return null;
+        }
+        Decoded decoded = decode(cookie, System.currentTimeMillis() / 1000);
+        if (decoded == null) {
+            return null;
+        }
+        if (decoded.expiresAt() - System.currentTimeMillis() / 1000 < config.ttlSeconds / 2) {
+            start(ctx, decoded.session());
+        }
+        return decoded.session();
+    }
+
+    @Override
+    public boolean start(Context ctx, Session session) {
+        long expiresAt = System.currentTimeMillis() / 1000 + config.ttlSeconds;
+        ctx.cookie(config.cookie(encode(session, expiresAt), config.ttlSeconds));
+        return true;
+    }
+
+    @Override
+    public void end(Context ctx) {
+        ctx.removeCookie(config.cookieName, "/");
+    }
+
+    record Decoded(Session session, long expiresAt) {}
+
+    String encode(Session session, long expiresAt) {
+        byte[] username = session.username().getBytes(StandardCharsets.UTF_8);
+        byte[] payload = ByteBuffer.allocate(1 + 4 + 8 + username.length)
+                .put(VERSION)
+                .putInt(session.userId())
+                .putLong(expiresAt)
+                .put(username)
+                .array();
+        Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+        return b64.encodeToString(payload) + "." + b64.encodeToString(sign(payload));
+    }
+
+    // The session in a token, or null if it is malformed, forged or expired
+    Decoded decode(String token, long nowSeconds) {
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature) || payload.length < 13 || payload[0] != VERSION) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload, 1, payload.length - 1);
+        int userId = buffer.getInt();
+        long expiresAt = buffer.getLong();
+        if (expiresAt <= nowSeconds) {
+            return null;
+        }
+        String username = new String(payload, 13, payload.length - 13, StandardCharsets.UTF_8);
+        return new Decoded(new Session(userId, username), expiresAt);
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " unavailable", e);
+        }
+    }
+}
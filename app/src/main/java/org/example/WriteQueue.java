@@ -0,0 +1,253 @@
+package com.example;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Single writer thread for SQLite. Queued write operations are batched into one
+// transaction per commit window (group commit), so concurrent POSTs share one fsync
+// instead of fighting over the database lock. Each operation runs inside its own
+// savepoint, so a failing insert only rolls back itself and not the whole batch.
+// A batch that fails with a fatal error (see PooledConnection.isFatal) fails its writes and
+// has the writer reopen its connection before the next one.
+public class WriteQueue implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface WriteOp<T> {
+        T apply(PooledConnection conn) throws SQLException;
+    }
+
+    // Opens the writer's connection: at start, and again after it fails fatally
+    @FunctionalInterface
+    public interface Connector {
+        PooledConnection open() throws SQLException;
+    }
+
+    // Writer settings, read from -Dtodo.db.writer.* system properties
+    public static class Config {
+        int queueCapacity = 10_000;
+        int maxBatchSize = 256;
+        long commitWindowMicros = 2_000;
+
+        public static Config fromSystemProperties() {
+            Config config = new Config();
+            config.queueCapacity = Integer.getInteger("todo.db.writer.queueCapacity", config.queueCapacity);
+            config.maxBatchSize = Integer.getInteger("todo.db.writer.maxBatchSize", config.maxBatchSize);
+            config.commitWindowMicros = Long.getLong("todo.db.writer.commitWindowMicros", config.commitWindowMicros);
+            return config;
+        }
+    }
+
+    public record Stats(int queued, long commits, long operations, long failedOperations, long reconnects) {}
+
+    private record Pending<T>(WriteOp<T> op, CompletableFuture<T> future) {}
+
+    private final Connector connector;
+    // Only the writer thread uses it (close() after joining it)
+    private PooledConnection conn;
+    private final Config config;
+    private final BlockingQueue<Pending<?>> queue;
+    private final Thread thread;
+
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder failedOperations = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private volatile boolean running = true;
+
+    public WriteQueue(Connector connector, Config config) throws SQLException {
+        this(connector, config, "db-writer");
+    }
+
+    // threadName tells the writers apart when there is one per shard
+    public WriteQueue(Connector connector, Config config, String threadName) throws SQLException {
+        this.connector = connector;
+        this.conn = connector.open();
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.queueCapacity);
+        this.thread = new Thread(this::run, threadName);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // Queue a write; the future completes once the transaction holding it has committed
+    public <T> CompletableFuture<T> submit(WriteOp<T> op) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new SQLException("Write queue is closed"));
+        } else if (!queue.offer(new Pending<>(op, future))) {
+            future.completeExceptionally(new SQLTransientException("Write queue is full"));
+        }
+        return future;
+    }
+
+    // Queue a write and block until it has committed, surfacing its SQLException
+    public <T> T execute(WriteOp<T> op) throws SQLException {
+        try {
+            return submit(op).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientException("Interrupted waiting for write to commit");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new SQLException("Write failed", cause);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(queue.size(), commits.sum(), operations.sum(), failedOperations.sum(), reconnects.sum());
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        conn.close();
+    }
+
+    private void run() {
+        List<Pending<?>> batch = new ArrayList<>(config.maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (!collectBatch(batch)) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                // close() was called; drain what is already queued before exiting
+                queue.drainTo(batch, config.maxBatchSize);
+                if (batch.isEmpty()) {
+                    continue;
+                }
+            }
+            commitBatch(batch);
+            batch.clear();
+        }
+    }
+
+    // Wait for the first write, then keep collecting until the commit window closes
+    private boolean collectBatch(List<Pending<?>> batch) throws InterruptedException {
+        Pending<?> first = running ? queue.take() : queue.poll();
+        if (first == null) {
+            return false;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(config.commitWindowMicros);
+        while (batch.size() < config.maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                queue.drainTo(batch, config.maxBatchSize - batch.size());
+                break;
+            }
+            Pending<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return true;
+    }
+
+    private void commitBatch(List<Pending<?>> batch) {
+        commitBatch(batch, conn);
+        if (conn.isBroken()) {
+            reconnect();
+        }
+    }
+
+    private void commitBatch(List<Pending<?>> batch, PooledConnection conn) {
+        Object[] results = new Object[batch.size()];
+        Throwable[] errors = new Throwable[batch.size()];
+        Connection raw = conn.raw();
+
+        try {
+            raw.setAutoCommit(false);
+            for (int i = 0; i < batch.size(); i++) {
+                Savepoint savepoint = raw.setSavepoint();
+                try {
+                    results[i] = batch.get(i).op().apply(conn);
+                    raw.releaseSavepoint(savepoint);
+                } catch (SQLException | RuntimeException e) {
+                    if (e instanceof SQLException sqlException) {
+                        conn.markBrokenIfFatal(sqlException);
+                    }
+                    raw.rollback(savepoint);
+                    raw.releaseSavepoint(savepoint);
+                    errors[i] = e;
+                }
+            }
+            raw.commit();
+            commits.increment();
+        } catch (SQLException e) {
+            System.out.println("Write batch commit failed: " + e.getMessage());
+            conn.markBrokenIfFatal(e);
+            try {
+                raw.rollback();
+            } catch (SQLException rollbackFailed) {
+                System.out.println("Write batch rollback failed: " + rollbackFailed.getMessage());
+            }
+            for (Pending<?> pending : batch) {
+                pending.future().completeExceptionally(e);
+            }
+            failedOperations.add(batch.size());
+            return;
+        } finally {
+            try {
+                raw.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // Next batch turns autocommit off again anyway
+            }
+        }
+
+        operations.add(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (errors[i] != null) {
+                failedOperations.increment();
+                batch.get(i).future().completeExceptionally(errors[i]);
+            } else {
+                complete(batch.get(i), results[i]);
+            }
+        }
+    }
+
+    // Swap a connection that failed fatally for a new one. If that cannot be opened either, the
+    // old one stays, its writes keep failing, and each failed batch tries again.
+    private void reconnect() {
+        PooledConnection fresh;
+        try {
+            fresh = connector.open();
+        } catch (SQLException e) {
+            System.out.println("Reopen write connection failed: " + e.getMessage());
+            return;
+        }
+        conn.close();
+        conn = fresh;
+        reconnects.increment();
+        System.out.println("Write connection reopened after a fatal error");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void complete(Pending<T> pending, Object result) {
+        pending.future().complete((T) result);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AcceptEncodingTest {
+
+    @Test
+    void readsListedCodingsAndWeights() {
+        String header = "gzip;q=0.8, br , deflate;q=0.5";
+
+        assertEquals(0.8, AcceptEncoding.quality(header, "gzip"));
+        assertEquals(1.0, AcceptEncoding.quality(header, "br"));
+        assertEquals(0.0, AcceptEncoding.quality(header, "zstd"));
+        assertEquals(1.0, AcceptEncoding.quality("GZIP; Q=1.000", "gzip"));
+    }
+
+    @Test
+    void honoursQZeroAsARefusal() {
+        assertFalse(AcceptEncoding.accepts("br;q=0, gzip", "br"));
+        assertTrue(AcceptEncoding.accepts("br;q=0, gzip", "gzip"));
+        assertFalse(AcceptEncoding.accepts("gzip;q=0.000", "gzip"));
+    }
+
+    @Test
+    void appliesTheWildcardOnlyToUnlistedCodings() {
+        assertEquals(0.3, AcceptEncoding.quality("*;q=0.3", "gzip"));
+        assertFalse(AcceptEncoding.accepts("*, gzip;q=0", "gzip"));
+        assertTrue(AcceptEncoding.accepts("*, gzip;q=0", "br"));
+    }
+
+    @Test
+    void matchesWholeTokensOnly() {
+        assertFalse(AcceptEncoding.accepts("x-gzip-ish, brotli", "gzip"));
+        assertFalse(AcceptEncoding.accepts("x-gzip-ish, brotli", "br"));
+        assertFalse(AcceptEncoding.accepts(null, "gzip"));
+        assertFalse(AcceptEncoding.accepts("", "gzip"));
+    }
+
+    @Test
+    void ignoresEntriesWithMalformedWeights() {
+        assertFalse(AcceptEncoding.accepts("gzip;q=2", "gzip"));
+        assertFalse(AcceptEncoding.accepts("gzip;q=high", "gzip"));
+        assertEquals(0.5, AcceptEncoding.quality("gzip;q=-1, *;q=0.5", "gzip"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example;
+
+import io.javalin.Javalin;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Checks the guard on a bare Javalin app, with and without an admin token
+class AdminAccessTest {
+    private static Javalin app;
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void start() {
+        AdminAccess.Config withToken = new AdminAccess.Config();
+        withToken.token = "s3cret";
+        AdminAccess tokenAccess = new AdminAccess(withToken);
+        AdminAccess localAccess = new AdminAccess(new AdminAccess.Config());
+
+        app = Javalin.create().start(0);
+        app.before("/token/*", tokenAccess::check);
+        app.before("/local/*", localAccess::check);
+        app.get("/token/stats", ctx -> ctx.result("ok"));
+        app.get("/local/stats", ctx -> ctx.result("ok"));
+    }
+
+    @AfterAll
+    static void stop() {
+        app.stop();
+    }
+
+    private static HttpResponse<String> get(String path, String authorization) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + app.port() + path));
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void requiresTheTokenWhenOneIsSet() throws Exception {
+        HttpResponse<String> anonymous = get("/token/stats", null);
+        assertEquals(401, anonymous.statusCode());
+        assertEquals("Bearer", anonymous.headers().firstValue("WWW-Authenticate").orElse(null));
+
+        assertEquals(401, get("/token/stats", "Bearer wrong").statusCode());
+        assertEquals(401, get("/token/stats", "Basic s3cret").statusCode());
+        assertEquals(200, get("/token/stats", "Bearer s3cret").statusCode());
+        assertEquals(200, get("/token/stats", "bearer s3cret").statusCode());
+    }
+
+    @Test
+    void servesLocalClientsWithoutAToken() throws Exception {
+        assertEquals(200, get("/local/stats", null).statusCode());
+    }
+
+    @Test
+    void recognisesLoopbackAddresses() {
+        assertTrue(AdminAccess.isLoopback("127.0.0.1"));
+        assertTrue(AdminAccess.isLoopback("0:0:0:0:0:0:0:1"));
+        assertFalse(AdminAccess.isLoopback("10.0.0.7"));
+        assertFalse(AdminAccess.isLoopback("2001:db8::1"));
+        assertFalse(AdminAccess.isLoopback(null));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example;
+
+import io.javalin.Javalin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the before-handler on a bare Javalin app; the user id comes from an X-User header,
+// put where currentSession would have left the logged-in session
+class AdmissionControlTest {
+    @TempDir
+    Path dir;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Shards shards;
+    private Javalin app;
+
+    private AdmissionControl start(AdmissionControl.Config config) {
+        shards = new Shards(dir.resolve("todo_app.db").toString(), 2, new ConnectionPool.Config());
+        AdmissionControl admission = new AdmissionControl(config, shards);
+        app = Javalin.create().start(0);
+        app.before(ctx -> {
+            String user = ctx.header("X-User");
+            ctx.attribute("session", user != null ? new SessionStore.Session(Integer.parseInt(user), "u" + user) : null);
+            ctx.attribute("session.loaded", true);
+        });
+        app.before(admission::check);
+        app.get("/tasks", ctx -> ctx.result("ok"));
+        app.post("/tasks", ctx -> ctx.status(201));
+        return admission;
+    }
+
+    @AfterEach
+    void stop() {
+        app.stop();
+        shards.close();
+    }
+
+    private HttpResponse<String> send(String method, Integer userId) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + app.port() + "/tasks"))
+                .method(method, HttpRequest.BodyPublishers.noBody());
+        if (userId != null) {
+            request.header("X-User", userId.toString());
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // A user whose tasks live on the given shard
+    private static int userOn(int shard) {
+        int userId = 1;
+        while (Shards.indexFor(userId, 2) != shard) {
+            userId++;
+        }
+        return userId;
+    }
+
+    @Test
+    void rateLimitsWritesPerShardWith429() throws Exception {
+        AdmissionControl.Config config = new AdmissionControl.Config();
+        config.writesPerSecond = 0.5;
+        config.burst = 2;
+        AdmissionControl admission = start(config);
+        int hot = userOn(0);
+
+        assertEquals(201, send("POST", hot).statusCode());
+        assertEquals(201, send("POST", hot).statusCode());
+        HttpResponse<String> limited = send("POST", hot);
+        assertEquals(429, limited.statusCode());
+        long retryAfter = Long.parseLong(limited.headers().firstValue("Retry-After").orElseThrow());
+        assertTrue(retryAfter >= 1 && retryAfter <= 2, "Retry-After " + retryAfter);
+
+        // Reads, anonymous requests and the other shard's users are not charged
+        assertEquals(200, send("GET", hot).statusCode());
+        assertEquals(201, send("POST", null).statusCode());
+        assertEquals(201, send("POST", userOn(1)).statusCode());
+
+        assertEquals(new AdmissionControl.Stats(3, 1, 0), admission.stats());
+    }
+
+    @Test
+    void shedsWritesWith503WhenTheShardQueueIsFull() throws Exception {
+        AdmissionControl.Config config = new AdmissionControl.Config();
+        // Nothing is queued, so any write is already at the limit
+        config.maxQueued = 0;
+        AdmissionControl admission = start(config);
+
+        HttpResponse<String> shed = send("POST", userOn(1));
+        assertEquals(503, shed.statusCode());
+        assertEquals("1", shed.headers().firstValue("Retry-After").orElse(null));
+        assertEquals(200, send("GET", userOn(1)).statusCode());
+
+        assertEquals(new AdmissionControl.Stats(0, 0, 1), admission.stats());
+    }
+}
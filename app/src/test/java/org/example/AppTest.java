@@ -1,14 +1,85 @@
-/*
- * This source file was generated by the Gradle 'init' task
- */
-package org.example;
-
-import org.junit.Test;
-import static org.junit.Assert.*;
-
-public class AppTest {
-    @Test public void appHasAGreeting() {
-        App classUnderTest = new App();
-        assertNotNull("app should have a greeting", classUnderTest.getGreeting());
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Smoke test: the app starts against a fresh database and serves its pages
+class AppTest {
+
+    @Test
+    void servesTheHomePage() throws Exception {
+        HttpResponse<String> response = TestApp.get(TestApp.client(), "/");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("My Todo Application"));
+    }
+
+    @Test
+    void sendsAnonymousTaskPagesToLogin() throws Exception {
+        HttpResponse<String> response = TestApp.get(TestApp.client(), "/tasks");
+        assertEquals(302, response.statusCode());
+        assertEquals("/login", response.headers().firstValue("Location").orElse(null));
+    }
+
+    @Test
+    void registeredUserCanLogIn() throws Exception {
+        var client = TestApp.client();
+        String username = TestApp.registerAndLogin(client);
+        HttpResponse<String> dashboard = TestApp.get(client, "/dashboard");
+        assertEquals(200, dashboard.statusCode());
+        assertTrue(dashboard.body().contains(username));
+    }
+
+    @Test
+    void acceptsTaskPagesWithAndWithoutFilters() throws Exception {
+        var client = TestApp.client();
+        TestApp.registerAndLogin(client);
+
+        for (String query : new String[] {"", "?status=pending", "?priority=high", "?status=bogus", "?q=report"}) {
+            assertEquals(200, TestApp.get(client, "/tasks" + query).statusCode(), query);
+        }
+    }
+
+    @Test
+    void listsTasksWithASubtaskLinkEach() throws Exception {
+        var client = TestApp.client();
+        TestApp.registerAndLogin(client);
+        TestApp.postForm(client, "/tasks", java.util.Map.of("title", "Write the report", "priority", "high"));
+        String id = TestApp.json(client, "GET", "/api/v1/tasks", null).body().replaceAll("(?s).*?\"id\":(\\d+).*", "$1");
+
+        HttpResponse<String> response = TestApp.get(client, "/tasks");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("Write the report"));
+        assertTrue(response.body().contains("href=\"/tasks/new?parent=" + id + "\""));
+
+        HttpResponse<String> dashboard = TestApp.get(client, "/dashboard");
+        assertEquals(200, dashboard.statusCode());
+        assertTrue(dashboard.body().contains("Write the report"));
+
+        HttpResponse<String> form = TestApp.get(client, "/tasks/new?parent=" + id);
+        assertEquals(200, form.statusCode());
+        assertTrue(form.body().contains("Write the report"));
+    }
+
+    @Test
+    void servesAssetsInTheEncodingTheClientWeightsHighest() throws Exception {
+        var client = TestApp.client();
+        String page = TestApp.get(client, "/").body();
+        String asset = page.replaceAll("(?s).*href=\"(/assets/css/index\\.[0-9a-f]+\\.css)\".*", "$1");
+
+        assertEquals("gzip", assetEncoding(client, asset, "br;q=0, gzip"));
+        assertEquals("", assetEncoding(client, asset, "gzip;q=0"));
+        assertEquals("", assetEncoding(client, asset, "identity"));
+    }
+
+    private static String assetEncoding(java.net.http.HttpClient client, String path, String acceptEncoding) throws Exception {
+        HttpResponse<byte[]> response = client.send(java.net.http.HttpRequest.newBuilder(
+                        java.net.URI.create(TestApp.baseUrl() + path)).header("Accept-Encoding", acceptEncoding).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        return response.headers().firstValue("Content-Encoding").orElse("");
     }
 }
@@ -0,0 +1,80 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+
+    private static ConnectionPool pool() {
+        return new ConnectionPool("jdbc:sqlite::memory:", new ConnectionPool.Config());
+    }
+
+    @Test
+    void treatsOnlyFileLevelErrorsAsFatal() throws SQLException {
+        try (ConnectionPool pool = pool(); PooledConnection conn = pool.borrow()) {
+            // SQLITE_IOERR_SHORT_READ, an extended IOERR code
+            assertTrue(conn.isFatal(new SQLException("disk I/O error", null, 522)));
+            assertTrue(conn.isFatal(new SQLException("database disk image is malformed", null, 11)));
+            assertTrue(conn.isFatal(new SQLException("file is not a database", null, 26)));
+            assertFalse(conn.isFatal(new SQLException("database is locked", null, 5)));
+            assertFalse(conn.isFatal(new SQLException("UNIQUE constraint failed", null, 19)));
+        }
+    }
+
+    @Test
+    void treatsErrorsOnAClosedConnectionAsFatal() throws SQLException {
+        try (ConnectionPool pool = pool(); PooledConnection conn = pool.borrow()) {
+            conn.raw().close();
+
+            assertTrue(conn.isFatal(new SQLException("database connection closed")));
+        }
+    }
+
+    @Test
+    void returnsAConnectionOnceWhenClosedTwice() throws SQLException {
+        try (ConnectionPool pool = pool()) {
+            PooledConnection conn = pool.borrow();
+            conn.close();
+            conn.close();
+            assertEquals(1, pool.stats().idle());
+            assertEquals(0, pool.stats().active());
+
+            // Borrowed again, it can be returned again
+            assertSame(conn, pool.borrow());
+            try (PooledConnection other = pool.borrow()) {
+                assertNotSame(conn, other);
+            }
+            conn.close();
+            assertEquals(2, pool.stats().idle());
+        }
+    }
+
+    @Test
+    void discardsConnectionsThatFailedFatally() throws SQLException {
+        try (ConnectionPool pool = pool()) {
+            PooledConnection first = pool.borrow();
+            first.close();
+            PooledConnection reused = pool.borrow();
+            assertSame(first, reused);
+
+            reused.markBrokenIfFatal(new SQLException("database is locked", null, 5));
+            reused.close();
+            PooledConnection stillReused = pool.borrow();
+            assertSame(first, stillReused);
+
+            stillReused.markBrokenIfFatal(new SQLException("disk I/O error", null, 10));
+            stillReused.close();
+            assertEquals(0, pool.stats().total());
+            try (PooledConnection fresh = pool.borrow()) {
+                assertNotSame(first, fresh);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example;
+
+import io.javalin.Javalin;
+import io.javalin.http.InternalServerErrorResponse;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataVersionsTest {
+
+    @Test
+    void comparesETagsWeakly() {
+        String etag = "W/\"7.abc.3\"";
+
+        assertTrue(DataVersions.etagMatches("W/\"7.abc.3\"", etag));
+        assertTrue(DataVersions.etagMatches("\"7.abc.3\"", etag));
+        assertTrue(DataVersions.etagMatches("\"other\", W/\"7.abc.3\"", etag));
+        assertTrue(DataVersions.etagMatches("*", etag));
+        assertFalse(DataVersions.etagMatches("W/\"7.abc.4\"", etag));
+        assertFalse(DataVersions.etagMatches("W/\"7.abc.3", etag));
+    }
+
+    @Test
+    void readsIfModifiedSince() {
+        // Sun, 06 Nov 1994 08:49:37 GMT
+        long modified = 784111777;
+
+        assertTrue(DataVersions.notModifiedSince("Sun, 06 Nov 1994 08:49:37 GMT", modified));
+        assertTrue(DataVersions.notModifiedSince("Sun, 06 Nov 1994 08:49:38 GMT", modified));
+        assertFalse(DataVersions.notModifiedSince("Sun, 06 Nov 1994 08:49:36 GMT", modified));
+        assertFalse(DataVersions.notModifiedSince("yesterday", modified));
+        assertFalse(DataVersions.notModifiedSince(null, modified));
+    }
+
+    @Test
+    void revalidatesUntilTheTasksChange() throws Exception {
+        HttpClient client = TestApp.client();
+        TestApp.registerAndLogin(client);
+
+        HttpResponse<String> first = TestApp.json(client, "GET", "/api/v1/tasks", null);
+        assertEquals(200, first.statusCode());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        assertEquals(304, revalidate(client, etag).statusCode());
+
+        assertEquals(201, TestApp.json(client, "POST", "/api/v1/tasks", "{\"title\":\"new\"}").statusCode());
+        HttpResponse<String> changed = revalidate(client, etag);
+        assertEquals(200, changed.statusCode());
+        assertNotEquals(etag, changed.headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    void dropsTheValidatorsFromAFailedRead() throws Exception {
+        DataVersions versions = new DataVersions(true);
+        // Wired as in TodoAppDatabase.start
+        Javalin app = Javalin.create().start(0);
+        try {
+            app.after(ctx -> {
+                if (ctx.statusCode() >= 500) {
+                    versions.withdraw(ctx);
+                }
+            });
+            app.get("/broken", ctx -> {
+                if (versions.notModified(ctx, 1)) {
+                    return;
+                }
+                throw new InternalServerErrorResponse("Could not load your tasks");
+            });
+
+            HttpResponse<String> failed = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + app.port() + "/broken")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(500, failed.statusCode());
+            assertTrue(failed.headers().firstValue("ETag").isEmpty());
+            assertTrue(failed.headers().firstValue("Last-Modified").isEmpty());
+            assertEquals("private, no-store", failed.headers().firstValue("Cache-Control").orElse(null));
+        } finally {
+            app.stop();
+        }
+    }
+
+    private static HttpResponse<String> revalidate(HttpClient client, String etag) throws Exception {
+        return TestApp.send(client, HttpRequest.newBuilder(URI.create(TestApp.baseUrl() + "/api/v1/tasks"))
+                .header("If-None-Match", etag)
+                .GET()
+                .build());
+    }
+}
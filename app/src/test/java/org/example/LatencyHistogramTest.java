@@ -0,0 +1,65 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void keepsSmallValuesExact() {
+        for (int micros = 0; micros < 16; micros++) {
+            assertEquals(micros, LatencyHistogram.bucketOf(micros));
+            assertEquals(micros, LatencyHistogram.upperEdge(micros));
+        }
+    }
+
+    @Test
+    void splitsEachPowerOfTwoIntoSixteenBuckets() {
+        // 16..31 are still one microsecond wide, 32..63 two, 1024..2047 sixty-four
+        assertEquals(16, LatencyHistogram.bucketOf(16));
+        assertEquals(31, LatencyHistogram.bucketOf(31));
+        assertEquals(32, LatencyHistogram.bucketOf(32));
+        assertEquals(32, LatencyHistogram.bucketOf(33));
+        assertEquals(33, LatencyHistogram.upperEdge(32));
+        assertEquals(1024 + 63, LatencyHistogram.upperEdge(LatencyHistogram.bucketOf(1024)));
+    }
+
+    @Test
+    void everyValueFallsInsideItsBucket() {
+        for (long micros = 1; micros < 1L << 36; micros = micros * 3 / 2 + 1) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            long upper = LatencyHistogram.upperEdge(bucket);
+            long lower = bucket == 0 ? 0 : LatencyHistogram.upperEdge(bucket - 1) + 1;
+
+            assertTrue(lower <= micros && micros <= upper, micros + " not in [" + lower + ", " + upper + "]");
+            // The promised precision: a bucket is at most 1/16 of its lower edge wide
+            assertTrue(upper - lower + 1 <= Math.max(1, lower / 16), "bucket " + bucket + " too wide");
+        }
+    }
+
+    @Test
+    void clampsValuesPastTheLastBucket() {
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void reportsQuantilesFromBucketEdges() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.quantileMicros(0.5));
+
+        for (int micros = 1; micros <= 100; micros++) {
+            histogram.recordMicros(micros);
+        }
+        histogram.recordNanos(-5);
+
+        assertEquals(101, histogram.count());
+        assertEquals(5050, histogram.sumMicros());
+        assertEquals(100, histogram.maxMicros());
+        // Rank 51 of 0..100 is 50, in the 50..51 bucket
+        assertEquals(51, histogram.quantileMicros(0.5));
+        // The top bucket's edge (103) is capped at the largest value seen
+        assertEquals(100, histogram.quantileMicros(1.0));
+    }
+}
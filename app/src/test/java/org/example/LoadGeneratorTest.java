@@ -0,0 +1,27 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadGeneratorTest {
+
+    @Test
+    void countsRedirectedPagesAndLostLoginsAsFailures() {
+        assertFalse(LoadGenerator.failed("GET", 200, null));
+        assertFalse(LoadGenerator.failed("GET", 304, null));
+        assertTrue(LoadGenerator.failed("GET", 500, null));
+        assertTrue(LoadGenerator.failed("POST", 429, null));
+
+        // Post/redirect/get is how forms succeed
+        assertFalse(LoadGenerator.failed("POST", 302, "/dashboard"));
+        assertFalse(LoadGenerator.failed("POST", 303, "http://localhost:7070/tasks"));
+        // ...unless the session is gone
+        assertTrue(LoadGenerator.failed("POST", 302, "/login"));
+        assertTrue(LoadGenerator.failed("POST", 302, "http://localhost:7070/login"));
+        // A page that redirects was not served
+        assertTrue(LoadGenerator.failed("GET", 302, "/login"));
+        assertTrue(LoadGenerator.failed("GET", 301, "/elsewhere"));
+    }
+}
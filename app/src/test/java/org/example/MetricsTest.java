@@ -0,0 +1,85 @@
+package com.example;
+
+import io.javalin.Javalin;
+import io.javalin.http.UnauthorizedResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Wired as in TodoAppDatabase.start, with a guard and an after-handler on a bare Javalin app
+class MetricsTest {
+    private static final Metrics metrics = new Metrics();
+    private static Javalin app;
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void start() {
+        app = Javalin.create(config -> config.requestLogger.http(metrics::recordRequest));
+        app.events(event -> event.handlerAdded(metrics::routeAdded));
+        app.start(0);
+        app.before("/private/*", ctx -> {
+            if (ctx.header("Authorization") == null) {
+                throw new UnauthorizedResponse();
+            }
+        });
+        app.after(ctx -> ctx.header("X-After", "1"));
+        app.get("/private/{id}", ctx -> ctx.result("ok"));
+        app.get("/public", ctx -> ctx.result("ok"));
+    }
+
+    @AfterAll
+    static void stop() {
+        app.stop();
+    }
+
+    private static int get(String path, boolean authorized) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + app.port() + path));
+        if (authorized) {
+            request.header("Authorization", "Bearer x");
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static long count(String scrape, String route) {
+        String prefix = "http_request_duration_seconds_count{method=\"GET\",route=\"" + route + "\"} ";
+        for (String line : scrape.split("\n")) {
+            if (line.startsWith(prefix)) {
+                return Long.parseLong(line.substring(prefix.length()));
+            }
+        }
+        return 0;
+    }
+
+    @Test
+    void recordsRequestsByRouteAndTheRestAsUnmatched() throws Exception {
+        assertEquals(200, get("/public", false));
+        assertEquals(200, get("/private/1", true));
+        assertEquals(200, get("/private/2", true));
+        assertEquals(401, get("/private/3", false));
+        assertEquals(404, get("/nowhere/1", false));
+        assertEquals(404, get("/nowhere/2", false));
+
+        // The logger runs after the response is sent
+        String scrape = metrics.scrape();
+        for (int i = 0; i < 100 && count(scrape, "unmatched") < 3; i++) {
+            Thread.sleep(10);
+            scrape = metrics.scrape();
+        }
+        assertEquals(1, count(scrape, "/public"));
+        assertEquals(2, count(scrape, "/private/{id}"));
+        assertEquals(3, count(scrape, "unmatched"));
+        assertFalse(scrape.contains("/private/*"));
+        assertFalse(scrape.contains("/nowhere"));
+        assertTrue(scrape.contains("route=\"unmatched\""));
+    }
+}
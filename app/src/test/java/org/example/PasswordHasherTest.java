@@ -0,0 +1,104 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    // Cheap enough for tests; the format and checks do not depend on the cost
+    private static PasswordHasher hasher(int iterations) {
+        PasswordHasher.Config config = new PasswordHasher.Config();
+        config.iterations = iterations;
+        return new PasswordHasher(config);
+    }
+
+    @Test
+    void verifiesTheHashedPasswordAndNothingElse() {
+        try (PasswordHasher hasher = hasher(1_000)) {
+            String stored = hasher.hash("correct horse");
+
+            assertTrue(stored.startsWith("pbkdf2-sha256$1000$"));
+            assertTrue(hasher.verify("correct horse", stored));
+            assertFalse(hasher.verify("correct horse ", stored));
+            assertFalse(hasher.verify("correct horse", null));
+            assertFalse(hasher.verify("correct horse", "pbkdf2-sha256$1000$!!$!!"));
+            // Salted: the same password never hashes the same way twice
+            assertNotEquals(stored, hasher.hash("correct horse"));
+            assertFalse(hasher.needsRehash(stored));
+        }
+    }
+
+    @Test
+    void asksForARehashOnceTheCostChanges() {
+        String stored;
+        try (PasswordHasher old = hasher(1_000)) {
+            stored = old.hash("pw");
+        }
+        try (PasswordHasher raised = hasher(2_000)) {
+            assertTrue(raised.verify("pw", stored));
+            assertTrue(raised.needsRehash(stored));
+            assertFalse(raised.needsRehash(raised.hash("pw")));
+        }
+    }
+
+    @Test
+    void acceptsALegacyPlainTextPasswordOnceForRehashing() {
+        try (PasswordHasher hasher = hasher(1_000)) {
+            assertTrue(hasher.verify("hunter2", "hunter2"));
+            assertFalse(hasher.verify("hunter3", "hunter2"));
+            assertTrue(hasher.needsRehash("hunter2"));
+        }
+    }
+
+    @Test
+    void refusesWorkWithBusyWhenTheQueueIsFull() throws Exception {
+        PasswordHasher.Config config = new PasswordHasher.Config();
+        config.iterations = 4_000_000;
+        config.threads = 1;
+        config.queueCapacity = 1;
+        config.maxWaitMillis = 30_000;
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try (PasswordHasher hasher = new PasswordHasher(config)) {
+            // One hash running, one waiting behind it
+            List<CompletableFuture<String>> pending = new ArrayList<>();
+            pending.add(CompletableFuture.supplyAsync(() -> hasher.hash("first"), callers));
+            pending.add(CompletableFuture.supplyAsync(() -> hasher.hash("second"), callers));
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (hasher.stats().queued() == 0) {
+                assertTrue(System.nanoTime() < deadline, "second hash never queued");
+                Thread.sleep(1);
+            }
+
+            assertThrows(PasswordHasher.Busy.class, () -> hasher.hash("third"));
+            assertEquals(1, hasher.stats().rejected());
+            for (CompletableFuture<String> hash : pending) {
+                assertTrue(hash.get().startsWith("pbkdf2-sha256$4000000$"));
+            }
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    @Test
+    void givesUpWithBusyAfterMaxWait() {
+        PasswordHasher.Config config = new PasswordHasher.Config();
+        config.iterations = 5_000_000;
+        config.threads = 1;
+        config.maxWaitMillis = 20;
+        try (PasswordHasher hasher = new PasswordHasher(config)) {
+            assertThrows(PasswordHasher.Busy.class, () -> hasher.hash("slow"));
+            assertEquals(1, hasher.stats().rejected());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardsTest {
+    @TempDir
+    Path dir;
+
+    private String path() {
+        return dir.resolve("todo_app.db").toString();
+    }
+
+    private static Shard open(String path, int index, int count) {
+        return new Shard(index + "-of-" + count, path, index, count, new ConnectionPool.Config());
+    }
+
+    private static void insertTask(PooledConnection conn, String id, int userId, Integer parentId) throws SQLException {
+        PreparedStatement pstmt = conn.prepare("INSERT INTO tasks (id, user_id, title, parent_task_id) VALUES ("
+                + id + ", ?, ?, ?)");
+        pstmt.setInt(1, userId);
+        pstmt.setString(2, "task of " + userId);
+        pstmt.setObject(3, parentId);
+        pstmt.executeUpdate();
+    }
+
+    private static List<Long> taskIds(PooledConnection conn) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Statement stmt = conn.raw().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM tasks ORDER BY id")) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    void routesEachUserToOneShardAndSpreadsConsecutiveIds() {
+        try (Shards single = new Shards(path(), 0, new ConnectionPool.Config());
+             Shards four = new Shards(path(), 4, new ConnectionPool.Config())) {
+            assertSame(single.directory(), single.forUser(42));
+
+            int[] perShard = new int[4];
+            for (int userId = 1; userId <= 4_000; userId++) {
+                Shard shard = four.forUser(userId);
+                assertSame(shard, four.forUser(userId));
+                assertEquals(Shards.indexFor(userId, 4), shard.index());
+                perShard[shard.index()]++;
+            }
+            // Users signing up together land on different files, not all on one
+            for (int count : perShard) {
+                assertTrue(count > 800 && count < 1_200, "uneven spread " + count);
+            }
+        }
+    }
+
+    @Test
+    void refusesToStartWithADifferentShardCount() throws SQLException {
+        Shard directory = open(path(), 0, 0);
+        try (directory; PooledConnection conn = directory.borrow()) {
+            Shards.checkLayout(conn, 4);
+            assertEquals(4, Shards.readLayout(conn));
+            Shards.checkLayout(conn, 4);
+
+            IllegalStateException refused = assertThrows(IllegalStateException.class, () -> Shards.checkLayout(conn, 2));
+            assertTrue(refused.getMessage().contains("laid out for 4"));
+        }
+    }
+
+    @Test
+    void refusesToShardASingleFileThatHasTasks() throws SQLException {
+        Shard directory = open(path(), 0, 0);
+        try (directory; PooledConnection conn = directory.borrow()) {
+            TodoAppDatabase.initializeTaskTables(conn, StorageMode.ROLLBACK);
+            insertTask(conn, "NULL", 1, null);
+
+            assertThrows(IllegalStateException.class, () -> Shards.checkLayout(conn, 2));
+            // Staying on the single file is fine
+            Shards.checkLayout(conn, 0);
+        }
+    }
+
+    @Test
+    void handsOutTaskIdsAboveTheFloorInTheShardsResidueClass() throws SQLException {
+        String file = Shards.taskShardPath(path(), 1, 3);
+        Shard shard = open(file, 1, 3);
+        try (shard; PooledConnection conn = shard.borrow()) {
+            TodoAppDatabase.initializeTaskTables(conn, StorageMode.ROLLBACK);
+            try (Statement stmt = conn.raw().createStatement()) {
+                stmt.execute(Shard.CREATE_INFO);
+            }
+            Shard.writeInfo(conn, 1, 3, 100);
+            shard.initializeIds(conn);
+            for (int i = 0; i < 5; i++) {
+                insertTask(conn, shard.nextTaskId(), 7, null);
+            }
+
+            assertEquals(List.of(103L, 106L, 109L, 112L, 115L), taskIds(conn));
+        }
+        // The file remembers which shard it is
+        Shard misplaced = open(file, 2, 3);
+        try (misplaced; PooledConnection conn = misplaced.borrow()) {
+            assertThrows(IllegalStateException.class, () -> misplaced.initializeIds(conn));
+        }
+    }
+
+    @Test
+    void countersToolRebuildsEveryTaskShard() throws Exception {
+        Shard directory = open(path(), 0, 0);
+        try (directory; PooledConnection conn = directory.borrow()) {
+            Shards.writeLayout(conn, 2);
+        }
+        for (int i = 0; i < 2; i++) {
+            Shard shard = open(Shards.taskShardPath(path(), i, 2), i, 2);
+            try (shard; PooledConnection conn = shard.borrow()) {
+                TodoAppDatabase.initializeTaskTables(conn, StorageMode.ROLLBACK);
+                insertTask(conn, "NULL", 10 + i, null);
+                try (Statement stmt = conn.raw().createStatement()) {
+                    stmt.executeUpdate("UPDATE task_counters SET total = 99");
+                }
+            }
+        }
+
+        TaskCounters.main(new String[] {"rebuild", path()});
+
+        for (int i = 0; i < 2; i++) {
+            Shard shard = open(Shards.taskShardPath(path(), i, 2), i, 2);
+            try (shard; PooledConnection conn = shard.borrow()) {
+                assertEquals(List.of(), TaskCounters.verify(conn));
+                assertEquals(1, TaskCounters.load(conn, 10 + i).total());
+            }
+        }
+    }
+
+    @Test
+    void reshardKeepsTaskIdsAndContinuesAboveThem() throws Exception {
+        Shard directory = open(path(), 0, 0);
+        try (directory; PooledConnection conn = directory.borrow()) {
+            TodoAppDatabase.initializeTaskTables(conn, StorageMode.ROLLBACK);
+            for (int userId = 1; userId <= 6; userId++) {
+                insertTask(conn, "NULL", userId, null);
+            }
+            // A subtask travels with its parent, as both belong to the same user
+            insertTask(conn, "NULL", 3, 3);
+        }
+
+        Reshard.main(new String[] {"2", path()});
+
+        Shard switched = open(path(), 0, 0);
+        try (switched; PooledConnection conn = switched.borrow()) {
+            assertEquals(2, Shards.readLayout(conn));
+        }
+        List<Long> moved = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Shard shard = open(Shards.taskShardPath(path(), i, 2), i, 2);
+            try (shard; PooledConnection conn = shard.borrow()) {
+                try (Statement stmt = conn.raw().createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT id, user_id FROM tasks")) {
+                    while (rs.next()) {
+                        assertEquals(i, Shards.indexFor(rs.getInt("user_id"), 2));
+                        moved.add(rs.getLong("id"));
+                    }
+                }
+                shard.initializeIds(conn);
+                int owner = 1;
+                while (Shards.indexFor(owner, 2) != i) {
+                    owner++;
+                }
+                insertTask(conn, shard.nextTaskId(), owner, null);
+                List<Long> ids = taskIds(conn);
+                long next = ids.get(ids.size() - 1);
+                assertTrue(next > 7, "new id " + next + " reuses an old one");
+                assertEquals(i, next % 2);
+            }
+        }
+        moved.sort(null);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), moved);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubmissionLogTest {
+    @TempDir
+    Path dir;
+
+    private SubmissionLog open() throws IOException {
+        SubmissionLog.Config config = new SubmissionLog.Config();
+        config.dir = dir;
+        return new SubmissionLog(config);
+    }
+
+    private static void write(SubmissionLog log, String... names) {
+        for (String name : names) {
+            assertTrue(log.offer("contact", Map.of("name", name)));
+        }
+    }
+
+    private List<String> replay() throws IOException {
+        List<String> names = new ArrayList<>();
+        try (SubmissionLog log = open()) {
+            log.replay(s -> names.add(s.fields().get("name")));
+        }
+        return names;
+    }
+
+    private Path onlySegment() throws IOException {
+        try (var files = Files.list(dir)) {
+            List<Path> segments = files.toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+
+    @Test
+    void cutsATornRecordOffTheEndAndAppendsAfterIt() throws IOException {
+        try (SubmissionLog log = open()) {
+            write(log, "ada", "bob", "cy");
+        }
+        Path segment = onlySegment();
+        long intact = Files.size(segment);
+        // A crash part-way through the next record: its length and checksum, then half a body
+        Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2, 3, 4, 'h', 'a', 'l', 'f'}, StandardOpenOption.APPEND);
+
+        try (SubmissionLog log = open()) {
+            assertEquals(intact, Files.size(segment));
+            write(log, "dee");
+        }
+
+        assertEquals(List.of("ada", "bob", "cy", "dee"), replay());
+    }
+
+    @Test
+    void dropsALastRecordThatFailsItsChecksum() throws IOException {
+        try (SubmissionLog log = open()) {
+            write(log, "ada", "bob");
+        }
+        Path segment = onlySegment();
+        byte[] bytes = Files.readAllBytes(segment);
+        // Flip the last byte of the last record's body, as a partly flushed page would
+        bytes[bytes.length - 1] ^= 0x5a;
+        Files.write(segment, bytes);
+
+        assertEquals(List.of("ada"), replay());
+        try (SubmissionLog log = open()) {
+            write(log, "cy");
+        }
+        assertEquals(List.of("ada", "cy"), replay());
+    }
+
+    @Test
+    void removesLeftoversOfInterruptedWrites() throws IOException {
+        try (SubmissionLog log = open()) {
+            write(log, "ada");
+        }
+        // A segment cut off before its header was complete, and an uncommitted compaction
+        Path headerless = dir.resolve(String.format("segment-%020d.log", 2));
+        Files.write(headerless, new byte[] {0x53, 0x4c});
+        Path compacting = dir.resolve(String.format("segment-%020d.log.compact", 1));
+        Files.write(compacting, new byte[] {1, 2, 3});
+
+        assertEquals(List.of("ada"), replay());
+        assertFalse(Files.exists(headerless));
+        assertFalse(Files.exists(compacting));
+    }
+}
@@ -0,0 +1,186 @@
+package com.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskApiTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static JsonNode json(HttpResponse<String> response) throws Exception {
+        return MAPPER.readTree(response.body());
+    }
+
+    @Test
+    void listsTasksPageByPage() throws Exception {
+        HttpClient client = TestApp.client();
+        TestApp.registerAndLogin(client);
+        for (String title : new String[] {"one", "two", "three"}) {
+            assertEquals(201, TestApp.json(client, "POST", "/api/v1/tasks", "{\"title\":\"" + title + "\"}").statusCode());
+        }
+
+        JsonNode first = json(TestApp.json(client, "GET", "/api/v1/tasks?limit=2", null));
+        assertEquals(2, first.get("tasks").size());
+        assertEquals("three", first.get("tasks").get(0).get("title").asText());
+        assertTrue(first.get("tasks").get(0).get("parentTaskId").isNull());
+        String cursor = first.get("nextCursor").asText();
+
+        JsonNode second = json(TestApp.json(client, "GET", "/api/v1/tasks?limit=2&cursor=" + cursor, null));
+        assertEquals(1, second.get("tasks").size());
+        assertEquals("one", second.get("tasks").get(0).get("title").asText());
+        assertTrue(second.get("nextCursor").isNull());
+
+        assertEquals(400, TestApp.json(client, "GET", "/api/v1/tasks?cursor=garbage", null).statusCode());
+    }
+
+    @Test
+    void writesTheSameTaskShapeFromEveryEndpoint() throws Exception {
+        HttpClient client = TestApp.client();
+        TestApp.registerAndLogin(client);
+        JsonNode created = json(TestApp.json(client, "POST", "/api/v1/tasks", "{\"title\":\"shape\",\"dueAt\":1700000000}"));
+        int id = created.get("id").asInt();
+        JsonNode fetched = json(TestApp.json(client, "GET", "/api/v1/tasks/" + id, null));
+        JsonNode listed = json(TestApp.json(client, "GET", "/api/v1/tasks", null)).get("tasks").get(0);
+        JsonNode updated = json(TestApp.json(client, "PATCH", "/api/v1/tasks/" + id, "{\"title\":\"reshaped\"}"));
+
+        assertEquals(created, fetched);
+        assertEquals(fetched, listed);
+        assertEquals(1700000000L, listed.get("dueAt").asLong());
+        assertEquals(fieldNames(listed), fieldNames(updated));
+        assertEquals("reshaped", updated.get("title").asText());
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    @Test
+    void signsUpWithoutALoginAndRefusesDuplicates() throws Exception {
+        HttpClient client = TestApp.client();
+        String username = "api" + System.nanoTime();
+        String body = "{\"username\":\"" + username + "\",\"email\":\"" + username + "@example.com\",\"password\":\"pw\"}";
+
+        HttpResponse<String> created = TestApp.json(client, "POST", "/api/v1/users", body);
+        assertEquals(201, created.statusCode());
+        int id = json(created).get("id").asInt();
+        assertEquals("/api/v1/users/" + id, created.headers().firstValue("Location").orElse(null));
+        assertEquals(username, json(created).get("username").asText());
+
+        assertEquals(409, TestApp.json(client, "POST", "/api/v1/users", body).statusCode());
+        assertEquals(400, TestApp.json(client, "POST", "/api/v1/users", "{\"username\":\"x\"}").statusCode());
+        assertEquals(401, TestApp.json(client, "GET", "/api/v1/users/" + id, null).statusCode());
+    }
+
+    @Test
+    void showsOnlyYourOwnUser() throws Exception {
+        HttpClient client = TestApp.client();
+        String username = TestApp.registerAndLogin(client);
+        JsonNode me = json(TestApp.json(client, "GET", "/api/v1/users/me", null));
+        assertEquals(username, me.get("username").asText());
+
+        int id = me.get("id").asInt();
+        assertEquals(200, TestApp.json(client, "GET", "/api/v1/users/" + id, null).statusCode());
+        HttpClient other = TestApp.client();
+        TestApp.registerAndLogin(other);
+        assertEquals(404, TestApp.json(other, "GET", "/api/v1/users/" + id, null).statusCode());
+    }
+
+    @Test
+    void updatesEmailAndPasswordPartially() throws Exception {
+        HttpClient client = TestApp.client();
+        String username = TestApp.registerAndLogin(client);
+
+        HttpResponse<String> updated = TestApp.json(client, "PATCH", "/api/v1/users/me",
+                "{\"email\":\"new-" + username + "@example.com\"}");
+        assertEquals(200, updated.statusCode());
+        assertEquals("new-" + username + "@example.com", json(updated).get("email").asText());
+
+        assertEquals(403, TestApp.json(client, "PATCH", "/api/v1/users/me",
+                "{\"password\":\"changed\",\"currentPassword\":\"wrong\"}").statusCode());
+        assertEquals(200, TestApp.json(client, "PATCH", "/api/v1/users/me",
+                "{\"password\":\"changed\",\"currentPassword\":\"secret-" + username + "\"}").statusCode());
+        assertEquals(400, TestApp.json(client, "PATCH", "/api/v1/users/me", "{\"id\":1}").statusCode());
+
+        HttpResponse<String> login = TestApp.postForm(TestApp.client(), "/login",
+                Map.of("username", username, "password", "changed"));
+        assertEquals("/dashboard", login.headers().firstValue("Location").orElse(null));
+    }
+
+    @Test
+    void renamesTheUserForLoginAndTheSession() throws Exception {
+        HttpClient client = TestApp.client();
+        String username = TestApp.registerAndLogin(client);
+        String renamed = "renamed-" + username;
+        int id = json(TestApp.json(client, "GET", "/api/v1/users/me", null)).get("id").asInt();
+
+        HttpResponse<String> updated = TestApp.json(client, "PATCH", "/api/v1/users/me",
+                "{\"username\":\"" + renamed + "\"}");
+        assertEquals(200, updated.statusCode());
+        assertEquals(renamed, json(updated).get("username").asText());
+        assertTrue(TestApp.get(client, "/dashboard").body().contains(renamed));
+
+        String password = "secret-" + username;
+        assertEquals(200, TestApp.postForm(TestApp.client(), "/login",
+                Map.of("username", username, "password", password)).statusCode());
+        HttpClient again = TestApp.client();
+        assertEquals(302, TestApp.postForm(again, "/login", Map.of("username", renamed, "password", password)).statusCode());
+        assertEquals(id, json(TestApp.json(again, "GET", "/api/v1/users/me", null)).get("id").asInt());
+
+        // The old name is free again and now resolves to the new owner, not a stale cached id
+        HttpClient newcomer = TestApp.client();
+        TestApp.postForm(newcomer, "/register", Map.of("username", username, "email", "other-" + username + "@example.com",
+                "password", "pw", "confirmPassword", "pw"));
+        TestApp.postForm(newcomer, "/login", Map.of("username", username, "password", "pw"));
+        JsonNode other = json(TestApp.json(newcomer, "GET", "/api/v1/users/me", null));
+        assertEquals(username, other.get("username").asText());
+        assertTrue(other.get("id").asInt() != id);
+
+        assertEquals(409, TestApp.json(client, "PATCH", "/api/v1/users/me",
+                "{\"username\":\"" + username + "\"}").statusCode());
+    }
+
+    @Test
+    void deletesTheUserTheirTasksAndTheSession() throws Exception {
+        HttpClient client = TestApp.client();
+        String username = TestApp.registerAndLogin(client);
+        assertEquals(201, TestApp.json(client, "POST", "/api/v1/tasks", "{\"title\":\"doomed\"}").statusCode());
+
+        assertEquals(204, TestApp.json(client, "DELETE", "/api/v1/users/me", null).statusCode());
+        assertEquals(401, TestApp.json(client, "GET", "/api/v1/users/me", null).statusCode());
+        assertEquals(200, TestApp.postForm(TestApp.client(), "/login",
+                Map.of("username", username, "password", "secret-" + username)).statusCode());
+
+        // The name can be registered afresh, and starts with no tasks
+        HttpClient fresh = TestApp.client();
+        TestApp.postForm(fresh, "/register", Map.of("username", username, "email", username + "@example.com",
+                "password", "pw", "confirmPassword", "pw"));
+        TestApp.postForm(fresh, "/login", Map.of("username", username, "password", "pw"));
+        JsonNode tasks = json(TestApp.json(fresh, "GET", "/api/v1/tasks", null));
+        assertEquals(0, tasks.get("tasks").size());
+    }
+
+    @Test
+    void endsTheUsersOtherSessionsOnDelete() throws Exception {
+        HttpClient client = TestApp.client();
+        String username = TestApp.registerAndLogin(client);
+        HttpClient other = TestApp.client();
+        assertEquals(302, TestApp.postForm(other, "/login",
+                Map.of("username", username, "password", "secret-" + username)).statusCode());
+        assertEquals(200, TestApp.json(other, "GET", "/api/v1/users/me", null).statusCode());
+
+        assertEquals(204, TestApp.json(client, "DELETE", "/api/v1/users/me", null).statusCode());
+        assertEquals(401, TestApp.json(other, "GET", "/api/v1/users/me", null).statusCode());
+        assertEquals(401, TestApp.json(other, "POST", "/api/v1/tasks", "{\"title\":\"orphan\"}").statusCode());
+    }
+}
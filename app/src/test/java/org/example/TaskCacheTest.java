@@ -0,0 +1,128 @@
+package com.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TaskCacheTest {
+    private PooledConnection conn;
+
+    @BeforeEach
+    void seed() throws SQLException {
+        conn = new ConnectionPool("jdbc:sqlite::memory:", new ConnectionPool.Config()).openDedicated();
+        TodoAppDatabase.initializeTaskTables(conn, StorageMode.ROLLBACK);
+        for (int userId = 1; userId <= 3; userId++) {
+            insert(userId, "first", "x".repeat(1_000), "pending");
+            insert(userId, "second", null, "completed");
+        }
+    }
+
+    @AfterEach
+    void close() {
+        conn.close();
+    }
+
+    private void insert(int userId, String title, String description, String status) throws SQLException {
+        PreparedStatement pstmt = conn.prepare("INSERT INTO tasks (user_id, title, description, status) VALUES (?, ?, ?, ?)");
+        pstmt.setInt(1, userId);
+        pstmt.setString(2, title);
+        pstmt.setString(3, description);
+        pstmt.setString(4, status);
+        pstmt.executeUpdate();
+    }
+
+    private static TaskCache cache(int maxEntries, long maxBytes) {
+        TaskCache.Config config = new TaskCache.Config();
+        config.maxEntries = maxEntries;
+        config.maxBytes = maxBytes;
+        return new TaskCache(config, 10);
+    }
+
+    @Test
+    void servesAnEntryOnlyWhileItsVersionIsCurrent() throws SQLException {
+        TaskCache cache = cache(10, 1 << 20);
+        TaskCache.Entry loaded = cache.load(conn, 1, 5);
+        assertEquals(new TaskCounters.Counts(1, 0, 1, 2), loaded.counts());
+        assertEquals("second", loaded.page(1).getTasks().get(0).getTitle());
+        assertNotNull(loaded.page(1).getNextCursor());
+        assertNull(loaded.page(2).getNextCursor());
+
+        assertEquals(loaded, cache.get(1, 5));
+        // A write bumped the version: the entry is stale and dropped
+        assertNull(cache.get(1, 6));
+        assertNull(cache.get(1, 5));
+
+        TaskCache.Stats stats = cache.stats();
+        assertEquals(0, stats.entries());
+        assertEquals(0, stats.bytes());
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+    }
+
+    @Test
+    void keepsANewerEntryOverASlowerLoadOfAnOlderVersion() throws SQLException {
+        TaskCache cache = cache(10, 1 << 20);
+        cache.load(conn, 1, 6);
+        cache.load(conn, 1, 5);
+
+        assertNotNull(cache.get(1, 6));
+    }
+
+    @Test
+    void dropsAnEntryOnInvalidate() throws SQLException {
+        TaskCache cache = cache(10, 1 << 20);
+        cache.load(conn, 1, 5);
+        cache.invalidate(1);
+        cache.invalidate(1);
+
+        assertNull(cache.get(1, 5));
+        assertEquals(1, cache.stats().invalidations());
+        assertEquals(0, cache.stats().bytes());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedUserPastMaxEntries() throws SQLException {
+        TaskCache cache = cache(2, 1 << 20);
+        cache.load(conn, 1, 1);
+        cache.load(conn, 2, 1);
+        // Reading user 1 makes user 2 the least recently used
+        cache.get(1, 1);
+        cache.load(conn, 3, 1);
+
+        assertNotNull(cache.get(1, 1));
+        assertNull(cache.get(2, 1));
+        assertNotNull(cache.get(3, 1));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedUserPastMaxBytes() throws SQLException {
+        TaskCache probe = cache(10, 1 << 20);
+        probe.load(conn, 1, 1);
+        long entryBytes = probe.stats().bytes();
+
+        // Room for two users' entries, not three
+        TaskCache cache = cache(10, entryBytes * 5 / 2);
+        cache.load(conn, 1, 1);
+        cache.load(conn, 2, 1);
+        cache.get(1, 1);
+        cache.load(conn, 3, 1);
+
+        assertNotNull(cache.get(1, 1));
+        assertNull(cache.get(2, 1));
+        assertNotNull(cache.get(3, 1));
+        assertEquals(2 * entryBytes, cache.stats().bytes());
+
+        // An entry bigger than the whole cache is returned but not kept
+        TaskCache tiny = cache(10, entryBytes - 1);
+        assertNotNull(tiny.load(conn, 1, 1));
+        assertEquals(0, tiny.stats().entries());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskImporterTest {
+
+    private static TaskImporter.CsvReader csv(String text) {
+        return new TaskImporter.CsvReader(new StringReader(text));
+    }
+
+    @Test
+    void readsQuotedFieldsEscapesAndEmbeddedNewlines() throws IOException {
+        TaskImporter.CsvReader reader = csv("title,description\r\n\"Say \"\"hi\"\"\",\"two\nlines\"\nplain,\n");
+
+        assertEquals(List.of("title", "description"), reader.next());
+        assertEquals(List.of("Say \"hi\"", "two\nlines"), reader.next());
+        assertEquals(2, reader.recordLine());
+        assertEquals(List.of("plain", ""), reader.next());
+        assertEquals(4, reader.recordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void readsALastRecordWithoutNewline() throws IOException {
+        TaskImporter.CsvReader reader = csv("a,b\nc,d");
+
+        assertEquals(List.of("a", "b"), reader.next());
+        assertEquals(List.of("c", "d"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void rejectsAnUnterminatedQuote() throws IOException {
+        TaskImporter.CsvReader reader = csv("ok\n\"never closed\n");
+
+        reader.next();
+        IOException e = assertThrows(IOException.class, reader::next);
+        assertTrue(e.getMessage().contains("line 2"));
+    }
+
+    @Test
+    void capsFieldLength() {
+        String longField = "x".repeat(64 * 1024 + 1);
+        assertThrows(TaskImporter.RecordTooLarge.class, () -> csv("\"" + longField + "\"\n").next());
+        assertThrows(TaskImporter.RecordTooLarge.class, () -> csv(longField + "\n").next());
+    }
+
+    @Test
+    void capsFieldsPerRecord() throws IOException {
+        assertEquals(64, csv(",".repeat(63) + "\n").next().size());
+        assertThrows(TaskImporter.RecordTooLarge.class, () -> csv(",".repeat(64) + "\n").next());
+    }
+
+    @Test
+    void readsBoundedLines() throws IOException {
+        BufferedReader in = new BufferedReader(new StringReader("one\r\n\ntwelve chars\nlast"));
+
+        assertEquals("one", TaskImporter.readLine(in, 12));
+        assertEquals("", TaskImporter.readLine(in, 12));
+        assertEquals("twelve chars", TaskImporter.readLine(in, 12));
+        assertEquals("last", TaskImporter.readLine(in, 12));
+        assertNull(TaskImporter.readLine(in, 12));
+
+        BufferedReader tooLong = new BufferedReader(new StringReader("thirteen chars\n"));
+        assertThrows(TaskImporter.RecordTooLarge.class, () -> TaskImporter.readLine(tooLong, 12));
+    }
+
+    @Test
+    void refusesAnOversizedLineBeforeAnythingIsImported() throws Exception {
+        HttpClient client = TestApp.client();
+        TestApp.registerAndLogin(client);
+        String body = "{\"title\":\"fine\"}\n{\"title\":\"" + "x".repeat(300_000) + "\"}\n";
+
+        HttpResponse<String> response = TestApp.send(client, HttpRequest.newBuilder(
+                        URI.create(TestApp.baseUrl() + "/api/v1/tasks/import"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+
+        assertEquals(413, response.statusCode());
+        assertTrue(TestApp.json(client, "GET", "/api/v1/tasks", null).body().contains("\"tasks\":[]"));
+    }
+
+    @Test
+    void importsNdjsonAndReportsBadRows() throws Exception {
+        HttpClient client = TestApp.client();
+        TestApp.registerAndLogin(client);
+        String body = "{\"title\":\"first\"}\nnot json\n{\"title\":\"second\",\"priority\":\"urgent\"}\n";
+
+        HttpResponse<String> response = TestApp.send(client, HttpRequest.newBuilder(
+                        URI.create(TestApp.baseUrl() + "/api/v1/tasks/import"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("{\"type\":\"error\",\"row\":2,\"message\":\"Malformed JSON\"}"));
+        assertTrue(response.body().contains("{\"type\":\"summary\",\"rowsRead\":3,\"imported\":1,\"failed\":2}"));
+    }
+}
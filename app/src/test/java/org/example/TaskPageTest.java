@@ -0,0 +1,40 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TaskPageTest {
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void roundTripsTheLastRowPosition() {
+        String token = TaskPage.encodeCursor("2024-03-01 12:00:00", 42);
+
+        assertFalse(token.contains("=") || token.contains("+") || token.contains("/"));
+        assertEquals(new TaskPage.Cursor("2024-03-01 12:00:00", 42), TaskPage.decodeCursor(token));
+    }
+
+    @Test
+    void splitsOnTheLastSeparator() {
+        assertEquals(new TaskPage.Cursor("odd|time", 7), TaskPage.decodeCursor(base64("odd|time|7")));
+    }
+
+    @Test
+    void treatsMissingOrMalformedCursorsAsTheFirstPage() {
+        assertNull(TaskPage.decodeCursor(null));
+        assertNull(TaskPage.decodeCursor(" "));
+        assertNull(TaskPage.decodeCursor("not base64!"));
+        assertNull(TaskPage.decodeCursor(base64("no separator")));
+        assertNull(TaskPage.decodeCursor(base64("|12")));
+        assertNull(TaskPage.decodeCursor(base64("2024-03-01|twelve")));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskSearchTest {
+    private PooledConnection conn;
+
+    @BeforeEach
+    void seed() throws SQLException {
+        conn = new ConnectionPool("jdbc:sqlite::memory:", new ConnectionPool.Config()).openDedicated();
+        TodoAppDatabase.initializeTaskTables(conn, StorageMode.ROLLBACK);
+        insert(1, "Quarterly budget review", "Check the <numbers> with finance");
+        insert(1, "Buy milk", "Semi-skimmed, two litres");
+        insert(1, "Plan offsite", "Budget for the venue and travel");
+        insert(2, "Budget for user two", "Not visible to user one");
+    }
+
+    @AfterEach
+    void close() {
+        conn.close();
+    }
+
+    private void insert(int userId, String title, String description) throws SQLException {
+        PreparedStatement pstmt = conn.prepare("INSERT INTO tasks (user_id, title, description) VALUES (?, ?, ?)");
+        pstmt.setInt(1, userId);
+        pstmt.setString(2, title);
+        pstmt.setString(3, description);
+        pstmt.executeUpdate();
+    }
+
+    @Test
+    void findsOnlyTheUsersOwnTasksTitleHitsFirst() throws SQLException {
+        List<TaskSearch.Hit> hits = TaskSearch.search(conn, 1, "budget", 10);
+
+        assertEquals(2, hits.size());
+        assertEquals("Quarterly budget review", hits.get(0).task().getTitle());
+        assertEquals("Quarterly <mark>budget</mark> review", hits.get(0).titleHtml());
+        assertEquals("Plan offsite", hits.get(1).task().getTitle());
+        assertTrue(hits.get(1).snippetHtml().contains("<mark>Budget</mark>"));
+    }
+
+    @Test
+    void treatsTheLastWordAsAPrefix() throws SQLException {
+        List<TaskSearch.Hit> hits = TaskSearch.search(conn, 1, "mi", 10);
+
+        assertEquals(1, hits.size());
+        assertEquals("Buy <mark>milk</mark>", hits.get(0).titleHtml());
+    }
+
+    @Test
+    void escapesStoredTextAroundTheMarks() throws SQLException {
+        List<TaskSearch.Hit> hits = TaskSearch.search(conn, 1, "finance", 10);
+
+        assertEquals(1, hits.size());
+        assertEquals("Check the &lt;numbers&gt; with <mark>finance</mark>", hits.get(0).snippetHtml());
+    }
+
+    @Test
+    void followsUpdatesAndDeletes() throws SQLException {
+        try (var stmt = conn.raw().createStatement()) {
+            stmt.executeUpdate("UPDATE tasks SET title = 'Buy oat drink' WHERE title = 'Buy milk'");
+            stmt.executeUpdate("DELETE FROM tasks WHERE title = 'Plan offsite'");
+        }
+
+        assertEquals(0, TaskSearch.search(conn, 1, "milk", 10).size());
+        assertEquals(1, TaskSearch.search(conn, 1, "oat", 10).size());
+        assertEquals(1, TaskSearch.search(conn, 1, "budget", 10).size());
+    }
+
+    @Test
+    void quotesUserInputSoItIsNeverQuerySyntax() {
+        assertEquals("owner:\"u7\" AND {title description}: (\"NOT\" \"bud\"*)",
+                TaskSearch.toMatchExpression(7, "NOT \"bud"));
+        assertNull(TaskSearch.toMatchExpression(7, " * ( ) "));
+        assertNull(TaskSearch.toMatchExpression(7, null));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example;
+
+import io.javalin.Javalin;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.context.Context;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Renders the test templates (src/test/resources/templates) through a bare Javalin app
+class TemplateRendererTest {
+    private static Javalin app;
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void start() {
+        TemplateRenderer renderer = TemplateRenderer.create(StaticAssets.load());
+        app = Javalin.create().start(0);
+        app.get("/page", ctx -> {
+            Context context = new Context();
+            context.setVariable("greeting", "Hello from the template");
+            renderer.render(ctx, "test-page", context);
+        });
+        app.get("/broken", ctx -> renderer.render(ctx, "test-broken", new Context()));
+    }
+
+    @AfterAll
+    static void stop() {
+        app.stop();
+    }
+
+    private static HttpResponse<byte[]> get(String path, String acceptEncoding) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + app.port() + path))
+                .header("Accept-Encoding", acceptEncoding).build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    @Test
+    void gzipsThePageWhenTheClientAcceptsIt() throws Exception {
+        HttpResponse<byte[]> response = get("/page", "gzip, deflate");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals("Accept-Encoding", response.headers().firstValue("Vary").orElse(null));
+        String html = new String(new GZIPInputStream(new ByteArrayInputStream(response.body())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertTrue(html.contains("Hello from the template"));
+    }
+
+    @Test
+    void sendsThePagePlainWhenGzipIsRefused() throws Exception {
+        HttpResponse<byte[]> response = get("/page", "gzip;q=0, br");
+
+        assertEquals(200, response.statusCode());
+        assertFalse(response.headers().firstValue("Content-Encoding").isPresent());
+        assertTrue(new String(response.body(), StandardCharsets.UTF_8).contains("Hello from the template"));
+    }
+
+    @Test
+    void failsWithAPlainErrorInsteadOfAGzipLabel() throws Exception {
+        HttpResponse<byte[]> response = get("/broken", "gzip");
+
+        assertEquals(500, response.statusCode());
+        assertFalse(response.headers().firstValue("Content-Encoding").isPresent());
+        String body = new String(response.body(), StandardCharsets.UTF_8);
+        assertFalse(body.contains("Some of the page"));
+    }
+}
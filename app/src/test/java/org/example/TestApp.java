@@ -0,0 +1,82 @@
+package com.example;
+
+import io.javalin.Javalin;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One app per test JVM, started on a free port against the build's test database
+// (todo.db.path is set by the test task), and helpers for talking to it as a browser would
+final class TestApp {
+    private static final AtomicInteger users = new AtomicInteger();
+    private static Javalin app;
+
+    private TestApp() {
+    }
+
+    static synchronized String baseUrl() {
+        if (app == null) {
+            app = TodoAppDatabase.start(0);
+        }
+        return "http://localhost:" + app.port();
+    }
+
+    // A client with its own cookie jar, i.e. its own session; redirects are not followed
+    static HttpClient client() {
+        return HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    static HttpResponse<String> get(HttpClient client, String path) throws IOException, InterruptedException {
+        return send(client, HttpRequest.newBuilder(URI.create(baseUrl() + path)).GET().build());
+    }
+
+    static HttpResponse<String> postForm(HttpClient client, String path, Map<String, String> fields)
+            throws IOException, InterruptedException {
+        StringJoiner body = new StringJoiner("&");
+        fields.forEach((name, value) -> body.add(URLEncoder.encode(name, StandardCharsets.UTF_8) + "="
+                + URLEncoder.encode(value, StandardCharsets.UTF_8)));
+        return send(client, HttpRequest.newBuilder(URI.create(baseUrl() + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build());
+    }
+
+    static HttpResponse<String> json(HttpClient client, String method, String path, String json)
+            throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher body = json == null ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(json);
+        return send(client, HttpRequest.newBuilder(URI.create(baseUrl() + path))
+                .header("Content-Type", "application/json")
+                .method(method, body)
+                .build());
+    }
+
+    static HttpResponse<String> send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Register a new user and log this client in as them; returns the username
+    static String registerAndLogin(HttpClient client) throws IOException, InterruptedException {
+        String username = "user" + System.nanoTime() + "x" + users.incrementAndGet();
+        String password = "secret-" + username;
+        postForm(client, "/register", Map.of("username", username, "email", username + "@example.com",
+                "password", password, "confirmPassword", password));
+        HttpResponse<String> login = postForm(client, "/login", Map.of("username", username, "password", password));
+        if (login.statusCode() != 302 || !"/dashboard".equals(login.headers().firstValue("Location").orElse(null))) {
+            throw new IllegalStateException("Login failed for " + username + ": " + login.statusCode());
+        }
+        return username;
+    }
+}
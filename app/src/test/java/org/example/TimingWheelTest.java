@@ -0,0 +1,94 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    // 10ms ticks, 4 slots on 2 levels: 16 ticks before a timer is parked
+    private static TimingWheel<String> wheel() {
+        return new TimingWheel<>(10, 4, 2, 0);
+    }
+
+    private static List<String> advance(TimingWheel<String> wheel, long nowMillis) {
+        List<String> expired = new ArrayList<>();
+        wheel.advance(nowMillis, expired::add);
+        return expired;
+    }
+
+    @Test
+    void firesOnTheTickThatReachesTheDeadline() {
+        TimingWheel<String> wheel = wheel();
+        wheel.schedule(25, "a");
+
+        assertEquals(List.of(), advance(wheel, 29));
+        assertEquals(List.of("a"), advance(wheel, 30));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void firesOverdueTimersOnTheNextTick() {
+        TimingWheel<String> wheel = wheel();
+        advance(wheel, 100);
+        wheel.schedule(0, "late");
+
+        assertEquals(List.of(), advance(wheel, 100));
+        assertEquals(List.of("late"), advance(wheel, 110));
+    }
+
+    @Test
+    void cascadesTimersFromHigherLevels() {
+        TimingWheel<String> wheel = wheel();
+        wheel.schedule(30, "level 0");
+        wheel.schedule(90, "level 1");
+        wheel.schedule(150, "level 1 later");
+
+        assertEquals(List.of("level 0"), advance(wheel, 80));
+        assertEquals(List.of("level 1"), advance(wheel, 90));
+        assertEquals(List.of(), advance(wheel, 140));
+        assertEquals(List.of("level 1 later"), advance(wheel, 150));
+    }
+
+    @Test
+    void holdsDeadlinesBeyondTheTopLevel() {
+        TimingWheel<String> wheel = wheel();
+        wheel.schedule(1_000, "far");
+
+        for (long now = 0; now < 1_000; now += 10) {
+            assertEquals(List.of(), advance(wheel, now));
+        }
+        assertEquals(List.of("far"), advance(wheel, 1_000));
+    }
+
+    @Test
+    void cancelledTimersDoNotFire() {
+        TimingWheel<String> wheel = wheel();
+        TimingWheel.Timeout<String> a = wheel.schedule(20, "a");
+        TimingWheel.Timeout<String> b = wheel.schedule(20, "b");
+        TimingWheel.Timeout<String> c = wheel.schedule(20, "c");
+
+        wheel.cancel(b);
+        wheel.cancel(b);
+
+        assertFalse(b.isPending());
+        assertTrue(a.isPending());
+        assertEquals(2, wheel.size());
+        List<String> expired = advance(wheel, 20);
+        assertEquals(2, expired.size());
+        assertTrue(expired.containsAll(List.of("a", "c")));
+        assertFalse(c.isPending());
+    }
+
+    @Test
+    void refusesSlotCountsThatAreNotPowersOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(10, 3, 2, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(10, 4, 0, 0));
+    }
+}
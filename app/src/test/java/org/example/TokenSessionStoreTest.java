@@ -0,0 +1,67 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TokenSessionStoreTest {
+    private static final long NOW = 1_700_000_000L;
+
+    private static TokenSessionStore store(String secret) {
+        SessionStore.Config config = new SessionStore.Config();
+        config.secret = secret;
+        return new TokenSessionStore(config);
+    }
+
+    @Test
+    void decodesWhatItEncodes() {
+        TokenSessionStore store = store("test-secret");
+        SessionStore.Session session = new SessionStore.Session(42, "zoë");
+
+        TokenSessionStore.Decoded decoded = store.decode(store.encode(session, NOW + 60), NOW);
+
+        assertEquals(session, decoded.session());
+        assertEquals(NOW + 60, decoded.expiresAt());
+    }
+
+    @Test
+    void refusesExpiredTokens() {
+        TokenSessionStore store = store("test-secret");
+        String token = store.encode(new SessionStore.Session(1, "alice"), NOW);
+
+        assertNull(store.decode(token, NOW));
+        assertNull(store.decode(token, NOW + 1));
+    }
+
+    @Test
+    void refusesTokensSignedWithAnotherSecret() {
+        String token = store("other-secret").encode(new SessionStore.Session(1, "alice"), NOW + 60);
+
+        assertNull(store("test-secret").decode(token, NOW));
+    }
+
+    @Test
+    void refusesTamperedPayloads() {
+        TokenSessionStore store = store("test-secret");
+        String token = store.encode(new SessionStore.Session(1, "alice"), NOW + 60);
+        String signature = token.substring(token.indexOf('.'));
+        byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.')));
+        // Claim to be user 2 under the original signature
+        payload[4] = 2;
+
+        assertNull(store.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(payload) + signature, NOW));
+    }
+
+    @Test
+    void refusesMalformedTokens() {
+        TokenSessionStore store = store("test-secret");
+
+        assertNull(store.decode("", NOW));
+        assertNull(store.decode("no-dot-here", NOW));
+        assertNull(store.decode("!!!.???", NOW));
+        assertNull(store.decode(".", NOW));
+    }
+}
@@ -0,0 +1,131 @@
+package com.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WriteQueueTest {
+    @TempDir
+    Path dir;
+
+    private ConnectionPool pool;
+    private final AtomicInteger opened = new AtomicInteger();
+
+    @BeforeEach
+    void createTable() throws SQLException {
+        pool = new ConnectionPool("jdbc:sqlite:" + dir.resolve("writes.db"), new ConnectionPool.Config());
+        try (PooledConnection conn = pool.borrow(); Statement stmt = conn.raw().createStatement()) {
+            stmt.execute("CREATE TABLE notes (id INTEGER PRIMARY KEY, body TEXT NOT NULL)");
+        }
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    // A commit window long enough that everything submitted together lands in one batch
+    private WriteQueue queue(int maxBatchSize) throws SQLException {
+        WriteQueue.Config config = new WriteQueue.Config();
+        config.maxBatchSize = maxBatchSize;
+        config.commitWindowMicros = 200_000;
+        return new WriteQueue(() -> {
+            opened.incrementAndGet();
+            return pool.openDedicated();
+        }, config);
+    }
+
+    private static WriteQueue.WriteOp<Integer> insert(int id, String body) {
+        return conn -> {
+            PreparedStatement pstmt = conn.prepare("INSERT INTO notes (id, body) VALUES (?, ?)");
+            pstmt.setInt(1, id);
+            pstmt.setString(2, body);
+            return pstmt.executeUpdate();
+        };
+    }
+
+    private List<String> bodies() throws SQLException {
+        List<String> bodies = new ArrayList<>();
+        try (PooledConnection conn = pool.borrow();
+             ResultSet rs = conn.prepare("SELECT body FROM notes ORDER BY id").executeQuery()) {
+            while (rs.next()) {
+                bodies.add(rs.getString(1));
+            }
+        }
+        return bodies;
+    }
+
+    @Test
+    void rollsBackOnlyTheFailingWriteOfABatch() throws Exception {
+        try (WriteQueue writer = queue(256)) {
+            CompletableFuture<Integer> first = writer.submit(insert(1, "first"));
+            // Its first insert succeeds, then the duplicate key fails: both must be undone
+            CompletableFuture<Integer> failing = writer.submit(conn -> {
+                insert(2, "half").apply(conn);
+                return insert(1, "duplicate").apply(conn);
+            });
+            CompletableFuture<Integer> third = writer.submit(insert(3, "third"));
+
+            assertEquals(1, first.get());
+            ExecutionException failed = assertThrows(ExecutionException.class, failing::get);
+            assertInstanceOf(SQLException.class, failed.getCause());
+            assertEquals(1, third.get());
+
+            assertEquals(List.of("first", "third"), bodies());
+            WriteQueue.Stats stats = writer.stats();
+            assertEquals(1, stats.commits());
+            assertEquals(3, stats.operations());
+            assertEquals(1, stats.failedOperations());
+        }
+    }
+
+    @Test
+    void groupsQueuedWritesIntoBatchesOfAtMostMaxBatchSize() throws Exception {
+        try (WriteQueue writer = queue(2)) {
+            List<CompletableFuture<Integer>> writes = new ArrayList<>();
+            for (int id = 1; id <= 5; id++) {
+                writes.add(writer.submit(insert(id, "note " + id)));
+            }
+            for (CompletableFuture<Integer> write : writes) {
+                assertEquals(1, write.get());
+            }
+
+            assertEquals(5, bodies().size());
+            assertEquals(3, writer.stats().commits());
+        }
+    }
+
+    @Test
+    void reopensItsConnectionAfterAFatalError() throws Exception {
+        try (WriteQueue writer = queue(256)) {
+            PooledConnection before = writer.execute(conn -> conn);
+            assertThrows(SQLException.class, () -> writer.execute(conn -> {
+                throw new SQLException("disk I/O error", null, 10);
+            }));
+
+            PooledConnection after = writer.execute(conn -> conn);
+            assertNotSame(before, after);
+            assertEquals(2, opened.get());
+            assertEquals(1, writer.stats().reconnects());
+            assertEquals(1, writer.execute(insert(1, "after")));
+            assertEquals(List.of("after"), bodies());
+        }
+    }
+}
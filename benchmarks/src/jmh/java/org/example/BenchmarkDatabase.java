@@ -0,0 +1,203 @@
+package com.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Seeded SQLite databases for the benchmarks: USERS users sharing PASSWORD, and taskCount
+// tasks spread evenly over them, generated from a fixed random seed so every build gets
+// the same data. Each size is generated once (through the app's own schema and triggers)
+// and saved as a template; open() gives every benchmark fork a fresh copy of it.
+//
+// Data goes in through the app's write path, so with -Dtodo.db.shards users land in the
+// directory and each user's tasks in their shard, numbered the way that shard numbers them;
+// a template is then one file per shard plus the directory, kept per shard count.
+final class BenchmarkDatabase {
+    static final int USERS = 100;
+    static final String PASSWORD = "benchmark-password";
+
+    private static final Logger log = LoggerFactory.getLogger(BenchmarkDatabase.class);
+
+    // Bump when the schema or the generated data changes, so stale templates are not reused
+    private static final int SEED_VERSION = 2;
+    private static final long RANDOM_SEED = 42;
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final String[] WORDS = {
+        "review", "draft", "invoice", "deploy", "meeting", "report", "budget", "design", "refactor", "release",
+        "customer", "backup", "schedule", "migrate", "onboarding", "contract", "roadmap", "survey", "audit", "fix"
+    };
+    private static final String[] PRIORITIES = {"low", "medium", "medium", "high"};
+    private static final String[] STATUSES = {"pending", "pending", "in_progress", "completed", "completed"};
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private record TaskRow(int userId, String title, String description, String priority, String status,
+                           String createdAt) {}
+
+    private BenchmarkDatabase() {
+    }
+
+    // Point the app at a private copy of the taskCount database and initialize it.
+    // Must run before anything touches TodoAppDatabase, which reads todo.db.path once.
+    static void open(int taskCount) throws IOException, SQLException {
+        Path dir = Path.of(System.getProperty("bench.dir", "build/bench-db"));
+        Files.createDirectories(dir);
+        int shardCount = Shards.configuredCount();
+        String name = "tasks-" + taskCount + (shardCount > 0 ? "-s" + shardCount : "") + "-v" + SEED_VERSION;
+        List<Path> templates = files(dir.resolve(name + ".db"), shardCount);
+        List<Path> copies = files(dir.resolve("run-" + ProcessHandle.current().pid() + ".db"), shardCount);
+        copies.forEach(BenchmarkDatabase::deleteOnExit);
+
+        System.setProperty("todo.db.path", copies.get(0).toString());
+        if (templates.stream().allMatch(Files::exists)) {
+            for (int i = 0; i < templates.size(); i++) {
+                Files.copy(templates.get(i), copies.get(i), StandardCopyOption.REPLACE_EXISTING);
+            }
+            TodoAppDatabase.initializeDatabase();
+            return;
+        }
+
+        for (Path copy : copies) {
+            Files.deleteIfExists(copy);
+        }
+        TodoAppDatabase.initializeDatabase();
+        seed(taskCount, shardCount);
+
+        // Every file is saved under a temporary name first; the directory is moved into place
+        // last, so a template only counts as there once all its shards are
+        for (int i = templates.size() - 1; i >= 0; i--) {
+            Path template = templates.get(i);
+            Path partial = template.resolveSibling(template.getFileName() + ".partial");
+            Files.deleteIfExists(partial);
+            String vacuum = "VACUUM INTO '" + partial.toString().replace("'", "''") + "'";
+            WriteQueue.WriteOp<Void> save = conn -> {
+                try (Statement stmt = conn.raw().createStatement()) {
+                    stmt.execute(vacuum);
+                }
+                return null;
+            };
+            if (i == 0) {
+                TodoAppDatabase.executeRead(save);
+            } else {
+                TodoAppDatabase.executeRead(userOnShard(i - 1, shardCount), save);
+            }
+            Files.move(partial, template, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    // The directory file, then each task shard file (none unsharded)
+    private static List<Path> files(Path directory, int shardCount) {
+        List<Path> files = new ArrayList<>();
+        files.add(directory);
+        for (int i = 0; i < shardCount; i++) {
+            files.add(Path.of(Shards.taskShardPath(directory.toString(), i, shardCount)));
+        }
+        return files;
+    }
+
+    // Some user id whose tasks live on the given shard, to route a connection there
+    private static int userOnShard(int index, int shardCount) {
+        int userId = 1;
+        while (Shards.indexFor(userId, shardCount) != index) {
+            userId++;
+        }
+        return userId;
+    }
+
+    static String username(int userId) {
+        return "user" + userId;
+    }
+
+    private static void seed(int taskCount, int shardCount) throws SQLException {
+        log.info("Seeding benchmark database with {} tasks on {} task shard(s)...", taskCount, Math.max(1, shardCount));
+        String passwordHash;
+        try (PasswordHasher hasher = new PasswordHasher(PasswordHasher.Config.fromSystemProperties())) {
+            passwordHash = hasher.hash(PASSWORD);
+        }
+
+        TodoAppDatabase.executeWrite(conn -> {
+            PreparedStatement user = conn.prepare(
+                    "INSERT INTO users (id, username, email, password_hash) VALUES (?, ?, ?, ?)");
+            for (int id = 1; id <= USERS; id++) {
+                user.setInt(1, id);
+                user.setString(2, username(id));
+                user.setString(3, username(id) + "@example.com");
+                user.setString(4, passwordHash);
+                user.addBatch();
+            }
+            return user.executeBatch().length;
+        });
+
+        // Rows are generated in one fixed order, whatever the shard count, and written a batch at
+        // a time: one transaction per shard per batch, through that shard's writer
+        int shards = Math.max(1, shardCount);
+        Random random = new Random(RANDOM_SEED);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<List<TaskRow>> batch = new ArrayList<>();
+        for (int s = 0; s < shards; s++) {
+            batch.add(new ArrayList<>());
+        }
+        for (int i = 0; i < taskCount; i++) {
+            int userId = 1 + i % USERS;
+            batch.get(shardCount > 0 ? Shards.indexFor(userId, shardCount) : 0).add(new TaskRow(userId,
+                    word(random) + " " + word(random) + " #" + i,
+                    word(random) + " the " + word(random) + " before the " + word(random),
+                    PRIORITIES[random.nextInt(PRIORITIES.length)],
+                    STATUSES[random.nextInt(STATUSES.length)],
+                    // One task every ~30s of 2024, so created_at order matches insertion order
+                    start.plusSeconds(i * 30L + random.nextInt(30)).format(TIMESTAMP)));
+            if ((i + 1) % BATCH_SIZE == 0 || i == taskCount - 1) {
+                for (List<TaskRow> rows : batch) {
+                    insertTasks(rows);
+                    rows.clear();
+                }
+            }
+        }
+    }
+
+    // Insert rows that all live on one shard, in one transaction on it
+    private static void insertTasks(List<TaskRow> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int shardUser = rows.get(0).userId();
+        // The id expression reads the shard's current MAX(id), so it stays right row after row
+        String sql = "INSERT INTO tasks (id, user_id, title, description, priority, status, created_at) "
+                + "VALUES (" + TodoAppDatabase.nextTaskId(shardUser) + ", ?, ?, ?, ?, ?, ?)";
+        TodoAppDatabase.executeWrite(shardUser, conn -> {
+            PreparedStatement task = conn.prepare(sql);
+            for (TaskRow row : rows) {
+                task.setInt(1, row.userId());
+                task.setString(2, row.title());
+                task.setString(3, row.description());
+                task.setString(4, row.priority());
+                task.setString(5, row.status());
+                task.setString(6, row.createdAt());
+                task.addBatch();
+            }
+            return task.executeBatch().length;
+        });
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static void deleteOnExit(Path db) {
+        for (String suffix : new String[] {"", "-wal", "-shm", "-journal"}) {
+            db.resolveSibling(db.getFileName() + suffix).toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// TodoAppDatabase queries as the routes use them, against each seeded size.
+// Every call goes to the next user in turn, so no single user's pages stay hot.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DataLayerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int tasks;
+
+    private int userId;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkDatabase.open(tasks);
+    }
+
+    private int nextUser() {
+        userId = userId % BenchmarkDatabase.USERS + 1;
+        return userId;
+    }
+
+    // Dashboard list: 10 newest tasks
+    @Benchmark
+    public void getUserTasks(Blackhole bh) {
+        bh.consume(TodoAppDatabase.getUserTasks(nextUser()));
+    }
+
+    // Dashboard list and counts as the routes read them: through the task cache, all users hot
+    @Benchmark
+    public void cachedTasks(Blackhole bh) {
+        TaskCache.Entry entry = TodoAppDatabase.cachedTasks(nextUser());
+        bh.consume(entry.page(10));
+        bh.consume(entry.counts());
+    }
+
+    // /tasks?status=pending: one keyset page on the status index
+    @Benchmark
+    public void getUserTasksByStatus(Blackhole bh) {
+        bh.consume(TodoAppDatabase.getUserTasks(nextUser(), "pending", null, null, 20));
+    }
+
+    // Insert plus the counter, closure, rollup and FTS triggers, committed
+    @Benchmark
+    public int addTask() {
+        return TodoAppDatabase.addTask(nextUser(), "Benchmark task", "Added by DataLayerBenchmark", "medium");
+    }
+
+    // Dominated by PBKDF2 at the configured todo.password.iterations
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean validateUser() {
+        return TodoAppDatabase.validateUser(BenchmarkDatabase.username(nextUser()), BenchmarkDatabase.PASSWORD);
+    }
+}
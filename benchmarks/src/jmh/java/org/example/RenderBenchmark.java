@@ -0,0 +1,55 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.thymeleaf.context.Context;
+
+import java.io.CharArrayWriter;
+import java.util.concurrent.TimeUnit;
+
+// Thymeleaf rendering of the dashboard and task list, with the same template variables the
+// routes build for a seeded user. The variables are loaded once in setup, so only rendering
+// is measured; the queries behind them are in DataLayerBenchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int tasks;
+
+    private TemplateRenderer renderer;
+    private Context dashboard;
+    private Context taskList;
+    private final CharArrayWriter out = new CharArrayWriter(64 * 1024);
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkDatabase.open(tasks);
+        renderer = TemplateRenderer.create(StaticAssets.load());
+        dashboard = TodoAppDatabase.dashboardContext(1, BenchmarkDatabase.username(1));
+        taskList = TodoAppDatabase.tasksContext(1, BenchmarkDatabase.username(1), null, null, null, 1, null);
+    }
+
+    @Benchmark
+    public int dashboard() {
+        return render("dashboard", dashboard);
+    }
+
+    @Benchmark
+    public int tasks() {
+        return render("tasks", taskList);
+    }
+
+    private int render(String template, Context context) {
+        out.reset();
+        renderer.getTemplateEngine().process(template, context, out);
+        return out.size();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-request cost of resolving a session cookie in the sqlite and token session modes.
+// (memory mode is a Jetty session map lookup and needs a running server, so it is not here.)
+// A few thousand live sessions are created up front and looked up in turn.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SessionBenchmark {
+    private static final int SESSIONS = 4096;
+
+    private SqliteSessionStore sqliteStore;
+    private TokenSessionStore tokenStore;
+    private final String[] sqliteTokens = new String[SESSIONS];
+    private final String[] signedTokens = new String[SESSIONS];
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkDatabase.open(1000);
+        SessionStore.Config config = SessionStore.Config.fromSystemProperties();
+        config.secret = "benchmark-secret";
+        sqliteStore = new SqliteSessionStore(config);
+        tokenStore = new TokenSessionStore(config);
+
+        long expiresAt = System.currentTimeMillis() / 1000 + config.ttlSeconds;
+        for (int i = 0; i < SESSIONS; i++) {
+            int userId = i % BenchmarkDatabase.USERS + 1;
+            SessionStore.Session session = new SessionStore.Session(userId, BenchmarkDatabase.username(userId));
+            sqliteTokens[i] = sqliteStore.create(session);
+            signedTokens[i] = tokenStore.encode(session, expiresAt);
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) % SESSIONS;
+        return next;
+    }
+
+    @Benchmark
+    public Object sqliteLoad() {
+        return sqliteStore.load(sqliteTokens[nextIndex()]);
+    }
+
+    @Benchmark
+    public Object tokenLoad() {
+        return tokenStore.decode(signedTokens[nextIndex()], System.currentTimeMillis() / 1000);
+    }
+}